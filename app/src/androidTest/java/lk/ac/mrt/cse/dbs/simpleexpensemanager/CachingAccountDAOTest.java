@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.CachingAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Eviction, the generation guard against caching a read which raced with a write, and the write-through of balance
+ * changes in the account cache. The underlying DAO counts its reads, and can run a step in the middle of a read or a
+ * balance update, which stands in for another thread.
+ */
+public class CachingAccountDAOTest {
+    private CountingAccountDAO storage;
+    private CachingAccountDAO cache;
+
+    @Before
+    public void setUp() {
+        storage = new CountingAccountDAO();
+        for (String accountNo : new String[]{"A", "B", "C"}) {
+            storage.addAccount(new Account(accountNo, "Bank", "Holder", 100.0));
+        }
+        cache = new CachingAccountDAO(storage, 2);
+    }
+
+    @Test
+    public void leastRecentlyUsedAccountIsEvicted() throws InvalidAccountException {
+        cache.getAccount("A");
+        cache.getAccount("B");
+        cache.getAccount("A");
+        assertEquals(2, storage.reads);
+        assertEquals(1, cache.getHitCount());
+
+        // B is now the least recently used, so reading C evicts it rather than A
+        cache.getAccount("C");
+        cache.getAccount("A");
+        assertEquals(3, storage.reads);
+        cache.getAccount("B");
+        assertEquals(4, storage.reads);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void readRacingWithAnUpdateIsNotCached() throws InvalidAccountException {
+        // the read sees the balance from before the update, which completes before the read returns
+        storage.duringRead = new Step() {
+            @Override
+            public void run() throws InvalidAccountException {
+                storage.duringRead = null;
+                cache.updateBalanceMinor("A", ExpenseType.EXPENSE, 2500);
+            }
+        };
+        assertEquals(100.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(75.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(2, storage.reads);
+    }
+
+    @Test
+    public void readDuringAnUpdateIsNotCached() throws InvalidAccountException {
+        cache.getAccount("A");
+        cache.invalidate("A");
+        // the read sees the balance after the update, which is then applied to the cached copy
+        storage.duringUpdate = new Step() {
+            @Override
+            public void run() throws InvalidAccountException {
+                storage.duringUpdate = null;
+                assertEquals(75.0, cache.getAccount("A").getBalance(), 0.0001);
+            }
+        };
+        cache.updateBalanceMinor("A", ExpenseType.EXPENSE, 2500);
+        assertEquals(75.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(75.0, cache.getAccount("A").getBalance(), 0.0001);
+    }
+
+    @Test
+    public void balanceChangesAreWrittenThrough() throws InvalidAccountException {
+        cache.getAccount("A");
+        cache.updateBalanceMinor("A", ExpenseType.INCOME, 1000);
+        assertEquals(110.0, storage.getAccount("A").getBalance(), 0.0001);
+        int reads = storage.reads;
+        assertEquals(110.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(reads, storage.reads);
+
+        // a change committed elsewhere is applied to the cached copy without reading it back
+        cache.beginBalanceChange();
+        storage.updateBalanceMinor("A", ExpenseType.EXPENSE, 500);
+        cache.applyBalanceChange("A", ExpenseType.EXPENSE, 500);
+        cache.endBalanceChange();
+        assertEquals(105.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(reads, storage.reads);
+
+        // unless the amount is not known
+        cache.invalidateBalance("A");
+        assertEquals(105.0, cache.getAccount("A").getBalance(), 0.0001);
+        assertEquals(reads + 1, storage.reads);
+    }
+
+    @Test
+    public void existenceChecksAreNotCountedAsHits() throws InvalidAccountException {
+        cache.checkAccount("A");
+        assertEquals(1, cache.getMissCount());
+        cache.checkAccount("A");
+        cache.checkAccount("A");
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, storage.reads);
+    }
+
+    private interface Step {
+        void run() throws InvalidAccountException;
+    }
+
+    private static class CountingAccountDAO extends InMemoryAccountDAO {
+        int reads;
+        Step duringRead;
+        Step duringUpdate;
+
+        @Override
+        public Account getAccount(String accountNo) throws InvalidAccountException {
+            reads++;
+            Account account = super.getAccount(accountNo);
+            if (duringRead != null) duringRead.run();
+            return account;
+        }
+
+        @Override
+        public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount)
+                throws InvalidAccountException {
+            super.updateBalanceMinor(accountNo, expenseType, amount);
+            if (duringUpdate != null) duringUpdate.run();
+        }
+    }
+}
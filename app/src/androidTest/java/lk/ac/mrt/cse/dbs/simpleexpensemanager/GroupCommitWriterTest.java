@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.GroupCommitWriter;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a transaction written through the group commit writer is committed by the time write returns, and that
+ * one which cannot be committed is reported to its own caller without failing the rest of its group.
+ */
+public class GroupCommitWriterTest {
+    private static final String DATABASE_NAME = "group-commit-test.db";
+    private static final String ACCOUNT_NO = "GC01";
+    private static final String MISSING_ACCOUNT_NO = "GC404";
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 200;
+
+    private Context context;
+    private LedgerStore ledgerStore;
+    private GroupCommitWriter writer;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        ledgerStore.addAccount(Account.ofMinorUnits(ACCOUNT_NO, "Bank", "Holder", 0));
+        // an interval long enough that nothing would be committed during the test if write did not ask for it
+        writer = new GroupCommitWriter(ledgerStore, 64, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        writer.close();
+        ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void writeReturnsOnceCommitted() {
+        assertTrue(writer.write(income(ACCOUNT_NO, 250), true));
+        assertFalse(writer.hasPending());
+        // read through a second store, which only sees what was committed
+        LedgerStore reader = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        try {
+            assertEquals(250, reader.getAccount(ACCOUNT_NO).getBalanceMinor());
+            assertEquals(1, reader.getAllTransactionLogs().size());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void failedWriteIsReportedToItsCaller() {
+        assertFalse(writer.write(income(MISSING_ACCOUNT_NO, 100), true));
+        assertEquals(1, writer.getFailedCount());
+        assertTrue(writer.write(income(ACCOUNT_NO, 100), true));
+        assertEquals(100, ledgerStore.getAccount(ACCOUNT_NO).getBalanceMinor());
+        assertEquals(1, ledgerStore.getAllTransactionLogs().size());
+    }
+
+    @Test
+    public void failedSubmitIsCounted() {
+        writer.submit(income(MISSING_ACCOUNT_NO, 100), true);
+        writer.flush();
+        assertEquals(1, writer.getFailedCount());
+    }
+
+    @Test
+    public void failedSubmitIsReportedToAwaitCommitted() throws InterruptedException {
+        long failed = writer.submit(income(MISSING_ACCOUNT_NO, 100), true);
+        long committed = writer.submit(income(ACCOUNT_NO, 100), true);
+        assertFalse(writer.awaitCommitted(failed, 10000));
+        assertTrue(writer.awaitCommitted(committed, 10000));
+        assertEquals(100, ledgerStore.getAccount(ACCOUNT_NO).getBalanceMinor());
+    }
+
+    @Test
+    public void concurrentWritesShareGroupsAndFailAlone() throws Exception {
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                workers.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int committed = 0;
+                        for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                            // every tenth write of every other thread goes to an account which does not exist
+                            boolean bad = thread % 2 == 0 && i % 10 == 0;
+                            boolean written = writer.write(income(bad ? MISSING_ACCOUNT_NO : ACCOUNT_NO, 1), true);
+                            assertEquals(!bad, written);
+                            if (written) committed++;
+                        }
+                        return committed;
+                    }
+                }));
+            }
+            long committed = 0;
+            for (Future<Integer> worker : workers) {
+                committed += worker.get();
+            }
+            long failed = (long) THREADS / 2 * WRITES_PER_THREAD / 10;
+            assertEquals((long) THREADS * WRITES_PER_THREAD - failed, committed);
+            assertEquals(failed, writer.getFailedCount());
+            assertEquals(committed, ledgerStore.getAccount(ACCOUNT_NO).getBalanceMinor());
+            assertEquals(committed, ledgerStore.getAllTransactionLogs().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Transaction income(String accountNo, long amount) {
+        return Transaction.ofMinorUnits(0, new Date(), accountNo, ExpenseType.INCOME, amount);
+    }
+}
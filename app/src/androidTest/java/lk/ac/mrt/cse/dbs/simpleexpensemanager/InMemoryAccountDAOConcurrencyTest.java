@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Posts to a few shared accounts from many threads at once and checks that no balance update was lost.
+ */
+public class InMemoryAccountDAOConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int UPDATES_PER_THREAD = 100000;
+    private static final int ACCOUNTS = 4;
+    private static final long INITIAL_BALANCE = 1000000;
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        final AccountDAO accountDAO = new InMemoryAccountDAO();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountDAO.addAccount(Account.ofMinorUnits(accountNo(i), "Bank", "Holder", INITIAL_BALANCE));
+        }
+
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                            // every thread adds 3 and takes away 1 per pair of updates, spread over all accounts
+                            String accountNo = accountNo(thread + i);
+                            if (i % 2 == 0) {
+                                accountDAO.updateBalanceMinor(accountNo, ExpenseType.INCOME, 3);
+                            } else {
+                                accountDAO.updateBalanceMinor(accountNo, ExpenseType.EXPENSE, 1);
+                            }
+                            // reads run alongside the updates and must never fail
+                            accountDAO.getAccount(accountNo(i));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total += accountDAO.getAccount(accountNo(i)).getBalanceMinor();
+        }
+        long expectedChange = (long) THREADS * (UPDATES_PER_THREAD / 2) * (3 - 1);
+        assertEquals(ACCOUNTS * INITIAL_BALANCE + expectedChange, total);
+    }
+
+    @Test(expected = InvalidAccountException.class)
+    public void updateOfRemovedAccountFails() throws InvalidAccountException {
+        AccountDAO accountDAO = new InMemoryAccountDAO();
+        accountDAO.addAccount(Account.ofMinorUnits("GONE", "Bank", "Holder", 0));
+        accountDAO.removeAccount("GONE");
+        accountDAO.updateBalanceMinor("GONE", ExpenseType.INCOME, 1);
+    }
+
+    private static String accountNo(int i) {
+        return "ACC" + (i % ACCOUNTS);
+    }
+}
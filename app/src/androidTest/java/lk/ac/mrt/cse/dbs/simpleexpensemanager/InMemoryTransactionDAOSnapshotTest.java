@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the lists handed out by the in-memory transaction log keep their contents while transactions are logged,
+ * both after the newest one and before it.
+ */
+public class InMemoryTransactionDAOSnapshotTest {
+    private static final int READERS = 4;
+    private static final int WRITES = 50000;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void viewsDoNotChangeWhenTransactionsAreLogged() {
+        InMemoryTransactionDAO transactionDAO = new InMemoryTransactionDAO();
+        for (int i = 0; i < 10; i++) {
+            transactionDAO.logTransaction(new Date(10 * DAY + i * DAY), "A" + (i % 3), ExpenseType.EXPENSE, i + 1);
+        }
+        List<Transaction> all = transactionDAO.getAllTransactionLogs();
+        List<Transaction> last = transactionDAO.getPaginatedTransactionLogs(4);
+        TransactionPage page = transactionDAO.getTransactionLogPage(null, 5);
+        List<Transaction> range = transactionDAO.getTransactionLogs(new Date(12 * DAY), new Date(15 * DAY));
+        List<Long> allIds = ids(all);
+        List<Long> lastIds = ids(last);
+        List<Long> pageIds = ids(page.getTransactions());
+        List<Long> rangeIds = ids(range);
+
+        // one after the newest row, one which moves every row, and one on a new account
+        transactionDAO.logTransaction(new Date(30 * DAY), "A0", ExpenseType.INCOME, 7);
+        transactionDAO.logTransaction(new Date(DAY), "A1", ExpenseType.INCOME, 8);
+        transactionDAO.logTransaction(new Date(13 * DAY + 1), "NEW", ExpenseType.INCOME, 9);
+
+        assertEquals(allIds, ids(all));
+        assertEquals(lastIds, ids(last));
+        assertEquals(pageIds, ids(page.getTransactions()));
+        assertEquals(rangeIds, ids(range));
+        assertEquals(Long.valueOf(10), ids(all.subList(9, 10)).get(0));
+        assertEquals(13, transactionDAO.getAllTransactionLogs().size());
+        assertEquals("NEW", transactionDAO.getTransactionLogs(new Date(13 * DAY + 1), new Date(13 * DAY + 2)).get(0)
+                .getAccountNo());
+    }
+
+    @Test
+    public void viewsCanBeReadWhileTransactionsAreLogged() throws Exception {
+        final InMemoryTransactionDAO transactionDAO = new InMemoryTransactionDAO();
+        final CyclicBarrier start = new CyclicBarrier(READERS + 1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        List<Future<Integer>> readers = new ArrayList<>();
+        try {
+            Future<?> writer = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    Random random = new Random(42);
+                    try {
+                        for (int i = 0; i < WRITES; i++) {
+                            // mostly in date order, as the app logs them, with every tenth one in the past
+                            long date = i % 10 == 0 ? random.nextInt(i + 1) * DAY / 8 : i * DAY / 8;
+                            transactionDAO.logTransaction(new Date(date), "A" + (i % 7), ExpenseType.EXPENSE, 1);
+                        }
+                    } finally {
+                        writing.set(false);
+                    }
+                    return null;
+                }
+            });
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int checked = 0;
+                        while (writing.get()) {
+                            List<Transaction> view = transactionDAO.getAllTransactionLogs();
+                            int size = view.size();
+                            List<Long> ids = new ArrayList<>(size);
+                            long previousDate = Long.MIN_VALUE;
+                            for (Transaction transaction : view) {
+                                assertTrue(transaction.getDate().getTime() >= previousDate);
+                                previousDate = transaction.getDate().getTime();
+                                ids.add(transaction.getTransactionId());
+                            }
+                            // read again after more transactions were logged
+                            assertEquals(size, view.size());
+                            assertEquals(ids, ids(view));
+                            checked++;
+                        }
+                        return checked;
+                    }
+                }));
+            }
+            writer.get();
+            for (Future<Integer> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(WRITES, transactionDAO.getAllTransactionLogs().size());
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        List<Long> ids = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JournalTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Reopens a transaction journal which was never closed, as happens when the process is killed, with and without
+ * damaged records, and checks what survives. The journal files are shared with the abandoned instance the way they
+ * would be with a process which died: through the page cache.
+ */
+public class JournalRecoveryTest {
+    private static final int TRANSACTIONS = 100;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKSUM_OFFSET = 24;
+    private static final long FIRST_DATE = 1640995200000L;
+    private static final long HOUR = 60L * 60 * 1000;
+
+    private File directory;
+    private JournalTransactionDAO journalDAO;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        directory = new File(context.getCacheDir(), "recovery-test-journal");
+        TransactionDAOFixture.deleteDirectory(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (journalDAO != null) journalDAO.close();
+        TransactionDAOFixture.deleteDirectory(directory);
+    }
+
+    @Test
+    public void everythingLoggedSurvivesAKill() throws IOException {
+        // every transaction but the first few is on an account the journal has not seen yet
+        List<Transaction> logged = logWithoutClosing(TRANSACTIONS);
+        journalDAO = new JournalTransactionDAO(directory, 1 << 20);
+        assertTransactions(logged, journalDAO.getAllTransactionLogs());
+        assertEquals(-sum(logged, "K7"), journalDAO.getBalanceChange("K7"));
+    }
+
+    @Test
+    public void damagedRecordIsDroppedAndTheRestKept() throws IOException {
+        List<Transaction> logged = logWithoutClosing(TRANSACTIONS);
+        damage(40);
+        journalDAO = new JournalTransactionDAO(directory, 1 << 20);
+        logged.remove(40);
+        assertTransactions(logged, journalDAO.getAllTransactionLogs());
+        assertEquals(-sum(logged, logged.get(40).getAccountNo()),
+                journalDAO.getBalanceChange(logged.get(40).getAccountNo()));
+
+        // the repair holds when more is logged and the journal is opened again
+        Transaction next = transaction(TRANSACTIONS);
+        journalDAO.logTransaction(next.getDate(), next.getAccountNo(), next.getExpenseType(), next.getAmount());
+        journalDAO.close();
+        logged.add(next);
+        journalDAO = new JournalTransactionDAO(directory, 1 << 20);
+        assertTransactions(logged, journalDAO.getAllTransactionLogs());
+    }
+
+    @Test
+    public void tornLastRecordIsDropped() throws IOException {
+        List<Transaction> logged = logWithoutClosing(TRANSACTIONS);
+        damage(TRANSACTIONS - 1);
+        journalDAO = new JournalTransactionDAO(directory, 1 << 20);
+        logged.remove(TRANSACTIONS - 1);
+        assertTransactions(logged, journalDAO.getAllTransactionLogs());
+    }
+
+    /***
+     * Log transactions and leave the journal open, without a snapshot covering them.
+     */
+    private List<Transaction> logWithoutClosing(int count) throws IOException {
+        JournalTransactionDAO abandoned = new JournalTransactionDAO(directory, 1 << 20);
+        List<Transaction> logged = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = transaction(i);
+            abandoned.logTransaction(transaction.getDate(), transaction.getAccountNo(), transaction.getExpenseType(),
+                    transaction.getAmount());
+            logged.add(transaction);
+        }
+        return logged;
+    }
+
+    private static Transaction transaction(int i) {
+        return new Transaction(new Date(FIRST_DATE + i * HOUR), "K" + (i < 10 ? 0 : i / 10), ExpenseType.EXPENSE,
+                i + 1);
+    }
+
+    /***
+     * Flip a bit of the checksum of a record, as a write torn by a crash would leave it.
+     */
+    private void damage(int index) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(new File(directory, "journal.dat"), "rw");
+        try {
+            long position = (long) index * RECORD_SIZE + CHECKSUM_OFFSET;
+            file.seek(position);
+            int checksum = file.readInt();
+            file.seek(position);
+            file.writeInt(checksum ^ 0x100);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static void assertTransactions(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            // ids are positions, so the records after a dropped one have moved down
+            assertEquals(i + 1, actual.get(i).getTransactionId());
+            assertEquals(expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals(expected.get(i).getAccountNo(), actual.get(i).getAccountNo());
+            assertEquals(expected.get(i).getAmountMinor(), actual.get(i).getAmountMinor());
+        }
+    }
+
+    private static long sum(List<Transaction> transactions, String accountNo) {
+        long sum = 0;
+        for (Transaction transaction : transactions) {
+            if (transaction.getAccountNo().equals(accountNo)) sum += transaction.getAmountMinor();
+        }
+        return sum;
+    }
+}
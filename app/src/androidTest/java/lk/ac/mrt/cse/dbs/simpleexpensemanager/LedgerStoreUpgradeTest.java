@@ -0,0 +1,243 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.Schema;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlConnection;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlStatement;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageEngine;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageErrorListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Opens databases left behind by earlier versions of the app and checks that the upgrade keeps every account and
+ * transaction, converts the legacy column types, and builds the indexes and monthly totals.
+ */
+public class LedgerStoreUpgradeTest {
+    private static final String DATABASE_NAME = "upgrade-test.db";
+    // more than two migration chunks, so that the copy has to resume from where each chunk stopped
+    private static final int TRANSACTIONS = 12345;
+    private static final long FIRST_DATE = 1640995200000L;
+    private static final long DATE_STEP = 3600000L;
+
+    private Context context;
+    private LedgerStore ledgerStore;
+
+    @Before
+    public void deleteDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @After
+    public void closeDatabase() {
+        if (ledgerStore != null) ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void upgradeFromVersion1() {
+        createFixture(1, 0);
+        checkUpgraded();
+    }
+
+    @Test
+    public void resumeMigrationInterruptedAtVersion2() {
+        // version 2 renamed the table and was killed after copying the first chunk
+        createFixture(2, 5000);
+        checkUpgraded();
+    }
+
+    @Test
+    public void upgradeFromVersion2() {
+        createFixture(2, TRANSACTIONS);
+        checkUpgraded();
+    }
+
+    /***
+     * Write a database the way an earlier version left it.
+     *
+     * @param version - 1 for varchar dates; 2 for the integer dates, with part of the rows still in the legacy table
+     * @param copied  - number of transactions version 2 had copied out of the legacy table
+     */
+    private void createFixture(final int version, final int copied) {
+        StorageEngine engine = new SQLiteHelper(context, DATABASE_NAME);
+        SqlConnection db = engine.openWriter(new Schema() {
+            @Override
+            public int getVersion() {
+                return version;
+            }
+
+            @Override
+            public void onCreate(SqlConnection connection) {
+                connection.execute("create table accounts (accountNo varchar(30) primary key, bankName varchar(50), accountHolderName varchar(80), balance real)");
+                connection.execute("insert into accounts values ('A1', 'Bank 1', 'Holder 1', 1234.56)");
+                connection.execute("insert into accounts values ('A2', 'Bank 2', 'Holder 2', 10.05)");
+                String legacyTable = version == 1 ? "transactions" : "transactions_legacy";
+                connection.execute("create table " + legacyTable + " (transactionID integer primary key, accountNo varchar(30), expenseType varchar(30), amount real, date varchar(20))");
+                // the dates were bound as longs, which a varchar column stores as text
+                SqlStatement insert = connection.prepare("insert into " + legacyTable + " values (?, ?, ?, ?, cast(? as text))");
+                try {
+                    for (int id = 1; id <= TRANSACTIONS; id++) {
+                        insert.bindLong(1, id);
+                        insert.bindString(2, accountOf(id));
+                        insert.bindString(3, typeOf(id).name());
+                        insert.bindString(4, (id % 1000) + ".25");
+                        insert.bindLong(5, dateOf(id));
+                        insert.executeInsert();
+                    }
+                } finally {
+                    insert.close();
+                }
+                if (version == 2) {
+                    connection.execute("create table transactions (transactionID integer primary key, accountNo varchar(30), expenseType varchar(30), amount real, date integer)");
+                    connection.execute("create index transactions_account_date_idx on transactions (accountNo, date)");
+                    connection.execute("create index transactions_date_idx on transactions (date)");
+                    connection.execute("insert into transactions select transactionID, accountNo, expenseType, amount, cast(date as integer) from transactions_legacy"
+                            + " where transactionID <= " + copied);
+                }
+            }
+
+            @Override
+            public void onUpgrade(SqlConnection connection, int oldVersion, int newVersion) {
+                throw new IllegalStateException("The fixture must start from an empty database");
+            }
+
+            @Override
+            public void onOpen(SqlConnection connection) {
+            }
+        });
+        db.close();
+        engine.close();
+    }
+
+    private void checkUpgraded() {
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        ledgerStore.setErrorListener(new StorageErrorListener() {
+            @Override
+            public void onStorageError(String operation, RuntimeException e) {
+                throw new AssertionError(operation + " failed", e);
+            }
+        });
+        assertEquals(123456, ledgerStore.getAccount("A1").getBalanceMinor());
+        assertEquals(1005, ledgerStore.getAccount("A2").getBalanceMinor());
+
+        List<Transaction> transactions = ledgerStore.getAllTransactionLogs();
+        assertEquals(TRANSACTIONS, transactions.size());
+        Map<String, Long> expectedTotals = new HashMap<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction transaction = transactions.get(i);
+            long id = transaction.getTransactionId();
+            assertEquals(dateOf(id), transaction.getDate().getTime());
+            assertEquals(accountOf(id), transaction.getAccountNo());
+            assertEquals(typeOf(id), transaction.getExpenseType());
+            assertEquals((id % 1000) * 100 + 25, transaction.getAmountMinor());
+            String key = id % 2 + "/" + MonthlyTotal.monthOf(dateOf(id)) + "/" + typeOf(id);
+            Long total = expectedTotals.get(key);
+            expectedTotals.put(key, (total == null ? 0 : total) + transaction.getAmountMinor());
+        }
+
+        int totals = 0;
+        for (String accountNo : new String[]{"A2", "A1"}) {
+            for (MonthlyTotal total : ledgerStore.getMonthlyTotals(accountNo, 0, 999999)) {
+                String key = (accountNo.equals("A1") ? 1 : 0) + "/" + total.getMonth() + "/" + total.getExpenseType();
+                assertEquals(key, expectedTotals.get(key), Long.valueOf(total.getTotal()));
+                totals++;
+            }
+        }
+        assertEquals(expectedTotals.size(), totals);
+        ledgerStore.close();
+
+        StorageEngine engine = new SQLiteHelper(context, DATABASE_NAME);
+        SqlConnection db = engine.openWriter(new CurrentSchema(ledgerStore.getVersion()));
+        try {
+            assertEquals(0, queryForLong(db, "select count(*) from sqlite_master where name = 'transactions_legacy'"));
+            assertEquals(2, queryForLong(db, "select count(*) from sqlite_master where type = 'index' and tbl_name = 'transactions'"));
+            assertEquals(0, queryForLong(db, "select count(*) from transactions where typeof(date) != 'integer' or typeof(amount) != 'integer'"));
+            assertEquals(0, queryForLong(db, "select count(*) from accounts where typeof(balance) != 'integer'"));
+        } finally {
+            db.close();
+            engine.close();
+        }
+    }
+
+    private static long queryForLong(SqlConnection db, String sql) {
+        SqlStatement statement = db.prepare(sql);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static String accountOf(long id) {
+        return id % 2 == 1 ? "A1" : "A2";
+    }
+
+    private static ExpenseType typeOf(long id) {
+        return id % 3 == 0 ? ExpenseType.EXPENSE : ExpenseType.INCOME;
+    }
+
+    private static long dateOf(long id) {
+        return FIRST_DATE + id * DATE_STEP;
+    }
+
+    /**
+     * Opens an upgraded database as it is, to look at the tables the upgrade left behind.
+     */
+    private static class CurrentSchema implements Schema {
+        private final int version;
+
+        CurrentSchema(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public void onCreate(SqlConnection connection) {
+            throw new IllegalStateException("The database should exist");
+        }
+
+        @Override
+        public void onUpgrade(SqlConnection connection, int oldVersion, int newVersion) {
+            throw new IllegalStateException("The database should be upgraded");
+        }
+
+        @Override
+        public void onOpen(SqlConnection connection) {
+        }
+    }
+}
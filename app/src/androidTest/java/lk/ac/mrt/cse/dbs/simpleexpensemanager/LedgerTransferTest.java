@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ReconciliationReport;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer.LedgerFormat;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer.LedgerTransfer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exports a ledger in each format and imports it into another store, checking that the copy matches and reconciles,
+ * that importing it again adds nothing and that accounts which already exist are left alone.
+ */
+public class LedgerTransferTest {
+    private static final String SOURCE_NAME = "transfer-source.db";
+    private static final String TARGET_NAME = "transfer-target.db";
+    private static final String[] ACCOUNTS = {"T1", "T2", "T3"};
+    // more than a few windows of the export
+    private static final int TRANSACTIONS = 1500;
+    private static final long FIRST_DATE = 1640995200000L;
+
+    private Context context;
+    private LedgerStore source;
+    private LedgerStore target;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(SOURCE_NAME);
+        context.deleteDatabase(TARGET_NAME);
+        source = new LedgerStore(new SQLiteHelper(context, SOURCE_NAME));
+        target = new LedgerStore(new SQLiteHelper(context, TARGET_NAME));
+        source.addAccount(Account.ofMinorUnits(ACCOUNTS[0], "Bank, \"One\"", "Holder\nName", 100000));
+        source.addAccount(Account.ofMinorUnits(ACCOUNTS[1], "Bank", "Holder", 0));
+        source.addAccount(Account.ofMinorUnits(ACCOUNTS[2], "Bank", "Holder", 250));
+        Random random = new Random(3);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            // dates out of logging order, so the export order by id is not the date order
+            ExpenseType type = random.nextBoolean() ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            transactions.add(Transaction.ofMinorUnits(0, new Date(FIRST_DATE + random.nextInt(1000) * 60000L),
+                    ACCOUNTS[random.nextInt(ACCOUNTS.length)], type, random.nextInt(10000) + 1));
+        }
+        assertTrue(source.postTransactions(transactions));
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        target.close();
+        context.deleteDatabase(SOURCE_NAME);
+        context.deleteDatabase(TARGET_NAME);
+    }
+
+    @Test
+    public void csvRoundTrip() throws IOException {
+        checkRoundTrip(LedgerFormat.CSV);
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        checkRoundTrip(LedgerFormat.BINARY);
+    }
+
+    @Test
+    public void existingAccountsAreLeftAlone() throws IOException {
+        target.addAccount(Account.ofMinorUnits(ACCOUNTS[1], "Other bank", "Other holder", 5000));
+        assertTrue(target.postTransaction(Transaction.ofMinorUnits(0, new Date(FIRST_DATE), ACCOUNTS[1],
+                ExpenseType.EXPENSE, 1200)));
+
+        byte[] ledger = export(LedgerFormat.BINARY);
+        assertEquals(ACCOUNTS.length + TRANSACTIONS, new LedgerTransfer(target).importLedger(
+                new ByteArrayInputStream(ledger), LedgerFormat.BINARY));
+
+        Account kept = target.getAccount(ACCOUNTS[1]);
+        assertEquals("Other bank", kept.getBankName());
+        assertEquals(3800, kept.getBalanceMinor());
+        assertEquals(1, target.getAccountTransactionLogs(ACCOUNTS[1], Long.MIN_VALUE, Long.MAX_VALUE).size());
+        for (String accountNo : new String[]{ACCOUNTS[0], ACCOUNTS[2]}) {
+            assertEquals(source.getAccount(accountNo).getBalanceMinor(), target.getAccount(accountNo).getBalanceMinor());
+            assertTransactions(source.getAccountTransactionLogs(accountNo, Long.MIN_VALUE, Long.MAX_VALUE),
+                    target.getAccountTransactionLogs(accountNo, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        assertReconciled(target);
+    }
+
+    private void checkRoundTrip(LedgerFormat format) throws IOException {
+        byte[] ledger = export(format);
+        LedgerTransfer transfer = new LedgerTransfer(target, 100);
+        assertEquals(ACCOUNTS.length + TRANSACTIONS, transfer.importLedger(new ByteArrayInputStream(ledger), format));
+        assertLedgersEqual();
+        assertReconciled(target);
+
+        // a second import of the same ledger finds every account taken and adds nothing
+        assertEquals(ACCOUNTS.length + TRANSACTIONS, transfer.importLedger(new ByteArrayInputStream(ledger), format));
+        assertLedgersEqual();
+        assertReconciled(target);
+    }
+
+    private byte[] export(LedgerFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(ACCOUNTS.length + TRANSACTIONS, new LedgerTransfer(source).exportLedger(out, format));
+        return out.toByteArray();
+    }
+
+    private void assertLedgersEqual() {
+        List<Account> expected = source.getAccountsList();
+        List<Account> actual = target.getAccountsList();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getAccountNo(), actual.get(i).getAccountNo());
+            assertEquals(expected.get(i).getBankName(), actual.get(i).getBankName());
+            assertEquals(expected.get(i).getAccountHolderName(), actual.get(i).getAccountHolderName());
+            assertEquals(expected.get(i).getBalanceMinor(), actual.get(i).getBalanceMinor());
+        }
+        assertTransactions(source.getAllTransactionLogs(), target.getAllTransactionLogs());
+    }
+
+    private static void assertTransactions(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            // both in date order, with ties in logging order, which the import keeps
+            assertEquals(expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals(expected.get(i).getAccountNo(), actual.get(i).getAccountNo());
+            assertEquals(expected.get(i).getExpenseType(), actual.get(i).getExpenseType());
+            assertEquals(expected.get(i).getAmountMinor(), actual.get(i).getAmountMinor());
+        }
+    }
+
+    private static void assertReconciled(LedgerStore store) {
+        ReconciliationReport report = store.reconcile(false);
+        assertTrue(report.getMismatches().isEmpty());
+    }
+}
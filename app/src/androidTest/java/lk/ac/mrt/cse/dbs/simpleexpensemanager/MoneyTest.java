@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Parsing and formatting of fixed-point money amounts.
+ */
+public class MoneyTest {
+
+    @Test
+    public void parseDecimals() {
+        assertEquals(0, Money.parse("0"));
+        assertEquals(123400, Money.parse("1234"));
+        assertEquals(123450, Money.parse("1234.5"));
+        assertEquals(123456, Money.parse("1234.56"));
+        assertEquals(-123456, Money.parse("-1234.56"));
+        assertEquals(123456, Money.parse("+1234.56"));
+        assertEquals(100, Money.parse("1."));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(5, Money.parse("0.05"));
+        assertEquals(123456, Money.parse("0001234.560"));
+    }
+
+    @Test
+    public void parseRoundsHalfAwayFromZero() {
+        assertEquals(100, Money.parse("1.004"));
+        assertEquals(101, Money.parse("1.005"));
+        assertEquals(101, Money.parse("1.00999"));
+        assertEquals(100, Money.parse("0.995"));
+        assertEquals(-101, Money.parse("-1.005"));
+    }
+
+    @Test
+    public void parseLimits() {
+        assertEquals(9223372036854775799L, Money.parse("92233720368547757.99"));
+        assertEquals(9223372036854775800L, Money.parse("92233720368547757.995"));
+        assertInvalid("92233720368547758");
+        assertInvalid("99999999999999999999");
+    }
+
+    /***
+     * Double.parseDouble, which amounts used to be parsed with, also accepted surrounding whitespace, exponents, type
+     * suffixes and the names of special values. None of these are amounts a user types, so they are rejected now.
+     */
+    @Test
+    public void parseRejectsWhatIsNotAPlainDecimal() {
+        String[] invalid = {"", "-", "+", ".", "-.", " 12", "12 ", "1 2", "1e3", "1E-2", "12d", "12f", "0x10",
+                "NaN", "Infinity", "1,000.00", "1.2.3", "--1", "12-"};
+        for (String text : invalid) {
+            assertInvalid(text);
+        }
+    }
+
+    @Test
+    public void format() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("1234.50", Money.format(123450));
+        assertEquals("-1234.56", Money.format(-123456));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void formatThenParseRoundTrips() {
+        for (long minor = -100000; minor <= 100000; minor += 7) {
+            assertEquals(minor, Money.parse(Money.format(minor)));
+        }
+    }
+
+    @Test
+    public void fromDoubleRoundsToTheNearestMinorUnit() {
+        assertEquals(123456, Money.fromDouble(1234.56));
+        // 0.1 + 0.2 is a little above 0.3 as a double
+        assertEquals(30, Money.fromDouble(0.1 + 0.2));
+        assertEquals(-5, Money.fromDouble(-0.05));
+        assertEquals(1234.56, Money.toDouble(123456), 0);
+    }
+
+    private static void assertInvalid(String text) {
+        try {
+            Money.parse(text);
+            fail("\"" + text + "\" should not parse");
+        } catch (NumberFormatException expected) {
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JournalTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.Schema;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlConnection;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageEngine;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the monthly totals kept by each TransactionDAO against totals computed from the transaction log, both as
+ * they are maintained on every insert and after they have been rebuilt.
+ */
+public class MonthlyTotalsTest extends TransactionDAOFixture {
+    private static final String[] ACCOUNTS = {"ACC0", "ACC1", "ACC2"};
+    private static final long FIRST_DATE = 1640995200000L;
+    private static final long DATE_STEP = 7L * 3600000;
+
+    public MonthlyTotalsTest() {
+        super("monthly-totals-test");
+    }
+
+    @Override
+    protected void check(TransactionDAO dao) {
+        logTransactions(dao);
+        checkTotals(dao);
+        dao.rebuildMonthlyTotals();
+        checkTotals(dao);
+    }
+
+    @Test
+    @Override
+    public void persistent() {
+        TransactionDAO dao = openPersistent();
+        logTransactions(dao);
+        // postings keep the totals as well as plain logs
+        ledgerStore.addAccount(Account.ofMinorUnits(ACCOUNTS[0], "Bank", "Holder", 0));
+        List<Transaction> postings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            postings.add(Transaction.ofMinorUnits(0, new Date(FIRST_DATE + i * DATE_STEP), ACCOUNTS[0], ExpenseType.INCOME, 700 + i));
+        }
+        assertTrue(ledgerStore.postTransactions(postings));
+        assertTrue(ledgerStore.postTransaction(Transaction.ofMinorUnits(0, new Date(FIRST_DATE), ACCOUNTS[0], ExpenseType.EXPENSE, 3)));
+        checkTotals(dao);
+
+        // the totals are lost, as if the table had been emptied behind the store's back, and then rebuilt
+        ledgerStore.close();
+        StorageEngine engine = new SQLiteHelper(context, getDatabaseName());
+        SqlConnection db = engine.openWriter(new CurrentSchema(ledgerStore.getVersion()));
+        db.execute("delete from monthly_totals");
+        db.close();
+        engine.close();
+        assertTrue(dao.getMonthlyTotals(ACCOUNTS[0], 0, 999999).isEmpty());
+        dao.rebuildMonthlyTotals();
+        checkTotals(dao);
+    }
+
+    @Test
+    @Override
+    public void journal() throws IOException {
+        JournalTransactionDAO dao = openJournal(100);
+        logTransactions(dao);
+        checkTotals(dao);
+        // reopened, the totals come from the last snapshot plus the records after it
+        dao = openJournal(100);
+        checkTotals(dao);
+        dao.rebuildMonthlyTotals();
+        checkTotals(dao);
+    }
+
+    /***
+     * Log transactions over a few months, one by one and in batches, with amounts that make every minimum and maximum
+     * differ.
+     */
+    private static void logTransactions(TransactionDAO dao) {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Date date = new Date(FIRST_DATE + i * DATE_STEP);
+            String accountNo = ACCOUNTS[i % ACCOUNTS.length];
+            ExpenseType type = i % 5 < 2 ? ExpenseType.EXPENSE : ExpenseType.INCOME;
+            long amount = 100 + (i * 7919L) % 10000;
+            if (i % 2 == 0) {
+                dao.logTransaction(date, accountNo, type, amount / 100.0);
+            } else {
+                batch.add(Transaction.ofMinorUnits(0, date, accountNo, type, amount));
+            }
+            if (batch.size() == 20) {
+                dao.logTransactions(batch);
+                batch.clear();
+            }
+        }
+        dao.logTransactions(batch);
+    }
+
+    private static void checkTotals(TransactionDAO dao) {
+        Map<String, MonthlyTotal> expected = new TreeMap<>();
+        for (Transaction transaction : dao.getAllTransactionLogs()) {
+            int month = MonthlyTotal.monthOf(transaction.getDate().getTime());
+            String key = transaction.getAccountNo() + "/" + month + "/" + transaction.getExpenseType();
+            MonthlyTotal total = expected.get(key);
+            if (total == null) {
+                total = new MonthlyTotal(transaction.getAccountNo(), month, transaction.getExpenseType(), 0, 0, 0, 0);
+                expected.put(key, total);
+            }
+            total.include(transaction.getAmountMinor());
+        }
+        assertTrue(expected.size() > 10);
+
+        List<MonthlyTotal> all = new ArrayList<>();
+        int firstMonth = Integer.MAX_VALUE;
+        int lastMonth = 0;
+        for (String accountNo : ACCOUNTS) {
+            List<MonthlyTotal> totals = dao.getMonthlyTotals(accountNo, 0, 999999);
+            for (MonthlyTotal total : totals) {
+                assertEquals(accountNo, total.getAccountNo());
+                firstMonth = Math.min(firstMonth, total.getMonth());
+                lastMonth = Math.max(lastMonth, total.getMonth());
+            }
+            all.addAll(totals);
+        }
+        assertEquals(expected.size(), all.size());
+        for (MonthlyTotal total : all) {
+            MonthlyTotal expectedTotal = expected.get(total.getAccountNo() + "/" + total.getMonth() + "/" + total.getExpenseType());
+            String key = total.getAccountNo() + " " + total.getMonth() + " " + total.getExpenseType();
+            assertEquals(key, expectedTotal.getCount(), total.getCount());
+            assertEquals(key, expectedTotal.getTotal(), total.getTotal());
+            assertEquals(key, expectedTotal.getMinimum(), total.getMinimum());
+            assertEquals(key, expectedTotal.getMaximum(), total.getMaximum());
+        }
+
+        // the month range is inclusive at both ends, oldest first
+        List<MonthlyTotal> middle = dao.getMonthlyTotals(ACCOUNTS[1], firstMonth + 1, lastMonth - 1);
+        assertTrue(!middle.isEmpty());
+        int previous = 0;
+        for (MonthlyTotal total : middle) {
+            assertTrue(total.getMonth() >= firstMonth + 1 && total.getMonth() <= lastMonth - 1);
+            assertTrue(total.getMonth() >= previous);
+            previous = total.getMonth();
+        }
+        assertTrue(dao.getMonthlyTotals("no such account", 0, 999999).isEmpty());
+    }
+
+    /**
+     * Opens the database as it is, to change the tables without going through the store.
+     */
+    private static class CurrentSchema implements Schema {
+        private final int version;
+
+        CurrentSchema(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public void onCreate(SqlConnection connection) {
+            throw new IllegalStateException("The database should exist");
+        }
+
+        @Override
+        public void onUpgrade(SqlConnection connection, int oldVersion, int newVersion) {
+            throw new IllegalStateException("The database should be up to date");
+        }
+
+        @Override
+        public void onOpen(SqlConnection connection) {
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.AccountStatistics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Period;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.PeriodFlow;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Report;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.ReportEngine;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.Schema;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlConnection;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageEngine;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageErrorListener;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that a report split into slices and merged back together equals the same statistics computed in a single
+ * pass over the log, for every period length and several degrees of parallelism, and that a failing scan fails the
+ * report instead of leaving a slice out.
+ */
+public class ReportEngineTest {
+    private static final String DATABASE_NAME = "report-test.db";
+    private static final int TRANSACTIONS = 4000;
+    private static final int ACCOUNTS = 5;
+    private static final long FIRST_DATE = 1640995200000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int LARGEST_ENTRIES = 5;
+    private static final int THREADS = 4;
+
+    private Context context;
+    private ExecutorService executor;
+    private LedgerStore ledgerStore;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (ledgerStore != null) ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void slicedReportMatchesASinglePass() {
+        TransactionDAO dao = new InMemoryTransactionDAO();
+        Random random = new Random(11);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            // spread over more than a year and logged out of date order
+            Date date = new Date(FIRST_DATE + (long) (random.nextDouble() * 400 * DAY));
+            ExpenseType type = random.nextInt(3) == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            dao.logTransaction(date, "A" + random.nextInt(ACCOUNTS), type, (random.nextInt(100000) + 1) / 100.0);
+        }
+        List<Transaction> all = dao.getAllTransactionLogs();
+        Date from = new Date(FIRST_DATE + 17 * DAY + 12345);
+        Date to = new Date(FIRST_DATE + 380 * DAY - 999);
+        for (Period period : Period.values()) {
+            for (int parallelism : new int[]{1, 3, THREADS}) {
+                Report report = new ReportEngine(dao, executor, parallelism).generate(from, to, period, LARGEST_ENTRIES);
+                String message = period + " with parallelism " + parallelism;
+                assertEquals(message, expectedStatistics(all, from, to), describeStatistics(report));
+                assertEquals(message, expectedFlows(all, from, to, period), describeFlows(report));
+            }
+        }
+    }
+
+    @Test
+    public void sliceBoundariesNeitherDropNorRepeatTransactions() {
+        // a range of a few milliseconds is cut into one slice per millisecond, with a transaction on every one
+        TransactionDAO dao = new InMemoryTransactionDAO();
+        for (long date = FIRST_DATE - 3; date < FIRST_DATE + 13; date++) {
+            dao.logTransaction(new Date(date), "A0", ExpenseType.EXPENSE, 1);
+            dao.logTransaction(new Date(date), "A1", ExpenseType.INCOME, 2);
+        }
+        Report report = new ReportEngine(dao, executor, THREADS).generate(new Date(FIRST_DATE),
+                new Date(FIRST_DATE + 10), Period.DAY, LARGEST_ENTRIES);
+        assertEquals(20, report.getTransactionCount());
+        assertEquals(1000, report.getStatistics().get(0).getTotal());
+        assertEquals(2000, report.getStatistics().get(1).getTotal());
+
+        // the whole log, which ends one millisecond after its newest transaction
+        report = new ReportEngine(dao, executor, THREADS).generate(Period.MONTH);
+        assertEquals(32, report.getTransactionCount());
+    }
+
+    @Test
+    public void visitorExceptionReachesTheCaller() {
+        ledgerStore = openStore();
+        final AtomicInteger storageErrors = countStorageErrors(ledgerStore);
+        final IllegalStateException thrown = new IllegalStateException("visitor failed");
+        try {
+            ledgerStore.scanTransactions(false, new TransactionVisitor() {
+                @Override
+                public boolean visit(Transaction transaction) {
+                    throw thrown;
+                }
+            });
+            fail("The exception of the visitor was swallowed");
+        } catch (IllegalStateException e) {
+            assertSame(thrown, e);
+        }
+        assertEquals(0, storageErrors.get());
+        // the scan gave its reader back, so both pooled readers are still there for a parallel report
+        Report report = new ReportEngine(new PersistentTransactionDAO(ledgerStore), executor, THREADS)
+                .generate(Period.MONTH);
+        assertEquals(300, report.getTransactionCount());
+    }
+
+    @Test
+    public void storageErrorFailsTheReport() {
+        ledgerStore = openStore();
+        AtomicInteger storageErrors = countStorageErrors(ledgerStore);
+        ReportEngine engine = new ReportEngine(new PersistentTransactionDAO(ledgerStore), executor, THREADS);
+        Date from = new Date(FIRST_DATE);
+        Date to = new Date(FIRST_DATE + 300 * DAY);
+        assertEquals(300, engine.generate(from, to, Period.MONTH, LARGEST_ENTRIES).getTransactionCount());
+
+        // the log disappears behind the store's back
+        ledgerStore.close();
+        StorageEngine storageEngine = new SQLiteHelper(context, DATABASE_NAME);
+        SqlConnection db = storageEngine.openWriter(new CurrentSchema(ledgerStore.getVersion()));
+        db.execute("drop table transactions");
+        db.close();
+        storageEngine.close();
+        try {
+            engine.generate(from, to, Period.MONTH, LARGEST_ENTRIES);
+            fail("A report was generated without the transactions");
+        } catch (StorageException e) {
+            // expected
+        }
+        assertEquals(true, storageErrors.get() > 0);
+    }
+
+    private LedgerStore openStore() {
+        LedgerStore store = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        store.addAccount(Account.ofMinorUnits("A0", "Bank", "Holder", 0));
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            transactions.add(Transaction.ofMinorUnits(0, new Date(FIRST_DATE + i * DAY), "A0", ExpenseType.INCOME, i));
+        }
+        store.logTransactions(transactions);
+        return store;
+    }
+
+    private static AtomicInteger countStorageErrors(LedgerStore store) {
+        final AtomicInteger errors = new AtomicInteger();
+        store.setErrorListener(new StorageErrorListener() {
+            @Override
+            public void onStorageError(String operation, RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        });
+        return errors;
+    }
+
+    private static List<String> expectedStatistics(List<Transaction> all, Date from, Date to) {
+        Map<String, List<Transaction>> byAccountAndType = new TreeMap<>();
+        for (Transaction transaction : all) {
+            if (!inRange(transaction, from, to)) continue;
+            // the ordinal keeps the types of an account in the order of the report
+            String key = transaction.getAccountNo() + " " + transaction.getExpenseType().ordinal();
+            List<Transaction> transactions = byAccountAndType.get(key);
+            if (transactions == null) {
+                transactions = new ArrayList<>();
+                byAccountAndType.put(key, transactions);
+            }
+            transactions.add(transaction);
+        }
+        List<String> statistics = new ArrayList<>();
+        for (List<Transaction> transactions : byAccountAndType.values()) {
+            long total = 0;
+            List<Long> amounts = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                total += transaction.getAmountMinor();
+                amounts.add(transaction.getAmountMinor());
+            }
+            Collections.sort(amounts, Collections.reverseOrder());
+            Transaction first = transactions.get(0);
+            statistics.add(first.getAccountNo() + " " + first.getExpenseType() + " " + transactions.size() + " " + total
+                    + " " + amounts.subList(0, Math.min(LARGEST_ENTRIES, amounts.size())));
+        }
+        return statistics;
+    }
+
+    private static List<String> describeStatistics(Report report) {
+        List<String> statistics = new ArrayList<>();
+        for (AccountStatistics entry : report.getStatistics()) {
+            List<Long> amounts = new ArrayList<>();
+            for (Transaction transaction : entry.getLargest()) {
+                amounts.add(transaction.getAmountMinor());
+            }
+            statistics.add(entry.getAccountNo() + " " + entry.getExpenseType() + " " + entry.getCount() + " "
+                    + entry.getTotal() + " " + amounts);
+        }
+        return statistics;
+    }
+
+    private static List<String> expectedFlows(List<Transaction> all, Date from, Date to, Period period) {
+        Map<Integer, Map<String, long[]>> flows = new TreeMap<>();
+        Calendar calendar = Calendar.getInstance();
+        for (Transaction transaction : all) {
+            if (!inRange(transaction, from, to)) continue;
+            calendar.setTime(transaction.getDate());
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH) + 1;
+            int key = period == Period.YEAR ? year : (period == Period.MONTH ? year * 100 + month
+                    : (year * 100 + month) * 100 + calendar.get(Calendar.DAY_OF_MONTH));
+            Map<String, long[]> accounts = flows.get(key);
+            if (accounts == null) {
+                accounts = new TreeMap<>();
+                flows.put(key, accounts);
+            }
+            long[] amounts = accounts.get(transaction.getAccountNo());
+            if (amounts == null) {
+                amounts = new long[2];
+                accounts.put(transaction.getAccountNo(), amounts);
+            }
+            amounts[transaction.getExpenseType() == ExpenseType.INCOME ? 0 : 1] += transaction.getAmountMinor();
+        }
+        List<String> described = new ArrayList<>();
+        for (Map.Entry<Integer, Map<String, long[]>> periodFlows : flows.entrySet()) {
+            for (Map.Entry<String, long[]> account : periodFlows.getValue().entrySet()) {
+                described.add(periodFlows.getKey() + " " + account.getKey() + " " + account.getValue()[0] + " "
+                        + account.getValue()[1]);
+            }
+        }
+        return described;
+    }
+
+    private static List<String> describeFlows(Report report) {
+        List<String> described = new ArrayList<>();
+        for (PeriodFlow flow : report.getFlows()) {
+            described.add(flow.getPeriod() + " " + flow.getAccountNo() + " " + flow.getIncome() + " "
+                    + flow.getExpense());
+        }
+        return described;
+    }
+
+    private static boolean inRange(Transaction transaction, Date from, Date to) {
+        long date = transaction.getDate().getTime();
+        return date >= from.getTime() && date < to.getTime();
+    }
+
+    /**
+     * Opens the database as it is, to change the tables without going through the store.
+     */
+    private static class CurrentSchema implements Schema {
+        private final int version;
+
+        CurrentSchema(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public void onCreate(SqlConnection connection) {
+            throw new IllegalStateException("The database should exist");
+        }
+
+        @Override
+        public void onUpgrade(SqlConnection connection, int oldVersion, int newVersion) {
+            throw new IllegalStateException("The database should be up to date");
+        }
+
+        @Override
+        public void onOpen(SqlConnection connection) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JournalTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Base of the tests which run the same checks against every TransactionDAO. Each test gets a database and a journal
+ * directory of its own, which are removed again afterwards, and there is one test per implementation, each calling
+ * check with a new, empty DAO.
+ */
+public abstract class TransactionDAOFixture {
+    private final String name;
+    private File journalDirectory;
+    protected Context context;
+    protected LedgerStore ledgerStore;
+    protected JournalTransactionDAO journalDAO;
+
+    /***
+     * @param name - name of the test database, which the journal directory is named after
+     */
+    protected TransactionDAOFixture(String name) {
+        this.name = name;
+    }
+
+    @Before
+    public void setUpStorage() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(getDatabaseName());
+        journalDirectory = new File(context.getCacheDir(), name + "-journal");
+        deleteDirectory(journalDirectory);
+    }
+
+    @After
+    public void tearDownStorage() throws IOException {
+        if (ledgerStore != null) ledgerStore.close();
+        if (journalDAO != null) journalDAO.close();
+        context.deleteDatabase(getDatabaseName());
+        deleteDirectory(journalDirectory);
+    }
+
+    @Test
+    public void inMemory() throws IOException {
+        check(new InMemoryTransactionDAO());
+    }
+
+    @Test
+    public void persistent() throws IOException {
+        check(openPersistent());
+    }
+
+    @Test
+    public void journal() throws IOException {
+        check(openJournal(JournalTransactionDAO.DEFAULT_SNAPSHOT_INTERVAL));
+    }
+
+    /***
+     * The checks of the test, run once against each implementation.
+     *
+     * @param dao - an empty DAO
+     */
+    protected abstract void check(TransactionDAO dao) throws IOException;
+
+    /***
+     * Open the test database, which is closed after the test.
+     *
+     * @return - a DAO over it
+     */
+    protected PersistentTransactionDAO openPersistent() {
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, getDatabaseName()));
+        return new PersistentTransactionDAO(ledgerStore);
+    }
+
+    /***
+     * Open the test journal, closing it first if it is open, as a restart of the app would.
+     *
+     * @param snapshotInterval - number of transactions logged between two snapshots of the totals
+     * @return - the journal, which is closed after the test
+     */
+    protected JournalTransactionDAO openJournal(int snapshotInterval) throws IOException {
+        if (journalDAO != null) journalDAO.close();
+        journalDAO = new JournalTransactionDAO(journalDirectory, snapshotInterval);
+        return journalDAO;
+    }
+
+    protected String getDatabaseName() {
+        return name + ".db";
+    }
+
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Walks the transaction log page by page with the keyset page tokens, in both directions, against every
+ * TransactionDAO. Several transactions share each date, so the pages also depend on the id breaking the ties.
+ */
+public class TransactionPagingTest extends TransactionDAOFixture {
+    private static final int TRANSACTIONS = 25;
+    private static final long FIRST_DATE = 1640995200000L;
+
+    public TransactionPagingTest() {
+        super("paging-test");
+    }
+
+    @Override
+    protected void check(TransactionDAO dao) {
+        // an empty log has a single empty page which leads nowhere
+        TransactionPage empty = dao.getTransactionLogPage(null, 10);
+        assertTrue(empty.getTransactions().isEmpty());
+        assertNull(empty.getOlderPageToken());
+        assertNull(empty.getNewerPageToken());
+
+        log(dao, 1, TRANSACTIONS);
+
+        // older pages, from the newest; the last page is short and there is no empty page after it
+        List<TransactionPage> pages = walkOlder(dao, 10);
+        assertEquals(3, pages.size());
+        assertIds(pages.get(0), 25, 16);
+        assertIds(pages.get(1), 15, 6);
+        assertIds(pages.get(2), 5, 1);
+        assertNull(pages.get(0).getNewerPageToken());
+        assertNull(pages.get(2).getOlderPageToken());
+
+        // newer pages, back from the oldest, line up with the older ones
+        TransactionPage newer = dao.getTransactionLogPage(pages.get(2).getNewerPageToken(), 10);
+        assertIds(newer, 15, 6);
+        newer = dao.getTransactionLogPage(newer.getNewerPageToken(), 10);
+        assertIds(newer, 25, 16);
+        assertNull(newer.getNewerPageToken());
+
+        // a limit which divides the log exactly ends on a full page
+        pages = walkOlder(dao, 5);
+        assertEquals(5, pages.size());
+        assertIds(pages.get(4), 5, 1);
+
+        // a limit beyond the log gives everything at once
+        TransactionPage all = dao.getTransactionLogPage(null, 100);
+        assertIds(all, 25, 1);
+        assertNull(all.getOlderPageToken());
+        assertNull(all.getNewerPageToken());
+
+        // a token stays on its boundary while newer transactions are logged
+        TransactionPage first = dao.getTransactionLogPage(null, 10);
+        log(dao, TRANSACTIONS + 1, TRANSACTIONS + 3);
+        TransactionPage second = dao.getTransactionLogPage(first.getOlderPageToken(), 10);
+        assertIds(second, 15, 6);
+        TransactionPage back = dao.getTransactionLogPage(second.getNewerPageToken(), 10);
+        assertIds(back, 25, 16);
+        assertNotNull(back.getNewerPageToken());
+        assertIds(dao.getTransactionLogPage(back.getNewerPageToken(), 10), 28, 26);
+        assertIds(dao.getTransactionLogPage(null, 10), 28, 19);
+
+        try {
+            dao.getTransactionLogPage("not a token", 10);
+            fail("A malformed token should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static List<TransactionPage> walkOlder(TransactionDAO dao, int limit) {
+        List<TransactionPage> pages = new ArrayList<>();
+        String token = null;
+        do {
+            TransactionPage page = dao.getTransactionLogPage(token, limit);
+            pages.add(page);
+            if (pages.size() > 1) assertNotNull(page.getNewerPageToken());
+            token = page.getOlderPageToken();
+        } while (token != null);
+        return pages;
+    }
+
+    /***
+     * Check that a page holds consecutive transactions, newest first.
+     */
+    private static void assertIds(TransactionPage page, long newestId, long oldestId) {
+        List<Transaction> transactions = page.getTransactions();
+        assertEquals(newestId - oldestId + 1, transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            assertEquals(newestId - i, transaction.getTransactionId());
+            assertEquals(dateOf(newestId - i), transaction.getDate().getTime());
+        }
+    }
+
+    private static void log(TransactionDAO dao, int fromId, int toId) {
+        for (int id = fromId; id <= toId; id++) {
+            dao.logTransaction(new Date(dateOf(id)), "ACC" + id % 4, ExpenseType.EXPENSE, id);
+        }
+    }
+
+    private static long dateOf(long id) {
+        // three transactions per date
+        return FIRST_DATE + (id - 1) / 3 * 60000;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the date range and per-account queries of every TransactionDAO with a filter over the whole log. Some
+ * transactions are logged before the newest one and some accounts only appear half way, which moves the rows the
+ * indexes point at.
+ */
+public class TransactionRangeQueryTest extends TransactionDAOFixture {
+    private static final int TRANSACTIONS = 3000;
+    private static final int QUERIES = 200;
+    private static final int ACCOUNTS = 6;
+    private static final long FIRST_DATE = 1640995200000L;
+    private static final long HOUR = 60L * 60 * 1000;
+
+    public TransactionRangeQueryTest() {
+        super("range-query-test");
+    }
+
+    @Override
+    protected void check(TransactionDAO dao) {
+        Random random = new Random(7);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            // every fifth transaction is dated up to four days back, and later accounts only start half way
+            long date = FIRST_DATE + i * HOUR - (i % 5 == 0 ? random.nextInt(96) * HOUR : 0);
+            int account = i < TRANSACTIONS / 2 ? random.nextInt(ACCOUNTS / 2) : random.nextInt(ACCOUNTS);
+            dao.logTransaction(new Date(date), accountNo(account), ExpenseType.EXPENSE, i % 50 + 1);
+        }
+        List<Transaction> all = dao.getAllTransactionLogs();
+        assertEquals(TRANSACTIONS, all.size());
+
+        long lastDate = FIRST_DATE + TRANSACTIONS * HOUR;
+        for (int q = 0; q < QUERIES; q++) {
+            // ranges both inside and around the log, including empty ones
+            long from = FIRST_DATE - 200 * HOUR + (long) (random.nextDouble() * (lastDate - FIRST_DATE + 400 * HOUR));
+            long to = from + random.nextInt(q % 2 == 0 ? 48 : TRANSACTIONS) * HOUR;
+            assertEquals(ids(filter(all, null, from, to)), ids(dao.getTransactionLogs(new Date(from), new Date(to))));
+            for (int account = 0; account <= ACCOUNTS; account++) {
+                // the last account number has no transactions at all
+                String accountNo = accountNo(account);
+                assertEquals(ids(filter(all, accountNo, from, to)),
+                        ids(dao.getAccountTransactionLogs(accountNo, new Date(from), new Date(to))));
+            }
+        }
+    }
+
+    private static List<Transaction> filter(List<Transaction> transactions, String accountNo, long from, long to) {
+        List<Transaction> matching = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            long date = transaction.getDate().getTime();
+            if (date >= from && date < to && (accountNo == null || accountNo.equals(transaction.getAccountNo()))) {
+                matching.add(transaction);
+            }
+        }
+        return matching;
+    }
+
+    /***
+     * The ids in ascending order, since the journal lists a range in logging order rather than date order.
+     */
+    private static List<Long> ids(List<Transaction> transactions) {
+        List<Long> ids = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static String accountNo(int account) {
+        return "R" + account;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the ingestion throughput of logging transactions one at a time against logging them in batches.
+ */
+public class BatchIngestionBenchmark {
+    private static final String TAG = "BatchBenchmark";
+    private static final String DATABASE_NAME = "batch-benchmark";
+    private static final int TRANSACTIONS = 2000;
+    private static final int BATCH_SIZE = 500;
+
+    private Context context;
+    private LedgerStore ledgerStore;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+    }
+
+    @After
+    public void tearDown() {
+        ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void persistentIngestion() {
+        List<Transaction> transactions = generate();
+        long single = timeSingle(new PersistentTransactionDAO(ledgerStore), transactions);
+        long batched = timeBatched(new PersistentTransactionDAO(ledgerStore), transactions);
+        report("PersistentTransactionDAO", single, batched);
+        assertEquals(2 * TRANSACTIONS, ledgerStore.getAllTransactionLogs().size());
+    }
+
+    @Test
+    public void inMemoryIngestion() {
+        List<Transaction> transactions = generate();
+        long single = timeSingle(new InMemoryTransactionDAO(), transactions);
+        long batched = timeBatched(new InMemoryTransactionDAO(), transactions);
+        report("InMemoryTransactionDAO", single, batched);
+    }
+
+    private static List<Transaction> generate() {
+        List<Transaction> transactions = new ArrayList<>(TRANSACTIONS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            ExpenseType type = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            transactions.add(new Transaction(new Date(now - i * 60000L), "BENCH" + (i % 8), type, 10.0 + i % 100));
+        }
+        return transactions;
+    }
+
+    private static long timeSingle(TransactionDAO transactionDAO, List<Transaction> transactions) {
+        long start = System.nanoTime();
+        for (Transaction transaction : transactions) {
+            transactionDAO.logTransaction(transaction.getDate(), transaction.getAccountNo(),
+                    transaction.getExpenseType(), transaction.getAmount());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeBatched(TransactionDAO transactionDAO, List<Transaction> transactions) {
+        long start = System.nanoTime();
+        for (int from = 0; from < transactions.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, transactions.size());
+            transactionDAO.logTransactions(transactions.subList(from, to));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String implementation, long singleNanos, long batchedNanos) {
+        Log.i(TAG, String.format("%s: single %.0f tx/s, batches of %d %.0f tx/s", implementation,
+                TRANSACTIONS * 1e9 / singleNanos, BATCH_SIZE, TRANSACTIONS * 1e9 / batchedNanos));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares the per-operation latency of LedgerStore when every call reopens the database (the behaviour before the
+ * connections were kept open) against the long-lived writer and pooled readers.
+ */
+public class ConnectionLifecycleBenchmark {
+    private static final String TAG = "ConnectionBenchmark";
+    private static final String DATABASE_NAME = "connection-benchmark";
+    private static final String ACCOUNT_NO = "BENCH01";
+    private static final int ITERATIONS = 200;
+
+    private Context context;
+    private LedgerStore ledgerStore;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        ledgerStore.addAccount(new Account(ACCOUNT_NO, "Bench Bank", "Bench Holder", 1000.0));
+    }
+
+    @After
+    public void tearDown() {
+        ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void getAccountLatency() {
+        long reopening = timeGetAccount(true);
+        long longLived = timeGetAccount(false);
+        report("getAccount", reopening, longLived);
+    }
+
+    @Test
+    public void logTransactionLatency() {
+        long reopening = timeLogTransaction(true);
+        long longLived = timeLogTransaction(false);
+        report("logTransaction", reopening, longLived);
+    }
+
+    private long timeGetAccount(boolean reopen) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertNotNull(ledgerStore.getAccount(ACCOUNT_NO));
+            if (reopen) ledgerStore.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long timeLogTransaction(boolean reopen) {
+        Transaction transaction = new Transaction(new Date(), ACCOUNT_NO, ExpenseType.EXPENSE, 1.0);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ledgerStore.logTransaction(transaction);
+            if (reopen) ledgerStore.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String operation, long reopeningNanos, long longLivedNanos) {
+        Log.i(TAG, String.format("%s: reopen per call %.1f us/op, long-lived %.1f us/op", operation,
+                reopeningNanos / 1000.0 / ITERATIONS, longLivedNanos / 1000.0 / ITERATIONS));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.test.core.app.ApplicationProvider;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.GroupCommitWriter;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the sustained posting rate through the write-behind journal for different group sizes.
+ */
+public class GroupCommitBenchmark {
+    private static final String TAG = "GroupCommitBenchmark";
+    private static final String DATABASE_NAME = "group-commit-benchmark";
+    private static final String ACCOUNT_NO = "BENCH01";
+    private static final int TRANSACTIONS = 2000;
+    private static final int[] BATCH_SIZES = {1, 8, 64, 512};
+
+    private Context context;
+    private LedgerStore ledgerStore;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        ledgerStore.addAccount(new Account(ACCOUNT_NO, "Bench Bank", "Bench Holder", 0.0));
+    }
+
+    @After
+    public void tearDown() {
+        ledgerStore.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void sustainedIngestRate() {
+        for (int batchSize : BATCH_SIZES) {
+            GroupCommitWriter journal = new GroupCommitWriter(ledgerStore, batchSize, 10);
+            long start = System.nanoTime();
+            for (int i = 0; i < TRANSACTIONS; i++) {
+                journal.submit(new Transaction(new Date(), ACCOUNT_NO, ExpenseType.INCOME, 1.0), true);
+            }
+            journal.close();
+            long elapsed = System.nanoTime() - start;
+            assertEquals(0, journal.getFailedCount());
+            Log.i(TAG, String.format("group size %d: %.0f tx/s", batchSize, TRANSACTIONS * 1e9 / elapsed));
+        }
+        assertEquals(TRANSACTIONS * BATCH_SIZES.length, ledgerStore.getAccount(ACCOUNT_NO).getBalance(), 0.0001);
+    }
+}
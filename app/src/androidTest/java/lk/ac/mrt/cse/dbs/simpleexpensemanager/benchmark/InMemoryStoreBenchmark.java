@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import android.util.Log;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the heap footprint and tail pagination latency of the columnar InMemoryTransactionDAO against the
+ * LinkedList of Transaction objects it replaced.
+ */
+public class InMemoryStoreBenchmark {
+    private static final String TAG = "InMemoryBenchmark";
+    private static final int TRANSACTIONS = 200000;
+    private static final int PAGE_SIZE = 10;
+    private static final int PAGE_READS = 1000;
+
+    @Test
+    public void linkedList() {
+        long before = usedHeap();
+        List<Transaction> transactions = new LinkedList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactions.add(new Transaction(new Date(now + i * 1000L), account(i), type(i), amount(i)));
+        }
+        long heap = usedHeap() - before;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < PAGE_READS; i++) {
+            List<Transaction> page = transactions.subList(TRANSACTIONS - PAGE_SIZE, TRANSACTIONS);
+            for (Transaction transaction : page) {
+                transaction.getAmount();
+            }
+        }
+        report("LinkedList", heap, System.nanoTime() - start);
+        assertEquals(TRANSACTIONS, transactions.size());
+    }
+
+    @Test
+    public void columns() {
+        long before = usedHeap();
+        InMemoryTransactionDAO transactionDAO = new InMemoryTransactionDAO();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactionDAO.logTransaction(new Date(now + i * 1000L), account(i), type(i), amount(i));
+        }
+        long heap = usedHeap() - before;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < PAGE_READS; i++) {
+            List<Transaction> page = transactionDAO.getPaginatedTransactionLogs(PAGE_SIZE);
+            for (Transaction transaction : page) {
+                transaction.getAmount();
+            }
+        }
+        report("Columns", heap, System.nanoTime() - start);
+        assertEquals(TRANSACTIONS, transactionDAO.getAllTransactionLogs().size());
+    }
+
+    private static String account(int i) {
+        return "BENCH" + (i % 8);
+    }
+
+    private static ExpenseType type(int i) {
+        return i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+    }
+
+    private static double amount(int i) {
+        return 10.0 + i % 100;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String implementation, long heapBytes, long pageNanos) {
+        Log.i(TAG, String.format("%s: %d transactions in %.1f MB (%.0f bytes each), tail page of %d in %.1f us",
+                implementation, TRANSACTIONS, heapBytes / 1048576.0, heapBytes / (double) TRANSACTIONS, PAGE_SIZE,
+                pageNanos / 1000.0 / PAGE_READS));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bucketing, percentiles and merging of the latency histogram. It is in the package of the histogram, since the
+ * bucket arithmetic is package-private.
+ */
+public class LatencyHistogramTest {
+    private static final int BUCKETS = LatencyHistogram.bucketOf(Long.MAX_VALUE) + 1;
+
+    @Test
+    public void smallValuesGetABucketEach() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.upperBoundOf(value));
+        }
+    }
+
+    @Test
+    public void bucketEdges() {
+        // the first power of two is split into buckets two wide, the next into buckets four wide
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(16, LatencyHistogram.bucketOf(17));
+        assertEquals(17, LatencyHistogram.upperBoundOf(16));
+        assertEquals(17, LatencyHistogram.bucketOf(18));
+        assertEquals(23, LatencyHistogram.bucketOf(31));
+        assertEquals(31, LatencyHistogram.upperBoundOf(23));
+        assertEquals(24, LatencyHistogram.bucketOf(32));
+        assertEquals(35, LatencyHistogram.upperBoundOf(24));
+        assertEquals(488, BUCKETS);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(BUCKETS - 1));
+    }
+
+    @Test
+    public void bucketsAreContiguousAndWithinAnEighth() {
+        for (int bucket = 16; bucket < BUCKETS; bucket++) {
+            long lower = LatencyHistogram.upperBoundOf(bucket - 1) + 1;
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            assertTrue("bucket " + bucket, upper - lower < lower / 8);
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(9, histogram.getPercentile(90));
+        assertEquals(10, histogram.getPercentile(100));
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getMean());
+    }
+
+    @Test
+    public void percentilesRoundUpToTheBucketButNotPastTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        assertEquals(1000, histogram.getPercentile(50));
+        histogram.record(2000);
+        // 1000 falls in the bucket 960 to 1023
+        assertEquals(1023, histogram.getPercentile(50));
+        assertEquals(2000, histogram.getPercentile(100));
+        assertEquals(2000, histogram.getMax());
+    }
+
+    @Test
+    public void negativeLatenciesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(100));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void merge() {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            all.record(value * 7L);
+            (value % 3 == 0 ? first : second).record(value * 7L);
+        }
+        long secondCount = second.getCount();
+        long secondMax = second.getMax();
+
+        first.merge(second);
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean());
+        assertEquals(all.getMax(), first.getMax());
+        for (double percentile : new double[]{0, 25, 50, 90, 99, 100}) {
+            assertEquals(all.getPercentile(percentile), first.getPercentile(percentile));
+        }
+        assertEquals(secondCount, second.getCount());
+        assertEquals(secondMax, second.getMax());
+
+        // merging an empty histogram changes nothing
+        first.merge(new LatencyHistogram());
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMax(), first.getMax());
+    }
+}
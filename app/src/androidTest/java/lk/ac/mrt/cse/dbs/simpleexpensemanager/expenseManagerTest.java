@@ -4,15 +4,24 @@ import android.content.Context;
 import androidx.test.core.app.ApplicationProvider;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.PersistentExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationSnapshot;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.BalanceMismatch;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ReconciliationReport;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -118,6 +127,21 @@ public class expenseManagerTest {
         assertEquals(balance + increment, newBalance, 0.0001);
     }
 
+    @Test
+    public void nullAccountTest() {
+        try {
+            expenseManager.updateAccountBalance(null, 1, 1, 2022, ExpenseType.EXPENSE, "10");
+            fail("a null account number should be rejected");
+        } catch (InvalidAccountException ignored) {
+        }
+        try {
+            expenseManager.postTransactions(Collections.singletonList(
+                    new Transaction(new Date(), null, ExpenseType.EXPENSE, 10.)));
+            fail("a null account number should be rejected");
+        } catch (InvalidAccountException ignored) {
+        }
+    }
+
     @Test
     public void getNonExistingAccount() {
         String accountNumber = "notExist";
@@ -173,4 +197,94 @@ public class expenseManagerTest {
         // number of transactions in the log should have been increased by 1 after transaction
         assertEquals(afterCnt, beforeCnt+1);
     }
+
+    @Test
+    public void postingMetricsTest() throws InvalidAccountException {
+        String accountNumber = "38291M";
+        AccountDAO accountDAO = expenseManager.getAccountsDAO();
+
+        try {
+            accountDAO.removeAccount(accountNumber);
+        } catch (InvalidAccountException ignored) {
+        }
+        expenseManager.addAccount(accountNumber, "Bank004", "Holder004", 1000.);
+
+        // postings do not go through the metered DAOs, so they are metered on their own
+        expenseManager.updateAccountBalance(accountNumber, 1, 1, 2022, ExpenseType.EXPENSE, "10");
+        OperationSnapshot posts = findOperation(expenseManager, "ExpenseManager.postTransaction");
+        assertEquals(1, posts.getCalls());
+        assertEquals(1, posts.getTimedCalls());
+
+        expenseManager.getMetrics().setEnabled(false);
+        expenseManager.updateAccountBalance(accountNumber, 1, 1, 2022, ExpenseType.EXPENSE, "10");
+        assertEquals(1, findOperation(expenseManager, "ExpenseManager.postTransaction").getCalls());
+        assertEquals(980., accountDAO.getAccount(accountNumber).getBalance(), 0.0001);
+    }
+
+    @Test
+    public void openSeedsOnceTest() {
+        // a database of its own, so the demo accounts of the app's database are left alone
+        String databaseName = "seed-test.db";
+        Context context = ApplicationProvider.getApplicationContext();
+        List<Account> accounts = Arrays.asList(new Account("14725S", "Bank004", "Holder004", 100.),
+                new Account("25836S", "Bank005", "Holder005", 200.));
+        context.deleteDatabase(databaseName);
+
+        LedgerStore ledgerStore = new LedgerStore(new SQLiteHelper(context, databaseName));
+        try {
+            assertTrue(ledgerStore.seedAccounts(accounts));
+            assertTrue(ledgerStore.removeAccount("14725S"));
+            ledgerStore.close();
+            // opening the database again, as every start of the app does, should not add the accounts back
+            ledgerStore = new LedgerStore(new SQLiteHelper(context, databaseName));
+            assertFalse(ledgerStore.seedAccounts(accounts));
+            assertEquals(Collections.singletonList("25836S"), ledgerStore.getAccountNumbersList());
+        } finally {
+            ledgerStore.close();
+            context.deleteDatabase(databaseName);
+        }
+    }
+
+    @Test
+    public void reconcileBalancesTest() throws ExpenseManagerException, InvalidAccountException {
+        String accountNumber = "65432R";
+        double balance = 1000.;
+        double amount = 250.;
+        PersistentExpenseManager persistentExpenseManager = (PersistentExpenseManager) expenseManager;
+        AccountDAO accountDAO = expenseManager.getAccountsDAO();
+
+        try {
+            accountDAO.removeAccount(accountNumber);
+        } catch (InvalidAccountException ignored) {
+        }
+        expenseManager.addAccount(accountNumber, "Bank003", "Holder003", balance);
+        persistentExpenseManager.reconcileBalances(false);
+
+        // logging without posting leaves the balance short of the transaction
+        expenseManager.getTransactionsDAO().logTransaction(new Date(), accountNumber, ExpenseType.INCOME, amount);
+        ReconciliationReport report = persistentExpenseManager.reconcileBalances(false);
+        BalanceMismatch mismatch = findMismatch(report, accountNumber);
+        assertNotNull(mismatch);
+        assertEquals(-Money.fromDouble(amount), mismatch.getDifference());
+        // checking alone repairs nothing, so repairing still finds the mismatch, and then fixes the balance
+        assertNotNull(findMismatch(persistentExpenseManager.reconcileBalances(true), accountNumber));
+
+        // after the repair the balance holds the transaction and a later check finds nothing to report
+        assertEquals(balance + amount, accountDAO.getAccount(accountNumber).getBalance(), 0.0001);
+        assertNull(findMismatch(persistentExpenseManager.reconcileBalances(false), accountNumber));
+    }
+
+    private static OperationSnapshot findOperation(ExpenseManager expenseManager, String name) {
+        for (OperationSnapshot operation : expenseManager.getMetricsSnapshot()) {
+            if (operation.getName().equals(name)) return operation;
+        }
+        return null;
+    }
+
+    private static BalanceMismatch findMismatch(ReconciliationReport report, String accountNo) {
+        for (BalanceMismatch mismatch : report.getMismatches()) {
+            if (mismatch.getAccountNo().equals(accountNo)) return mismatch;
+        }
+        return null;
+    }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import android.os.Trace;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+
+/**
+ * Runs ExpenseManager calls on a bounded pool of I/O threads shared by the whole process and delivers the results
+ * through a callback executor, normally the main thread. Every call returns a Future; once it is cancelled its
+ * callback is never invoked, so a screen can cancel its calls when it goes away and ignore late results.
+ * <p/>
+ * At startup, start opens the storage and then loads what the first screens show in parallel, while the main thread
+ * is still laying them out. The screens pick those results up through the calls taking a Startup.
+ */
+public class AsyncExpenseManager {
+    private static final int IO_THREADS = 2;
+    private static final int IO_QUEUE_CAPACITY = 64;
+    private static final long IO_KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadPoolExecutor IO_EXECUTOR = createIoExecutor();
+
+    private final ExpenseManager expenseManager;
+    private final Executor callbackExecutor;
+
+    /***
+     * Receives the outcome of an asynchronous call on the callback executor.
+     *
+     * @param <T> - type of the result
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onError(Exception e);
+    }
+
+    /***
+     * @param expenseManager   - the manager whose calls are run in the background
+     * @param callbackExecutor - executor the callbacks are delivered on
+     */
+    public AsyncExpenseManager(ExpenseManager expenseManager, Executor callbackExecutor) {
+        this.expenseManager = expenseManager;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /***
+     * Open the storage of the expense manager, then load the account numbers and the newest page of transaction logs
+     * on both I/O threads at once.
+     *
+     * @param pageSize - number of transaction logs in the page
+     * @param callback - told when the storage is open, or null
+     * @return - the startup, whose results are each handed to the first screen which asks for them
+     */
+    public Startup start(final int pageSize, Callback<Void> callback) {
+        final Call<List<String>> accountNumbers = new Call<>(new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                Trace.beginSection("Startup.accountNumbers");
+                try {
+                    return expenseManager.getAccountNumbersList();
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        }, null);
+        final Call<TransactionPage> firstPage = new Call<>(new Callable<TransactionPage>() {
+            @Override
+            public TransactionPage call() {
+                Trace.beginSection("Startup.firstPage");
+                try {
+                    return expenseManager.getTransactionLogPage(null, pageSize);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        }, null);
+        Future<Void> opened = submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    expenseManager.open();
+                } finally {
+                    // the loads are worth trying even if opening failed, since each call opens the storage itself
+                    execute(accountNumbers);
+                    execute(firstPage);
+                }
+                return null;
+            }
+        }, callback);
+        return new Startup(opened, accountNumbers, firstPage, pageSize);
+    }
+
+    /***
+     * Get the account numbers loaded by start, or load them if another screen took them already.
+     *
+     * @param startup  - the startup, or null
+     * @param callback - receives the account numbers
+     */
+    public Future<List<String>> getAccountNumbersList(Startup startup, Callback<List<String>> callback) {
+        Call<List<String>> prefetched = startup == null ? null : startup.takeAccountNumbers();
+        if (prefetched != null && prefetched.attach(callback)) return prefetched;
+        return getAccountNumbersList(callback);
+    }
+
+    /***
+     * Get the newest page of transaction logs loaded by start, or load it if another screen took it already or it
+     * has a different size.
+     *
+     * @param startup  - the startup, or null
+     * @param limit    - number of transaction logs in the page
+     * @param callback - receives the page
+     */
+    public Future<TransactionPage> getFirstTransactionLogPage(Startup startup, int limit,
+                                                              Callback<TransactionPage> callback) {
+        Call<TransactionPage> prefetched = startup != null && startup.pageSize == limit
+                ? startup.takeFirstPage() : null;
+        if (prefetched != null && prefetched.attach(callback)) return prefetched;
+        return getTransactionLogPage(null, limit, callback);
+    }
+
+    public Future<List<String>> getAccountNumbersList(Callback<List<String>> callback) {
+        return submit(new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return expenseManager.getAccountNumbersList();
+            }
+        }, callback);
+    }
+
+    public Future<List<Transaction>> getTransactionLogs(Callback<List<Transaction>> callback) {
+        return submit(new Callable<List<Transaction>>() {
+            @Override
+            public List<Transaction> call() {
+                return expenseManager.getTransactionLogs();
+            }
+        }, callback);
+    }
+
+    public Future<TransactionPage> getTransactionLogPage(final String pageToken, final int limit,
+                                                         Callback<TransactionPage> callback) {
+        return submit(new Callable<TransactionPage>() {
+            @Override
+            public TransactionPage call() {
+                return expenseManager.getTransactionLogPage(pageToken, limit);
+            }
+        }, callback);
+    }
+
+    public Future<Void> updateAccountBalance(final String accountNo, final int day, final int month, final int year,
+                                             final ExpenseType expenseType, final String amount,
+                                             Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                expenseManager.updateAccountBalance(accountNo, day, month, year, expenseType, amount);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> addAccount(final String accountNo, final String bankName, final String accountHolderName,
+                                   final String initialBalance, Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                expenseManager.addAccount(accountNo, bankName, accountHolderName, initialBalance);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> flush(Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                expenseManager.flush();
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Run a call on the I/O pool. If the pool is saturated the call fails with a RejectedExecutionException instead
+     * of running on the calling thread.
+     *
+     * @param task     - the call
+     * @param callback - receives the outcome, or null if the caller is not interested
+     * @return - the pending call
+     */
+    private <T> Future<T> submit(Callable<T> task, Callback<T> callback) {
+        Call<T> call = new Call<>(task, callback);
+        execute(call);
+        return call;
+    }
+
+    private static void execute(Call<?> call) {
+        try {
+            IO_EXECUTOR.execute(call);
+        } catch (RejectedExecutionException e) {
+            call.fail(e);
+        }
+    }
+
+    private static ThreadPoolExecutor createIoExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, IO_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(IO_QUEUE_CAPACITY), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "expense-io-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /***
+     * The results loaded by start. Each is handed out once, since later requests should see what was written in the
+     * meantime.
+     */
+    public static class Startup {
+        private final Future<Void> opened;
+        private final int pageSize;
+        private Call<List<String>> accountNumbers;
+        private Call<TransactionPage> firstPage;
+
+        Startup(Future<Void> opened, Call<List<String>> accountNumbers, Call<TransactionPage> firstPage, int pageSize) {
+            this.opened = opened;
+            this.accountNumbers = accountNumbers;
+            this.firstPage = firstPage;
+            this.pageSize = pageSize;
+        }
+
+        /***
+         * @return - the pending open, which can be cancelled along with the loads
+         */
+        public Future<Void> getOpened() {
+            return opened;
+        }
+
+        synchronized Call<List<String>> takeAccountNumbers() {
+            Call<List<String>> call = accountNumbers;
+            accountNumbers = null;
+            return call;
+        }
+
+        synchronized Call<TransactionPage> takeFirstPage() {
+            Call<TransactionPage> call = firstPage;
+            firstPage = null;
+            return call;
+        }
+    }
+
+    /***
+     * A call whose outcome is handed to the callback executor unless it was cancelled first. The cancelled flag is
+     * kept separately because FutureTask ignores a cancel which arrives after the call has completed. A call started
+     * without a callback can be given one later, which gets the outcome even if the call has completed by then.
+     */
+    private class Call<T> extends FutureTask<T> {
+        private Callback<T> callback;
+        private boolean delivered;
+        private volatile boolean cancelled;
+
+        Call(Callable<T> task, Callback<T> callback) {
+            super(task);
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        /***
+         * @return - false if the call was cancelled, in which case the callback is never invoked
+         */
+        boolean attach(Callback<T> callback) {
+            synchronized (this) {
+                if (cancelled) return false;
+                this.callback = callback;
+            }
+            if (isDone()) deliver();
+            return true;
+        }
+
+        @Override
+        protected void done() {
+            deliver();
+        }
+
+        private void deliver() {
+            final Callback<T> callback;
+            synchronized (this) {
+                if (this.callback == null || delivered || cancelled) return;
+                delivered = true;
+                callback = this.callback;
+                // the startup calls are kept by the registry for the life of the process, and the callback by its screen
+                this.callback = null;
+            }
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (cancelled) return;
+                    T result;
+                    try {
+                        result = get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        callback.onError(cause instanceof Exception ? (Exception) cause : e);
+                        return;
+                    } catch (Exception e) {
+                        callback.onError(e);
+                        return;
+                    }
+                    callback.onSuccess(result);
+                }
+            });
+        }
+
+        void fail(Exception e) {
+            setException(e);
+        }
+    }
+}
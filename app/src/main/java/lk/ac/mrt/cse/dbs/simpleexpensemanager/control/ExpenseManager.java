@@ -16,28 +16,67 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
 
-import java.io.Serializable;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MeteredAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MeteredTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.MetricsRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationSnapshot;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Period;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Report;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.ReportEngine;
 
 /**
  * The ExpenseManager acts as the mediator when performing transactions. This is an abstract class with an abstract
  * method to setup the DAO objects depending on the implementation.
+ * <p/>
+ * Postings are serialized per account through a set of striped locks, so that the log write and the balance update of
+ * one posting cannot interleave with another posting to the same account, while postings to other accounts proceed in
+ * parallel. The DAOs must therefore be safe to call from several threads.
  */
-public abstract class ExpenseManager implements Serializable {
-    /* All the non-Serializable attributes must be declared transient. Otherwise, NotSerializableException
-    will be thrown when app goes to background causing the app to crash*/
-    private transient AccountDAO accountsHolder;
-    private transient TransactionDAO transactionsHolder;
+public abstract class ExpenseManager {
+    /* Enough stripes that a handful of posting threads rarely collide on different accounts. */
+    public static final int DEFAULT_ACCOUNT_LOCK_STRIPES = 64;
+
+    private AccountDAO accountsHolder;
+    private TransactionDAO transactionsHolder;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    // postings are metered here rather than in the DAOs, since implementations may post without going through them
+    private final OperationMetrics postMetrics = metrics.operation("ExpenseManager.postTransaction");
+    private final OperationMetrics postBatchMetrics = metrics.operation("ExpenseManager.postTransactions");
+    private final StripedLocks accountLocks;
+
+    protected ExpenseManager() {
+        this(DEFAULT_ACCOUNT_LOCK_STRIPES);
+    }
+
+    /***
+     * @param accountLockStripes - number of locks postings are spread over by account, a power of two; 1 serializes
+     *                           all postings
+     */
+    protected ExpenseManager(int accountLockStripes) {
+        accountLocks = new StripedLocks(accountLockStripes);
+    }
 
     /***
      * Get list of account numbers as String.
@@ -66,9 +105,98 @@ public abstract class ExpenseManager implements Serializable {
         Date transactionDate = calendar.getTime();
 
         if (!amount.isEmpty()) {
-            double amountVal = Double.parseDouble(amount);
-            transactionsHolder.logTransaction(transactionDate, accountNo, expenseType, amountVal);
-            accountsHolder.updateBalance(accountNo, expenseType, amountVal);
+            long amountVal = Money.parse(amount);
+            Transaction transaction = Transaction.ofMinorUnits(0, transactionDate, accountNo, expenseType, amountVal);
+            checkAccountNo(accountNo);
+            ReentrantLock lock = accountLocks.lockFor(accountNo);
+            lock.lock();
+            long start = postMetrics.start();
+            try {
+                postTransaction(transaction);
+            } catch (InvalidAccountException | RuntimeException e) {
+                postMetrics.failed();
+                throw e;
+            } finally {
+                postMetrics.stop(start);
+                lock.unlock();
+            }
+        }
+    }
+
+    /***
+     * The account number picks the lock stripe, so a missing one is rejected before any lock is taken, with the
+     * exception the DAOs would have thrown for it.
+     *
+     * @param accountNo
+     * @throws InvalidAccountException
+     */
+    private static void checkAccountNo(String accountNo) throws InvalidAccountException {
+        if (accountNo == null) throw new InvalidAccountException("Account null is invalid.");
+    }
+
+    /***
+     * Log the transaction and apply it to the balance of its account. Implementations whose storage can do both in a
+     * single atomic operation should override this. Called with the lock of the account held.
+     *
+     * @param transaction
+     * @throws InvalidAccountException
+     */
+    protected void postTransaction(Transaction transaction) throws InvalidAccountException {
+        transactionsHolder.logTransactions(Collections.singletonList(transaction));
+        accountsHolder.updateBalanceMinor(transaction.getAccountNo(), transaction.getExpenseType(),
+                transaction.getAmountMinor());
+    }
+
+    /***
+     * Log a batch of transactions and apply them to the account balances. The net change of each account is applied
+     * once for the whole batch. Nothing is posted if any of the accounts is invalid. The locks of all the accounts in
+     * the batch are held while it is posted.
+     *
+     * @param transactions
+     * @throws InvalidAccountException
+     */
+    public final void postTransactions(Collection<Transaction> transactions) throws InvalidAccountException {
+        BitSet stripes = new BitSet();
+        for (Transaction transaction : transactions) {
+            checkAccountNo(transaction.getAccountNo());
+            stripes.set(accountLocks.stripeOf(transaction.getAccountNo()));
+        }
+        accountLocks.lockAll(stripes);
+        long start = postBatchMetrics.start();
+        try {
+            postBatch(transactions);
+        } catch (InvalidAccountException | RuntimeException e) {
+            postBatchMetrics.failed();
+            throw e;
+        } finally {
+            postBatchMetrics.stop(start);
+            accountLocks.unlockAll(stripes);
+        }
+    }
+
+    /***
+     * Post a batch of transactions as described in postTransactions. Implementations whose storage can post the batch
+     * in a single atomic operation should override this. Called with the locks of all the accounts in the batch held.
+     *
+     * @param transactions
+     * @throws InvalidAccountException
+     */
+    protected void postBatch(Collection<Transaction> transactions) throws InvalidAccountException {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            accountsHolder.getAccount(transaction.getAccountNo());
+            Long delta = deltas.get(transaction.getAccountNo());
+            long amount = Money.signed(transaction.getExpenseType(), transaction.getAmountMinor());
+            deltas.put(transaction.getAccountNo(), delta == null ? amount : delta + amount);
+        }
+        transactionsHolder.logTransactions(transactions);
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            long delta = entry.getValue();
+            if (delta < 0) {
+                accountsHolder.updateBalanceMinor(entry.getKey(), ExpenseType.EXPENSE, -delta);
+            } else {
+                accountsHolder.updateBalanceMinor(entry.getKey(), ExpenseType.INCOME, delta);
+            }
         }
     }
 
@@ -81,6 +209,71 @@ public abstract class ExpenseManager implements Serializable {
         return transactionsHolder.getPaginatedTransactionLogs(10);
     }
 
+    /***
+     * Get the transaction logs of an account in a date range, oldest first.
+     *
+     * @param accountNo
+     * @param from      - start of the range, inclusive
+     * @param to        - end of the range, exclusive
+     * @return
+     */
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to) {
+        return transactionsHolder.getAccountTransactionLogs(accountNo, from, to);
+    }
+
+    /***
+     * Get a page of transaction logs, newest first.
+     *
+     * @param pageToken - token from a previous page, or null for the newest transactions
+     * @param limit
+     * @return
+     */
+    public TransactionPage getTransactionLogPage(String pageToken, int limit) {
+        return transactionsHolder.getTransactionLogPage(pageToken, limit);
+    }
+
+    /***
+     * Visit all transaction logs in date order without loading them into memory.
+     *
+     * @param newestFirst
+     * @param visitor
+     */
+    public void scanTransactionLogs(boolean newestFirst, TransactionVisitor visitor) {
+        transactionsHolder.scanTransactions(newestFirst, visitor);
+    }
+
+    /***
+     * Get the monthly totals of an account without scanning its transactions.
+     *
+     * @param accountNo
+     * @param fromMonth - first month as yyyymm, inclusive
+     * @param toMonth   - last month as yyyymm, inclusive
+     * @return
+     */
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        return transactionsHolder.getMonthlyTotals(accountNo, fromMonth, toMonth);
+    }
+
+    /***
+     * Recompute the monthly totals from the transaction logs.
+     */
+    public void rebuildMonthlyTotals() {
+        transactionsHolder.rebuildMonthlyTotals();
+    }
+
+    /***
+     * Compute statistics per account and expense type and the net flow per period over a date range. The range is
+     * scanned in parallel slices, so this should be called off the main thread.
+     *
+     * @param from   - start of the range, inclusive
+     * @param to     - end of the range, exclusive
+     * @param period - length of the periods the net flow is broken into
+     * @return
+     */
+    public Report generateReport(Date from, Date to, Period period) {
+        return new ReportEngine(transactionsHolder).generate(from, to, period, ReportEngine.DEFAULT_LARGEST_ENTRIES);
+    }
+
     /***
      * Add account to the accounts dao.
      *
@@ -94,6 +287,36 @@ public abstract class ExpenseManager implements Serializable {
         accountsHolder.addAccount(account);
     }
 
+    /***
+     * Add account to the accounts dao, parsing the initial balance exactly.
+     *
+     * @param accountNo
+     * @param bankName
+     * @param accountHolderName
+     * @param initialBalance    - decimal amount as entered by the user
+     */
+    public void addAccount(String accountNo, String bankName, String accountHolderName, String initialBalance) {
+        Account account = Account.ofMinorUnits(accountNo, bankName, accountHolderName, Money.parse(initialBalance));
+        accountsHolder.addAccount(account);
+    }
+
+    /***
+     * Open the storage and prepare it for use, seeding it if it is new. Called once off the main thread before the
+     * first screens load; calls made earlier open the storage themselves. Implementations whose storage is slow to
+     * open should override this; the default does nothing.
+     *
+     * @throws ExpenseManagerException
+     */
+    public void open() throws ExpenseManagerException {
+    }
+
+    /***
+     * Make sure everything posted so far has been written to the storage. Implementations which write
+     * asynchronously should override this; the default does nothing.
+     */
+    public void flush() {
+    }
+
     /***
      * Get access to the AccountDAO concrete implementation.
      *
@@ -104,12 +327,13 @@ public abstract class ExpenseManager implements Serializable {
     }
 
     /***
-     * Set the concrete AccountDAO implementation.
+     * Set the concrete AccountDAO implementation. It is wrapped in a MeteredAccountDAO, so every call made through the
+     * expense manager is counted and timed.
      *
      * @param accountDAO
      */
     public void setAccountsDAO(AccountDAO accountDAO) {
-        this.accountsHolder = accountDAO;
+        this.accountsHolder = new MeteredAccountDAO(accountDAO, metrics);
     }
 
     /***
@@ -122,12 +346,32 @@ public abstract class ExpenseManager implements Serializable {
     }
 
     /***
-     * Set the concrete TransactionDAO implementation.
+     * Set the concrete TransactionDAO implementation. It is wrapped in a MeteredTransactionDAO, so every call made
+     * through the expense manager is counted and timed.
      *
      * @param transactionDAO
      */
     public void setTransactionsDAO(TransactionDAO transactionDAO) {
-        this.transactionsHolder = transactionDAO;
+        this.transactionsHolder = new MeteredTransactionDAO(transactionDAO, metrics);
+    }
+
+    /***
+     * Get the registry the DAO and posting metrics are kept in. Implementations can report the errors their storage
+     * recovers from to it as well, and it can be disabled where nobody looks at the metrics.
+     *
+     * @return - the registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /***
+     * Get the current metrics of every DAO operation and of the postings.
+     *
+     * @return - the counters and latency percentiles, sorted by operation name
+     */
+    public List<OperationSnapshot> getMetricsSnapshot() {
+        return metrics.snapshot();
     }
 
     /***
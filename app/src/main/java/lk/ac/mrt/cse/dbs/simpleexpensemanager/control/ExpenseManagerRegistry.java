@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import android.content.Context;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the ExpenseManager of the process, and with it the one SQLiteHelper, its DAOs and their caches. Screens
+ * resolve the manager from here instead of receiving it in their arguments, so nothing is serialized when they are
+ * restored, and the open connections and warm caches outlive the activity across configuration changes.
+ */
+public final class ExpenseManagerRegistry {
+    private static ExpenseManagerRegistry instance;
+
+    private final ExpenseManager expenseManager;
+    private AsyncExpenseManager.Startup startup;
+
+    private ExpenseManagerRegistry(ExpenseManager expenseManager) {
+        this.expenseManager = expenseManager;
+    }
+
+    /***
+     * Get the registry of the process, creating it on first use. Creating it does no I/O.
+     *
+     * @param context - any context of the app; only its application context is kept
+     * @return - the registry
+     */
+    public static synchronized ExpenseManagerRegistry get(Context context) {
+        if (instance == null) {
+            /*  Setup the Persistent implementation  */
+            instance = new ExpenseManagerRegistry(new PersistentExpenseManager(context.getApplicationContext()));
+            /* END */
+        }
+        return instance;
+    }
+
+    public ExpenseManager getExpenseManager() {
+        return expenseManager;
+    }
+
+    /***
+     * Open the storage and load the first screens in the background, the first time this is called in the process.
+     * Later calls, such as those of an activity recreated after a configuration change, return the same startup.
+     *
+     * @param callbackExecutor - executor the callback and the loaded results are delivered on
+     * @param pageSize         - number of transaction logs in the first page
+     * @param callback         - told when the storage is open, or null; not used if the storage was opened already,
+     *                           and not kept once told, though the startup itself lives as long as the process
+     * @return - the startup
+     */
+    public synchronized AsyncExpenseManager.Startup start(Executor callbackExecutor, int pageSize,
+                                                          AsyncExpenseManager.Callback<Void> callback) {
+        if (startup == null) {
+            startup = new AsyncExpenseManager(expenseManager, callbackExecutor).start(pageSize, callback);
+        }
+        return startup;
+    }
+
+    /***
+     * @return - the startup, or null if start has not been called
+     */
+    public synchronized AsyncExpenseManager.Startup getStartup() {
+        return startup;
+    }
+}
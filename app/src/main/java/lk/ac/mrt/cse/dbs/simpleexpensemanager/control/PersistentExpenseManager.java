@@ -17,36 +17,147 @@
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
 
 import android.content.Context;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.CachingAccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentAccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.BalanceMismatch;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ReconciliationReport;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.GroupCommitWriter;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+
+import java.util.Arrays;
+import java.util.Collection;
 
+/**
+ * Expense manager storing its data in SQLite. Constructing it does no I/O: the database is opened by open(), or by
+ * the first call which needs it, and the demo accounts are only added the first time a database is opened.
+ */
 public class PersistentExpenseManager extends ExpenseManager {
-    private final SQLiteHelper sqLiteHelper;
+    private static final String TAG = "PersistentExpenseMgr";
+    private static final int GROUP_COMMIT_SIZE = 64;
+    private static final long GROUP_COMMIT_DELAY_MILLIS = 20;
+    private static final int ACCOUNT_CACHE_SIZE = 128;
+    private final LedgerStore ledgerStore;
+    private final GroupCommitWriter journal;
+    private CachingAccountDAO accountCache;
     public static final String DATABASE_NAME = "190707H"; // my index number
     public PersistentExpenseManager(Context context) {
-        this.sqLiteHelper = new SQLiteHelper(context, DATABASE_NAME);
+        this.ledgerStore = new LedgerStore(new SQLiteHelper(context, DATABASE_NAME));
+        ledgerStore.setErrorListener(getMetrics());
+        this.journal = new GroupCommitWriter(ledgerStore, GROUP_COMMIT_SIZE, GROUP_COMMIT_DELAY_MILLIS);
         setup();
     }
 
     @Override
     public void setup() {
-        /* Begin generating dummy data for Persistent implementation */
-
-        TransactionDAO persistentTransactionDAO = new PersistentTransactionDAO(this.sqLiteHelper);
+        TransactionDAO persistentTransactionDAO = new PersistentTransactionDAO(this.ledgerStore, journal);
         setTransactionsDAO(persistentTransactionDAO);
 
-        AccountDAO persistentAccountDAO = new PersistentAccountDAO(this.sqLiteHelper);
-        setAccountsDAO(persistentAccountDAO);
+        AccountDAO persistentAccountDAO = new PersistentAccountDAO(this.ledgerStore, journal);
+        accountCache = new CachingAccountDAO(persistentAccountDAO, ACCOUNT_CACHE_SIZE);
+        setAccountsDAO(accountCache);
+    }
+
+    @Override
+    public void open() throws ExpenseManagerException {
+        Trace.beginSection("PersistentExpenseManager.open");
+        try {
+            long start = SystemClock.elapsedRealtime();
+            if (!ledgerStore.open()) throw new ExpenseManagerException("Unable to open the database.");
+            long opened = SystemClock.elapsedRealtime();
+
+            /* Begin generating dummy data for Persistent implementation */
+            Account dummyAcct1 = new Account("12345A", "Yoda Bank", "Anakin Skywalker", 10000.0);
+            Account dummyAcct2 = new Account("78945Z", "Clone BC", "Obi-Wan Kenobi", 80000.0);
+            boolean seeded = ledgerStore.seedAccounts(Arrays.asList(dummyAcct1, dummyAcct2));
+            /* End */
+
+            Log.i(TAG, "Database opened in " + (opened - start) + " ms"
+                    + (seeded ? ", seeded in " + (SystemClock.elapsedRealtime() - opened) + " ms" : ""));
+        } finally {
+            Trace.endSection();
+        }
+    }
 
-        // dummy data
-        Account dummyAcct1 = new Account("12345A", "Yoda Bank", "Anakin Skywalker", 10000.0);
-        Account dummyAcct2 = new Account("78945Z", "Clone BC", "Obi-Wan Kenobi", 80000.0);
-        getAccountsDAO().addAccount(dummyAcct1);
-        getAccountsDAO().addAccount(dummyAcct2);
+    @Override
+    protected void postTransaction(Transaction transaction) throws InvalidAccountException {
+        // checked first, since an unknown account would fail the whole group and have it retried one at a time
+        accountCache.checkAccount(transaction.getAccountNo());
+        boolean committed;
+        accountCache.beginBalanceChange();
+        try {
+            committed = journal.write(transaction, true);
+            if (committed) {
+                accountCache.applyBalanceChange(transaction.getAccountNo(), transaction.getExpenseType(),
+                        transaction.getAmountMinor());
+            }
+        } finally {
+            accountCache.endBalanceChange();
+        }
+        if (!committed) {
+            // the account may have been removed in the meantime, which gives the caller a meaningful message
+            getAccountsDAO().getAccount(transaction.getAccountNo());
+            throw new InvalidAccountException("Unable to post the transaction.");
+        }
+    }
+
+    @Override
+    protected void postBatch(Collection<Transaction> transactions) throws InvalidAccountException {
+        journal.flush();
+        boolean posted;
+        accountCache.beginBalanceChange();
+        try {
+            posted = ledgerStore.postTransactions(transactions);
+            if (posted) {
+                for (Transaction transaction : transactions) {
+                    accountCache.applyBalanceChange(transaction.getAccountNo(), transaction.getExpenseType(),
+                            transaction.getAmountMinor());
+                }
+            }
+        } finally {
+            accountCache.endBalanceChange();
+        }
+        if (!posted) {
+            // find the offending account so that the caller gets a meaningful message
+            for (Transaction transaction : transactions) {
+                getAccountsDAO().getAccount(transaction.getAccountNo());
+            }
+            throw new InvalidAccountException("Unable to post the transactions.");
+        }
+    }
+
+    @Override
+    public void flush() {
+        journal.flush();
+    }
 
-        /* End */
+    /***
+     * Check the account balances against the transactions logged since the last reconciliation.
+     *
+     * @param repair - true to set each mismatched balance to the one its transactions add up to
+     * @return - the report of the run
+     * @throws ExpenseManagerException - if the run failed, in which case nothing was changed
+     */
+    public ReconciliationReport reconcileBalances(boolean repair) throws ExpenseManagerException {
+        // postings still in the journal have not reached either the log or the balances
+        journal.flush();
+        ReconciliationReport report = ledgerStore.reconcile(repair);
+        if (report == null) throw new ExpenseManagerException("Unable to reconcile the balances.");
+        if (report.isRepaired()) {
+            for (BalanceMismatch mismatch : report.getMismatches()) {
+                accountCache.invalidateBalance(mismatch.getAccountNo());
+            }
+        }
+        return report;
     }
 }
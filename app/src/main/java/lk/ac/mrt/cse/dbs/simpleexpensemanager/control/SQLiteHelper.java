@@ -16,187 +16,208 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.util.Log;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
-
-public class SQLiteHelper extends SQLiteOpenHelper implements Serializable {
-    private static final String ACCOUNT_TABLE = "accounts";
-    private static final String ACCOUNT_NO_FIELD = "accountNo";
-    private static final String BANK_NAME_FIELD = "bankName";
-    private static final String ACCOUNT_HOLDER_NAME_FIELD = "accountHolderName";
-    private static final String BALANCE_FIELD = "balance";
-    private static final String TRANSACTION_TABLE = "transactions";
-    private static final String EXPENSE_TYPE_FIELD = "expenseType";
-    private static final String AMOUNT_FIELD = "amount";
-    private static final String DATE_FIELD = "date";
+import android.database.sqlite.SQLiteStatement;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.Schema;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlConnection;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlCursor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.SqlStatement;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageEngine;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageException;
+
+/**
+ * Storage engine backed by the Android SQLite framework. The schema is created and upgraded through a
+ * SQLiteOpenHelper, and reader connections are opened read-only on the same database file.
+ */
+public class SQLiteHelper implements StorageEngine {
+    private final Context context;
+    private final String dbName;
+    private OpenHelper openHelper;
+    private String path;
 
     public SQLiteHelper(Context context, String dbName) {
-        super(context, dbName, null, 1);
+        this.context = context;
+        this.dbName = dbName;
     }
 
     @Override
-    public void onCreate(SQLiteDatabase sqLiteDatabase) {
-        sqLiteDatabase.execSQL(
-                "create table " + ACCOUNT_TABLE + " (" + ACCOUNT_NO_FIELD + " varchar(30) primary key, " + BANK_NAME_FIELD + " varchar(50), " + ACCOUNT_HOLDER_NAME_FIELD + " varchar(80), " + BALANCE_FIELD + " real)"
-        );
-        sqLiteDatabase.execSQL(
-                "create table " + TRANSACTION_TABLE + " (transactionID integer primary key, " + ACCOUNT_NO_FIELD + " varchar(30), " + EXPENSE_TYPE_FIELD + " varchar(30), " + AMOUNT_FIELD + " real, "+  DATE_FIELD + " varchar(20))"
-        );
+    public synchronized SqlConnection openWriter(Schema schema) {
+        try {
+            if (openHelper == null) {
+                openHelper = new OpenHelper(context, dbName, schema);
+            }
+            SQLiteDatabase db = openHelper.getWritableDatabase();
+            path = db.getPath();
+            return new Connection(db);
+        } catch (SQLException e) {
+            throw new StorageException("Unable to open " + dbName, e);
+        }
     }
 
     @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + ACCOUNT_TABLE);
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TRANSACTION_TABLE);
-        onCreate(sqLiteDatabase);
-    }
-
-    public void addAccount(Account account) {
+    public synchronized SqlConnection openReader() {
+        if (path == null) throw new IllegalStateException("The writer has not been opened");
         try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(ACCOUNT_NO_FIELD, account.getAccountNo());
-            contentValues.put(BANK_NAME_FIELD, account.getBankName());
-            contentValues.put(ACCOUNT_HOLDER_NAME_FIELD, account.getAccountHolderName());
-            contentValues.put(BALANCE_FIELD, account.getBalance());
-            db.insert(ACCOUNT_TABLE, null, contentValues);
-            db.close();
-        } catch (RuntimeException ignored) {
+            return new Connection(SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READONLY));
+        } catch (SQLException e) {
+            throw new StorageException("Unable to open " + dbName, e);
         }
     }
 
-    public boolean removeAccount(String accountNo) {
-        if (accountNo==null) return false;
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            boolean status = db.delete(ACCOUNT_TABLE, ACCOUNT_NO_FIELD+"=?", new String[]{accountNo}) > 0;
-            db.close();
-            return status;
-        } catch (RuntimeException ignored) {
-            return false;
-        }
+    @Override
+    public synchronized void close() {
+        if (openHelper != null) openHelper.close();
     }
 
-    public Account getAccount(String accountNo) {
-        if (accountNo == null) return null;
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.query(ACCOUNT_TABLE, new String[]{BANK_NAME_FIELD, ACCOUNT_HOLDER_NAME_FIELD, BALANCE_FIELD}, ACCOUNT_NO_FIELD + "=?",
-                    new String[]{accountNo}, null, null, null, null);
-            if (cursor == null) return null;
-            if (!cursor.moveToFirst()) return null;
-            Account account = new Account(accountNo, cursor.getString(0), cursor.getString(1), Double.parseDouble(cursor.getString(2)));
-            cursor.close();
-            db.close();
-            return account;
-        } catch (RuntimeException ignored) {
-            return null;
+    private static class OpenHelper extends SQLiteOpenHelper {
+        private final Schema schema;
+
+        OpenHelper(Context context, String dbName, Schema schema) {
+            super(context, dbName, null, schema.getVersion());
+            this.schema = schema;
+            setWriteAheadLoggingEnabled(true);
         }
-    }
 
-    public List<Account> getAccountsList() {
-        List<Account> accountList = new ArrayList<>();
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.query(ACCOUNT_TABLE, new String[]{ACCOUNT_NO_FIELD, BANK_NAME_FIELD, ACCOUNT_HOLDER_NAME_FIELD, BALANCE_FIELD}, null,
-                    null, null, null, null, null);
-            if (cursor == null) return accountList;
-            if (cursor.moveToFirst()) {
-                do {
-                    Account account = new Account(cursor.getString(0), cursor.getString(1), cursor.getString(2), Double.parseDouble(cursor.getString(3)));
-                    accountList.add(account);
-                } while (cursor.moveToNext());
-            }
-            cursor.close();
-            db.close();
-            return accountList;
-        } catch (RuntimeException ignored) {
-            return new ArrayList<>();
+        @Override
+        public void onCreate(SQLiteDatabase sqLiteDatabase) {
+            schema.onCreate(new Connection(sqLiteDatabase));
         }
-    }
 
-    public List<String> getAccountNumbersList() {
-        List<String> accountNumbersList = new ArrayList<>();
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.query(ACCOUNT_TABLE, new String[]{ACCOUNT_NO_FIELD}, null,
-                    null, null, null, null, null);
-            if (cursor == null) return accountNumbersList;
-            if (cursor.moveToFirst()) {
-                do {
-                    accountNumbersList.add(cursor.getString(0));
-                } while (cursor.moveToNext());
+        @Override
+        public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+            schema.onUpgrade(new Connection(sqLiteDatabase), oldVersion, newVersion);
+        }
+
+        @Override
+        public void onOpen(SQLiteDatabase sqLiteDatabase) {
+            super.onOpen(sqLiteDatabase);
+            if (!sqLiteDatabase.isReadOnly()) {
+                schema.onOpen(new Connection(sqLiteDatabase));
             }
-            cursor.close();
-            db.close();
-            return accountNumbersList;
-        } catch (RuntimeException ignored) {
-            return new ArrayList<>();
         }
     }
 
-    public void updateBalance(String accountNo, double newBalance){
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(BALANCE_FIELD, newBalance);
-            db.update(ACCOUNT_TABLE, contentValues, ACCOUNT_NO_FIELD+"=?", new String[]{accountNo});
-            db.close();
-        } catch (RuntimeException ignored) {
+    private static class Connection implements SqlConnection {
+        private final SQLiteDatabase db;
+
+        Connection(SQLiteDatabase db) {
+            this.db = db;
         }
-    }
 
-    public void logTransaction(Transaction transaction){
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(ACCOUNT_NO_FIELD, transaction.getAccountNo());
-            contentValues.put(EXPENSE_TYPE_FIELD, transaction.getExpenseType().name());
-            contentValues.put(AMOUNT_FIELD, transaction.getAmount());
-            contentValues.put(DATE_FIELD, transaction.getDate().getTime());
-            db.insert(TRANSACTION_TABLE, null, contentValues);
+        @Override
+        public void execute(String sql) {
+            db.execSQL(sql);
+        }
+
+        @Override
+        public SqlStatement prepare(String sql) {
+            return new Statement(db.compileStatement(sql));
+        }
+
+        @Override
+        public SqlCursor query(String sql, String[] args) {
+            return new CursorAdapter(db.rawQuery(sql, args));
+        }
+
+        @Override
+        public void beginTransaction() {
+            // the writer is the only connection which writes, so there is no need to lock out other connections early
+            db.beginTransactionNonExclusive();
+        }
+
+        @Override
+        public void setTransactionSuccessful() {
+            db.setTransactionSuccessful();
+        }
+
+        @Override
+        public void endTransaction() {
+            db.endTransaction();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return db.isOpen();
+        }
+
+        @Override
+        public void close() {
             db.close();
-        } catch (RuntimeException ignored) {
         }
     }
 
-    public List<Transaction> getAllTransactionLogs(){
-        return getPaginatedTransactionLogs(null);
+    private static class Statement implements SqlStatement {
+        private final SQLiteStatement statement;
+
+        Statement(SQLiteStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            statement.bindString(index, value);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public long executeInsert() {
+            return statement.executeInsert();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return statement.executeUpdateDelete();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return statement.simpleQueryForLong();
+        }
+
+        @Override
+        public void close() {
+            statement.close();
+        }
     }
 
-    public List<Transaction> getPaginatedTransactionLogs(String limit){
-        if (limit!=null) Log.d("Limit", limit);
-        List<Transaction> transactionList = new ArrayList<>();
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.query(TRANSACTION_TABLE, new String[]{ACCOUNT_NO_FIELD, EXPENSE_TYPE_FIELD, AMOUNT_FIELD, DATE_FIELD}, null,
-                    null, null, null, DATE_FIELD+" DESC", limit);
-            if (cursor == null) return transactionList;
-            if (cursor.moveToFirst()) {
-                do {
-                    Transaction transaction = new Transaction(new Date(cursor.getLong(3)), cursor.getString(0), ExpenseType.valueOf(cursor.getString(1)), cursor.getDouble(2));
-                    transactionList.add(transaction);
-                } while (cursor.moveToNext());
-            }
+    private static class CursorAdapter implements SqlCursor {
+        private final Cursor cursor;
+
+        CursorAdapter(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return cursor.moveToNext();
+        }
+
+        @Override
+        public String getString(int column) {
+            return cursor.getString(column);
+        }
+
+        @Override
+        public long getLong(int column) {
+            return cursor.getLong(column);
+        }
+
+        @Override
+        public int getInt(int column) {
+            return cursor.getInt(column);
+        }
+
+        @Override
+        public void close() {
             cursor.close();
-            Collections.reverse(transactionList);
-            db.close();
-            return transactionList;
-        } catch (RuntimeException ignored) {
-            return new ArrayList<>();
         }
     }
 }
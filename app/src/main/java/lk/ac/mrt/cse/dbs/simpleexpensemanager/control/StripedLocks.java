@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out among account numbers by hash. Work on accounts which map to different stripes
+ * runs in parallel, while work on the same account is serialized, without keeping a lock per account.
+ */
+final class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /***
+     * @param stripes - number of locks, a power of two; 1 serializes everything
+     */
+    StripedLocks(int stripes) {
+        if (stripes < 1 || (stripes & (stripes - 1)) != 0) {
+            throw new IllegalArgumentException("stripes must be a positive power of two");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    int stripeOf(String accountNo) {
+        int hash = accountNo.hashCode();
+        // String hashes of similar account numbers differ mostly in the low bits; mix the high bits in as well
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash & mask;
+    }
+
+    ReentrantLock lockFor(String accountNo) {
+        return locks[stripeOf(accountNo)];
+    }
+
+    /***
+     * Lock several stripes. They are always taken in ascending order, so two threads locking overlapping sets cannot
+     * deadlock.
+     *
+     * @param stripes - the stripes to lock
+     */
+    void lockAll(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            locks[i].lock();
+        }
+    }
+
+    void unlockAll(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            locks[i].unlock();
+        }
+    }
+}
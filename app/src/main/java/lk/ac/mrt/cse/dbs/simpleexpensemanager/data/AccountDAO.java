@@ -80,4 +80,15 @@ public interface AccountDAO {
      */
     public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException;
 
+    /***
+     * Update the balance of the given account by an amount given in minor units. This is the exact form of
+     * updateBalance.
+     *
+     * @param accountNo   - account number of the respective account
+     * @param expenseType - the type of the transaction
+     * @param amount      - amount involved in minor units, see Money
+     * @throws InvalidAccountException - if the account number is invalid
+     */
+    public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException;
+
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+
+/**
+ * AccountVisitor receives the accounts of a scan one at a time, so that they can be processed without loading them
+ * all into memory.
+ */
+public interface AccountVisitor {
+
+    /***
+     * Process one account of the scan.
+     *
+     * @param account - the current account
+     * @return - true to continue the scan, false to stop it
+     */
+    public boolean visit(Account account);
+}
@@ -16,11 +16,14 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
 
 /**
  * TransactionDAO interface can be used to access the log of transactions requested by the user.
@@ -37,6 +40,14 @@ public interface TransactionDAO {
      */
     public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount);
 
+    /***
+     * Log a batch of transactions. Implementations should write the whole batch at once rather than one transaction
+     * at a time.
+     *
+     * @param transactions - the transactions to be logged
+     */
+    public void logTransactions(Collection<Transaction> transactions);
+
     /***
      * Return all the transactions logged.
      *
@@ -51,4 +62,72 @@ public interface TransactionDAO {
      * @return - a list of requested number of transactions
      */
     public List<Transaction> getPaginatedTransactionLogs(int limit);
+
+    /***
+     * Return the transactions logged in a date range. Implementations should locate the range through an index, so
+     * that the cost depends on the number of transactions returned rather than on the size of the log.
+     *
+     * @param from - start of the range, inclusive
+     * @param to   - end of the range, exclusive
+     * @return - the transactions in the range, oldest first
+     */
+    public List<Transaction> getTransactionLogs(Date from, Date to);
+
+    /***
+     * Return the transactions of one account logged in a date range, located through an index by account and date.
+     *
+     * @param accountNo - account number involved
+     * @param from      - start of the range, inclusive
+     * @param to        - end of the range, exclusive
+     * @return - the transactions of the account in the range, oldest first
+     */
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to);
+
+    /***
+     * Return a page of the transaction log, newest transaction first. Pages are located by seeking to the date and
+     * id encoded in the token, so the cost of a page does not depend on how far back it is.
+     *
+     * @param pageToken - a token from a previously returned page, or null for the newest transactions
+     * @param limit     - maximum number of transactions in the page
+     * @return - the requested page
+     * @throws IllegalArgumentException - if the token is malformed
+     */
+    public TransactionPage getTransactionLogPage(String pageToken, int limit);
+
+    /***
+     * Visit every logged transaction in date order. Implementations must not hold more than a bounded number of
+     * transactions in memory at a time, so this can be used over logs of any size.
+     *
+     * @param newestFirst - true to start from the newest transaction, false to start from the oldest
+     * @param visitor     - receives each transaction; returning false stops the scan
+     */
+    public void scanTransactions(boolean newestFirst, TransactionVisitor visitor);
+
+    /***
+     * Visit the transactions logged in a date range in date order, under the same memory bound as scanTransactions.
+     * Implementations should locate the start of the range rather than skip to it, so that scanning a small range
+     * costs little however large the log is.
+     *
+     * @param from        - start of the range, inclusive
+     * @param to          - end of the range, exclusive
+     * @param newestFirst - true to start from the newest transaction, false to start from the oldest
+     * @param visitor     - receives each transaction; returning false stops the scan
+     */
+    public void scanTransactions(Date from, Date to, boolean newestFirst, TransactionVisitor visitor);
+
+    /***
+     * Return the monthly totals of an account. They are maintained as transactions are logged, so the cost depends on
+     * the number of months rather than the number of transactions.
+     *
+     * @param accountNo - account number involved
+     * @param fromMonth - first month as yyyymm, inclusive
+     * @param toMonth   - last month as yyyymm, inclusive
+     * @return - the totals of each month and expense type with at least one transaction, oldest month first
+     */
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth);
+
+    /***
+     * Recompute the monthly totals from the logged transactions.
+     */
+    public void rebuildMonthlyTotals();
 }
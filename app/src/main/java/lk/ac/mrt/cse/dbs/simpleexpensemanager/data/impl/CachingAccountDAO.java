@@ -0,0 +1,229 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is a caching decorator for another AccountDAO. Recently used accounts are kept in a bounded LRU map, so that
+ * balance reads of the working set do not go to the underlying storage. Writes go through to the underlying DAO
+ * first and then update or invalidate the cached copy. Only reads of an account are counted as hits or misses.
+ */
+public class CachingAccountDAO implements AccountDAO {
+    private final AccountDAO accountDAO;
+    private final Map<String, CachedAccount> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    /* Incremented on every change, so that a read which raced with a write does not cache what it read. */
+    private long generation;
+    /* Balance changes in progress; a read made while one is may see its result before it is applied to the cache. */
+    private int pendingChanges;
+
+    /***
+     * @param accountDAO - the underlying DAO
+     * @param capacity   - maximum number of accounts kept in the cache
+     */
+    public CachingAccountDAO(AccountDAO accountDAO, final int capacity) {
+        this.accountDAO = accountDAO;
+        this.cache = new LinkedHashMap<String, CachedAccount>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAccount> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        return accountDAO.getAccountNumbersList();
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        return accountDAO.getAccountsList();
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        long readGeneration;
+        synchronized (cache) {
+            CachedAccount entry = cache.get(accountNo);
+            if (entry != null && !entry.balanceStale) {
+                hits.incrementAndGet();
+                return copy(entry.account);
+            }
+            readGeneration = generation;
+        }
+        misses.incrementAndGet();
+        Account account = accountDAO.getAccount(accountNo);
+        synchronized (cache) {
+            if (generation == readGeneration && pendingChanges == 0) {
+                cache.put(accountNo, new CachedAccount(copy(account)));
+            }
+        }
+        return account;
+    }
+
+    /***
+     * Verify that an account exists. A cached account answers this even when its balance is not current, so the check
+     * does not have to wait for pending balance changes. Answering from the cache is not counted as a hit.
+     *
+     * @param accountNo - the account number
+     * @throws InvalidAccountException - if the account does not exist
+     */
+    public void checkAccount(String accountNo) throws InvalidAccountException {
+        synchronized (cache) {
+            if (cache.get(accountNo) != null) return;
+        }
+        getAccount(accountNo);
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        accountDAO.addAccount(account);
+        invalidate(account.getAccountNo());
+    }
+
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        try {
+            accountDAO.removeAccount(accountNo);
+        } finally {
+            invalidate(accountNo);
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException {
+        updateBalanceMinor(accountNo, expenseType, Money.fromDouble(amount));
+    }
+
+    @Override
+    public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        beginBalanceChange();
+        try {
+            accountDAO.updateBalanceMinor(accountNo, expenseType, amount);
+            applyBalanceChange(accountNo, expenseType, amount);
+        } catch (InvalidAccountException e) {
+            invalidate(accountNo);
+            throw e;
+        } finally {
+            endBalanceChange();
+        }
+    }
+
+    /***
+     * Announce a change to a balance which does not go through this DAO, before it is made. A read which misses
+     * while the change is in progress may see the balance from after it, so it is not cached: the change is applied
+     * to the cached copy once it is committed, and would be counted twice. Must be followed by endBalanceChange,
+     * whether or not the change was made.
+     */
+    public void beginBalanceChange() {
+        synchronized (cache) {
+            generation++;
+            pendingChanges++;
+        }
+    }
+
+    /***
+     * End a balance change announced by beginBalanceChange.
+     */
+    public void endBalanceChange() {
+        synchronized (cache) {
+            generation++;
+            pendingChanges--;
+        }
+    }
+
+    /***
+     * Apply a balance change which was committed without going through this DAO to the cached copy of the account,
+     * so that its next read does not have to go to the underlying DAO. Called between beginBalanceChange and
+     * endBalanceChange.
+     *
+     * @param accountNo   - the account number
+     * @param expenseType - whether the amount was taken from or added to the balance
+     * @param amount      - the amount in minor units
+     */
+    public void applyBalanceChange(String accountNo, ExpenseType expenseType, long amount) {
+        synchronized (cache) {
+            generation++;
+            CachedAccount entry = cache.get(accountNo);
+            if (entry != null && !entry.balanceStale) {
+                Account account = entry.account;
+                account.setBalanceMinor(account.getBalanceMinor() + Money.signed(expenseType, amount));
+            }
+        }
+    }
+
+    /***
+     * Mark the cached balance of an account as out of date, after its balance was changed without going through this
+     * DAO by an amount which is not known. The account is still known to exist, but its next read goes to the
+     * underlying DAO.
+     *
+     * @param accountNo - the account number
+     */
+    public void invalidateBalance(String accountNo) {
+        synchronized (cache) {
+            generation++;
+            CachedAccount entry = cache.get(accountNo);
+            if (entry != null) entry.balanceStale = true;
+        }
+    }
+
+    /***
+     * Drop an account from the cache.
+     *
+     * @param accountNo - the account number
+     */
+    public void invalidate(String accountNo) {
+        synchronized (cache) {
+            generation++;
+            cache.remove(accountNo);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static Account copy(Account account) {
+        return Account.ofMinorUnits(account.getAccountNo(), account.getBankName(), account.getAccountHolderName(),
+                account.getBalanceMinor());
+    }
+
+    private static final class CachedAccount {
+        final Account account;
+        boolean balanceStale;
+
+        CachedAccount(Account account) {
+            this.account = account;
+        }
+    }
+}
@@ -17,24 +17,28 @@
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
 
 /**
- * This is an In-Memory implementation of the AccountDAO interface. This is not a persistent storage. A HashMap is
- * used to store the account details temporarily in the memory.
+ * This is an In-Memory implementation of the AccountDAO interface. This is not a persistent storage. A
+ * ConcurrentHashMap is used to store the account details temporarily in the memory, so it can be shared by any number
+ * of threads: lookups do not lock, and each balance is an atomic counter of minor units which is changed with a
+ * single atomic add, so concurrent updates to the same account are never lost. Accounts are handed out as copies.
  */
 public class InMemoryAccountDAO implements AccountDAO {
-    private final Map<String, Account> accounts;
+    private final ConcurrentMap<String, StoredAccount> accounts;
 
     public InMemoryAccountDAO() {
-        this.accounts = new HashMap<>();
+        this.accounts = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -44,48 +48,68 @@ public class InMemoryAccountDAO implements AccountDAO {
 
     @Override
     public List<Account> getAccountsList() {
-        return new ArrayList<>(accounts.values());
+        List<Account> result = new ArrayList<>(accounts.size());
+        for (StoredAccount account : accounts.values()) {
+            result.add(account.toAccount());
+        }
+        return result;
     }
 
     @Override
     public Account getAccount(String accountNo) throws InvalidAccountException {
-        if (accounts.containsKey(accountNo)) {
-            return accounts.get(accountNo);
-        }
-        String msg = "Account " + accountNo + " is invalid.";
-        throw new InvalidAccountException(msg);
+        return find(accountNo).toAccount();
     }
 
     @Override
     public void addAccount(Account account) {
-        accounts.put(account.getAccountNo(), account);
+        accounts.put(account.getAccountNo(), new StoredAccount(account));
     }
 
     @Override
     public void removeAccount(String accountNo) throws InvalidAccountException {
-        if (!accounts.containsKey(accountNo)) {
+        if (accounts.remove(accountNo) == null) {
             String msg = "Account " + accountNo + " is invalid.";
             throw new InvalidAccountException(msg);
         }
-        accounts.remove(accountNo);
     }
 
     @Override
     public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException {
-        if (!accounts.containsKey(accountNo)) {
+        updateBalanceMinor(accountNo, expenseType, Money.fromDouble(amount));
+    }
+
+    @Override
+    public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        find(accountNo).balance.addAndGet(Money.signed(expenseType, amount));
+    }
+
+    private StoredAccount find(String accountNo) throws InvalidAccountException {
+        StoredAccount account = accounts.get(accountNo);
+        if (account == null) {
             String msg = "Account " + accountNo + " is invalid.";
             throw new InvalidAccountException(msg);
         }
-        Account account = accounts.get(accountNo);
-        // specific implementation based on the transaction type
-        switch (expenseType) {
-            case EXPENSE:
-                account.setBalance(account.getBalance() - amount);
-                break;
-            case INCOME:
-                account.setBalance(account.getBalance() + amount);
-                break;
+        return account;
+    }
+
+    /***
+     * An account as it is stored. Only the balance changes, so it is the only field which needs to be atomic.
+     */
+    private static final class StoredAccount {
+        final String accountNo;
+        final String bankName;
+        final String accountHolderName;
+        final AtomicLong balance;
+
+        StoredAccount(Account account) {
+            accountNo = account.getAccountNo();
+            bankName = account.getBankName();
+            accountHolderName = account.getAccountHolderName();
+            balance = new AtomicLong(account.getBalanceMinor());
+        }
+
+        Account toAccount() {
+            return Account.ofMinorUnits(accountNo, bankName, accountHolderName, balance.get());
         }
-        accounts.put(accountNo, account);
     }
 }
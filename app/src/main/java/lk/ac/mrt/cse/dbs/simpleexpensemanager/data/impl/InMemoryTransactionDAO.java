@@ -16,44 +16,282 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.PageToken;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
 
 /**
  * This is an In-Memory implementation of TransactionDAO interface. This is not a persistent storage. All the
- * transaction logs are stored in a LinkedList in memory.
+ * transaction logs are stored column by column in primitive arrays, kept sorted by date and then transaction id so
+ * that pages can be located with a binary search. The lists handed out are snapshots over the columns which are not
+ * copied and do not change when transactions are logged later. Each account also has a sorted array of the indexes
+ * of its rows, which serves queries by account and date without touching the rows of other accounts for four bytes
+ * a row. The log can be shared by posting threads: writes are serialized by a read-write lock, while reads, including
+ * scans, share it and run in parallel. A scan holds the read lock until it finishes.
  */
 public class InMemoryTransactionDAO implements TransactionDAO {
-    private final List<Transaction> transactions;
+    private final TransactionColumns transactions;
+    private final MonthlyTotals monthlyTotals;
+    private final Map<String, AccountRows> accountIndex;
+    private final Lock readLock;
+    private final Lock writeLock;
+    private long lastTransactionId;
 
     public InMemoryTransactionDAO() {
-        transactions = new LinkedList<>();
+        transactions = new TransactionColumns();
+        monthlyTotals = new MonthlyTotals();
+        accountIndex = new HashMap<>();
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        readLock = lock.readLock();
+        writeLock = lock.writeLock();
     }
 
     @Override
     public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
-        Transaction transaction = new Transaction(date, accountNo, expenseType, amount);
-        transactions.add(transaction);
+        writeLock.lock();
+        try {
+            append(date.getTime(), accountNo, expenseType, Money.fromDouble(amount));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void logTransactions(Collection<Transaction> transactions) {
+        writeLock.lock();
+        try {
+            for (Transaction transaction : transactions) {
+                append(transaction.getDate().getTime(), transaction.getAccountNo(), transaction.getExpenseType(),
+                        transaction.getAmountMinor());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void append(long date, String accountNo, ExpenseType expenseType, long amount) {
+        int row = transactions.insert(++lastTransactionId, date, accountNo, expenseType, amount);
+        if (row < transactions.size() - 1) {
+            // logged before the newest transaction, so every later row moved up
+            for (AccountRows accountRows : accountIndex.values()) {
+                accountRows.shift(row);
+            }
+        }
+        AccountRows accountRows = accountIndex.get(accountNo);
+        if (accountRows == null) {
+            accountRows = new AccountRows();
+            accountIndex.put(accountNo, accountRows);
+        }
+        accountRows.add(row);
+        monthlyTotals.add(date, accountNo, expenseType, amount);
     }
 
     @Override
     public List<Transaction> getAllTransactionLogs() {
-        return transactions;
+        readLock.lock();
+        try {
+            return transactions.view();
+        } finally {
+            readLock.unlock();
+        }
     }
 
     @Override
     public List<Transaction> getPaginatedTransactionLogs(int limit) {
-        int size = transactions.size();
-        if (size <= limit) {
-            return transactions;
+        readLock.lock();
+        try {
+            int size = transactions.size();
+            if (size <= limit) {
+                return transactions.view();
+            }
+            // return the last <code>limit</code> number of transaction logs
+            return transactions.view(size - limit, size, false);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogs(Date from, Date to) {
+        readLock.lock();
+        try {
+            // the smallest id sorts first on a date, so these are the first rows on or after each date
+            int first = transactions.lowerBound(from.getTime(), Long.MIN_VALUE);
+            int last = Math.max(first, transactions.lowerBound(to.getTime(), Long.MIN_VALUE));
+            return transactions.view(first, last, false);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to) {
+        readLock.lock();
+        try {
+            AccountRows accountRows = accountIndex.get(accountNo);
+            if (accountRows == null) return new ArrayList<>();
+            int first = accountRows.lowerBound(transactions, from.getTime());
+            int last = Math.max(first, accountRows.lowerBound(transactions, to.getTime()));
+            List<Transaction> result = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                result.add(transactions.get(accountRows.get(i)));
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public TransactionPage getTransactionLogPage(String pageToken, int limit) {
+        readLock.lock();
+        try {
+            int size = transactions.size();
+            int from;
+            int to;
+            if (pageToken == null) {
+                to = size;
+                from = Math.max(0, to - limit);
+            } else {
+                PageToken token = PageToken.decode(pageToken);
+                int boundary = transactions.lowerBound(token.getDate(), token.getTransactionId());
+                if (token.isOlder()) {
+                    to = boundary;
+                    from = Math.max(0, to - limit);
+                } else {
+                    // skip the boundary transaction itself if it is still present
+                    from = boundary < size && transactions.compare(boundary, token.getDate(), token.getTransactionId()) == 0
+                            ? boundary + 1 : boundary;
+                    to = Math.min(size, from + limit);
+                }
+            }
+            return TransactionPage.of(transactions.view(from, to, true), from > 0, to < size);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        readLock.lock();
+        try {
+            return monthlyTotals.copyOf(accountNo, fromMonth, toMonth);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        writeLock.lock();
+        try {
+            monthlyTotals.clear();
+            int size = transactions.size();
+            for (int row = 0; row < size; row++) {
+                Transaction transaction = transactions.get(row);
+                monthlyTotals.add(transaction.getDate().getTime(), transaction.getAccountNo(),
+                        transaction.getExpenseType(), transaction.getAmountMinor());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void scanTransactions(boolean newestFirst, TransactionVisitor visitor) {
+        readLock.lock();
+        try {
+            scanRows(0, transactions.size(), newestFirst, visitor);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void scanTransactions(Date from, Date to, boolean newestFirst, TransactionVisitor visitor) {
+        readLock.lock();
+        try {
+            // the smallest id sorts first on a date, so these are the first rows on or after each date
+            int first = transactions.lowerBound(from.getTime(), Long.MIN_VALUE);
+            int last = transactions.lowerBound(to.getTime(), Long.MIN_VALUE);
+            scanRows(first, last, newestFirst, visitor);
+        } finally {
+            readLock.unlock();
         }
-        // return the last <code>limit</code> number of transaction logs
-        return transactions.subList(size - limit, size);
     }
 
+    private void scanRows(int from, int to, boolean newestFirst, TransactionVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            if (!visitor.visit(transactions.get(newestFirst ? to - 1 - (i - from) : i))) return;
+        }
+    }
+
+    /***
+     * Indexes of the rows of one account in the transaction columns, in ascending order and so in date order.
+     */
+    private static final class AccountRows {
+        private int[] rows = new int[16];
+        private int size;
+
+        int get(int i) {
+            return rows[i];
+        }
+
+        /***
+         * Add the index of a new row, which is after every other row of the account on the same date.
+         */
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size + (size >> 1));
+            }
+            int i = Arrays.binarySearch(rows, 0, size, row);
+            int at = i < 0 ? -i - 1 : i;
+            System.arraycopy(rows, at, rows, at + 1, size - at);
+            rows[at] = row;
+            size++;
+        }
+
+        /***
+         * Follow a row inserted at the given index, which moved the rows from there on up by one.
+         */
+        void shift(int insertedRow) {
+            int i = Arrays.binarySearch(rows, 0, size, insertedRow);
+            for (int j = i < 0 ? -i - 1 : i; j < size; j++) {
+                rows[j]++;
+            }
+        }
+
+        /***
+         * Find the position of the first row of the account which is not before the given date.
+         */
+        int lowerBound(TransactionColumns transactions, long date) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (transactions.getDate(rows[mid]) < date) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
 }
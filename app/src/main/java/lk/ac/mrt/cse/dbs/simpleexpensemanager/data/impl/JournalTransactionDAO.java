@@ -0,0 +1,254 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.PageToken;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageException;
+
+/**
+ * TransactionDAO backed by an append-only journal of fixed-width records in memory-mapped files. Transactions are
+ * kept in the order they were logged and their ids are their positions in the journal, so pages are located without
+ * a search and the lists handed out read the records straight from the mapping instead of copying them.
+ * <p/>
+ * The journal is in logging order rather than date order; the two are the same as long as transactions are logged as
+ * they happen, which is how the app logs them, and date range scans rely on that to seek rather than filter. Opening
+ * the journal only replays the records appended after the last snapshot of the balances and monthly totals. Logged
+ * transactions survive the process being killed; call sync to make them survive power loss as well.
+ */
+public class JournalTransactionDAO implements TransactionDAO, Closeable {
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1 << 16;
+
+    private final TransactionJournal journal;
+
+    /***
+     * @param directory - directory of the journal files, created if it does not exist
+     */
+    public JournalTransactionDAO(File directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /***
+     * @param directory        - directory of the journal files, created if it does not exist
+     * @param snapshotInterval - number of transactions logged between two snapshots of the totals
+     */
+    public JournalTransactionDAO(File directory, int snapshotInterval) throws IOException {
+        journal = new TransactionJournal(directory, snapshotInterval);
+    }
+
+    @Override
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
+        journal.append(date.getTime(), accountNo, expenseType, Money.fromDouble(amount));
+    }
+
+    @Override
+    public void logTransactions(Collection<Transaction> transactions) {
+        journal.appendAll(transactions instanceof List ? (List<Transaction>) transactions
+                : new ArrayList<>(transactions));
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionLogs() {
+        return new RecordRange(0, journal.size(), false);
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        long size = journal.size();
+        // return the last <code>limit</code> number of transaction logs
+        return new RecordRange(Math.max(0, size - limit), size, false);
+    }
+
+    /***
+     * While the journal is in date order the range is located with a binary search; otherwise every record is checked.
+     */
+    @Override
+    public List<Transaction> getTransactionLogs(Date from, Date to) {
+        final List<Transaction> transactions = new ArrayList<>();
+        scanTransactions(from, to, false, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                transactions.add(transaction);
+                return true;
+            }
+        });
+        return transactions;
+    }
+
+    @Override
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to) {
+        long[] positions = journal.findAccountRecords(accountNo, from.getTime(), to.getTime());
+        List<Transaction> transactions = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            transactions.add(journal.get(position));
+        }
+        return transactions;
+    }
+
+    @Override
+    public TransactionPage getTransactionLogPage(String pageToken, int limit) {
+        long size = journal.size();
+        long from;
+        long to;
+        if (pageToken == null) {
+            to = size;
+            from = Math.max(0, to - limit);
+        } else {
+            PageToken token = PageToken.decode(pageToken);
+            // the id of a transaction is its position plus one, so the date in the token is not needed
+            long boundary = Math.min(Math.max(token.getTransactionId() - 1, 0), size);
+            if (token.isOlder()) {
+                to = boundary;
+                from = Math.max(0, to - limit);
+            } else {
+                from = Math.min(boundary + 1, size);
+                to = Math.min(size, from + limit);
+            }
+        }
+        // records never change once written, so unlike the in-memory pages this one need not be copied
+        return TransactionPage.of(new RecordRange(from, to, true), from > 0, to < size);
+    }
+
+    @Override
+    public void scanTransactions(boolean newestFirst, TransactionVisitor visitor) {
+        long size = journal.size();
+        for (long i = 0; i < size; i++) {
+            if (!visitor.visit(journal.get(newestFirst ? size - 1 - i : i))) return;
+        }
+    }
+
+    /***
+     * While the journal is in date order, which it is unless transactions were logged out of order, the range is
+     * located with a binary search; otherwise every record is checked.
+     */
+    @Override
+    public void scanTransactions(Date from, Date to, boolean newestFirst, TransactionVisitor visitor) {
+        long size = journal.size();
+        long fromDate = from.getTime();
+        long toDate = to.getTime();
+        if (journal.isDateOrdered()) {
+            long first = journal.lowerBound(fromDate, size);
+            long last = journal.lowerBound(toDate, size);
+            for (long i = first; i < last; i++) {
+                if (!visitor.visit(journal.get(newestFirst ? last - 1 - (i - first) : i))) return;
+            }
+            return;
+        }
+        for (long i = 0; i < size; i++) {
+            long index = newestFirst ? size - 1 - i : i;
+            long date = journal.getDate(index);
+            if (date >= fromDate && date < toDate && !visitor.visit(journal.get(index))) return;
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        return journal.getMonthlyTotals(accountNo, fromMonth, toMonth);
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        journal.rebuildTotals();
+    }
+
+    /***
+     * Return the sum of the transactions of an account, incomes positive and expenses negative. Kept up to date as
+     * transactions are logged, so an account balance can be checked without reading the journal.
+     *
+     * @param accountNo - account number involved
+     * @return - the net change in minor units
+     */
+    public long getBalanceChange(String accountNo) {
+        return journal.getNetAmount(accountNo);
+    }
+
+    /***
+     * Force every logged transaction to the storage device.
+     */
+    public void sync() {
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            throw new StorageException("Unable to sync the journal", e);
+        }
+    }
+
+    /***
+     * Write a snapshot of the totals if anything was logged since the last one, and release the journal files.
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    /***
+     * Immutable view of a range of records.
+     */
+    private class RecordRange extends AbstractList<Transaction> implements RandomAccess {
+        private final long from;
+        private final int size;
+        private final boolean newestFirst;
+
+        /***
+         * @param from        - position of the first record, inclusive
+         * @param to          - position of the last record, exclusive
+         * @param newestFirst - true to list the records in reverse logging order
+         */
+        RecordRange(long from, long to, boolean newestFirst) {
+            if (to - from > Integer.MAX_VALUE) throw new IllegalStateException("Too many transactions for a list");
+            this.from = from;
+            this.size = (int) (to - from);
+            this.newestFirst = newestFirst;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return journal.get(from + (newestFirst ? size - 1 - index : index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public List<Transaction> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+            }
+            if (newestFirst) return new RecordRange(from + size - toIndex, from + size - fromIndex, true);
+            return new RecordRange(from + fromIndex, from + toIndex, false);
+        }
+    }
+}
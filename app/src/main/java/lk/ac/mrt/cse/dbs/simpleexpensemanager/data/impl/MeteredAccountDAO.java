@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.MetricsRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+
+import java.util.List;
+
+/**
+ * This is a metering decorator for another AccountDAO. Each method counts its calls and the exceptions it throws, and
+ * records its latency, under "AccountDAO." followed by the method name.
+ */
+public class MeteredAccountDAO implements AccountDAO {
+    private final AccountDAO accountDAO;
+    private final OperationMetrics getAccountNumbersList;
+    private final OperationMetrics getAccountsList;
+    private final OperationMetrics getAccount;
+    private final OperationMetrics addAccount;
+    private final OperationMetrics removeAccount;
+    private final OperationMetrics updateBalance;
+
+    /***
+     * @param accountDAO - the underlying DAO
+     * @param metrics    - registry the metrics are kept in
+     */
+    public MeteredAccountDAO(AccountDAO accountDAO, MetricsRegistry metrics) {
+        this.accountDAO = accountDAO;
+        this.getAccountNumbersList = metrics.operation("AccountDAO.getAccountNumbersList");
+        this.getAccountsList = metrics.operation("AccountDAO.getAccountsList");
+        this.getAccount = metrics.operation("AccountDAO.getAccount");
+        this.addAccount = metrics.operation("AccountDAO.addAccount");
+        this.removeAccount = metrics.operation("AccountDAO.removeAccount");
+        // both overloads change the balance the same way
+        this.updateBalance = metrics.operation("AccountDAO.updateBalance");
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        long start = getAccountNumbersList.start();
+        try {
+            return accountDAO.getAccountNumbersList();
+        } catch (RuntimeException e) {
+            getAccountNumbersList.failed();
+            throw e;
+        } finally {
+            getAccountNumbersList.stop(start);
+        }
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        long start = getAccountsList.start();
+        try {
+            return accountDAO.getAccountsList();
+        } catch (RuntimeException e) {
+            getAccountsList.failed();
+            throw e;
+        } finally {
+            getAccountsList.stop(start);
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        long start = getAccount.start();
+        try {
+            return accountDAO.getAccount(accountNo);
+        } catch (InvalidAccountException | RuntimeException e) {
+            getAccount.failed();
+            throw e;
+        } finally {
+            getAccount.stop(start);
+        }
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        long start = addAccount.start();
+        try {
+            accountDAO.addAccount(account);
+        } catch (RuntimeException e) {
+            addAccount.failed();
+            throw e;
+        } finally {
+            addAccount.stop(start);
+        }
+    }
+
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        long start = removeAccount.start();
+        try {
+            accountDAO.removeAccount(accountNo);
+        } catch (InvalidAccountException | RuntimeException e) {
+            removeAccount.failed();
+            throw e;
+        } finally {
+            removeAccount.stop(start);
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException {
+        long start = updateBalance.start();
+        try {
+            accountDAO.updateBalance(accountNo, expenseType, amount);
+        } catch (InvalidAccountException | RuntimeException e) {
+            updateBalance.failed();
+            throw e;
+        } finally {
+            updateBalance.stop(start);
+        }
+    }
+
+    @Override
+    public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        long start = updateBalance.start();
+        try {
+            accountDAO.updateBalanceMinor(accountNo, expenseType, amount);
+        } catch (InvalidAccountException | RuntimeException e) {
+            updateBalance.failed();
+            throw e;
+        } finally {
+            updateBalance.stop(start);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.MetricsRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This is a metering decorator for another TransactionDAO. Each method counts its calls and the exceptions it throws,
+ * and records its latency, under "TransactionDAO." followed by the method name. A scan is timed as a whole, including
+ * the time spent in the visitor.
+ */
+public class MeteredTransactionDAO implements TransactionDAO {
+    private final TransactionDAO transactionDAO;
+    private final OperationMetrics logTransaction;
+    private final OperationMetrics logTransactions;
+    private final OperationMetrics getAllTransactionLogs;
+    private final OperationMetrics getPaginatedTransactionLogs;
+    private final OperationMetrics getTransactionLogs;
+    private final OperationMetrics getAccountTransactionLogs;
+    private final OperationMetrics getTransactionLogPage;
+    private final OperationMetrics scanTransactions;
+    private final OperationMetrics getMonthlyTotals;
+    private final OperationMetrics rebuildMonthlyTotals;
+
+    /***
+     * @param transactionDAO - the underlying DAO
+     * @param metrics        - registry the metrics are kept in
+     */
+    public MeteredTransactionDAO(TransactionDAO transactionDAO, MetricsRegistry metrics) {
+        this.transactionDAO = transactionDAO;
+        this.logTransaction = metrics.operation("TransactionDAO.logTransaction");
+        this.logTransactions = metrics.operation("TransactionDAO.logTransactions");
+        this.getAllTransactionLogs = metrics.operation("TransactionDAO.getAllTransactionLogs");
+        this.getPaginatedTransactionLogs = metrics.operation("TransactionDAO.getPaginatedTransactionLogs");
+        this.getTransactionLogs = metrics.operation("TransactionDAO.getTransactionLogs");
+        this.getAccountTransactionLogs = metrics.operation("TransactionDAO.getAccountTransactionLogs");
+        this.getTransactionLogPage = metrics.operation("TransactionDAO.getTransactionLogPage");
+        this.scanTransactions = metrics.operation("TransactionDAO.scanTransactions");
+        this.getMonthlyTotals = metrics.operation("TransactionDAO.getMonthlyTotals");
+        this.rebuildMonthlyTotals = metrics.operation("TransactionDAO.rebuildMonthlyTotals");
+    }
+
+    @Override
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
+        long start = logTransaction.start();
+        try {
+            transactionDAO.logTransaction(date, accountNo, expenseType, amount);
+        } catch (RuntimeException e) {
+            logTransaction.failed();
+            throw e;
+        } finally {
+            logTransaction.stop(start);
+        }
+    }
+
+    @Override
+    public void logTransactions(Collection<Transaction> transactions) {
+        long start = logTransactions.start();
+        try {
+            transactionDAO.logTransactions(transactions);
+        } catch (RuntimeException e) {
+            logTransactions.failed();
+            throw e;
+        } finally {
+            logTransactions.stop(start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionLogs() {
+        long start = getAllTransactionLogs.start();
+        try {
+            return transactionDAO.getAllTransactionLogs();
+        } catch (RuntimeException e) {
+            getAllTransactionLogs.failed();
+            throw e;
+        } finally {
+            getAllTransactionLogs.stop(start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        long start = getPaginatedTransactionLogs.start();
+        try {
+            return transactionDAO.getPaginatedTransactionLogs(limit);
+        } catch (RuntimeException e) {
+            getPaginatedTransactionLogs.failed();
+            throw e;
+        } finally {
+            getPaginatedTransactionLogs.stop(start);
+        }
+    }
+
+    @Override
+    public TransactionPage getTransactionLogPage(String pageToken, int limit) {
+        long start = getTransactionLogPage.start();
+        try {
+            return transactionDAO.getTransactionLogPage(pageToken, limit);
+        } catch (RuntimeException e) {
+            getTransactionLogPage.failed();
+            throw e;
+        } finally {
+            getTransactionLogPage.stop(start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogs(Date from, Date to) {
+        long start = getTransactionLogs.start();
+        try {
+            return transactionDAO.getTransactionLogs(from, to);
+        } catch (RuntimeException e) {
+            getTransactionLogs.failed();
+            throw e;
+        } finally {
+            getTransactionLogs.stop(start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to) {
+        long start = getAccountTransactionLogs.start();
+        try {
+            return transactionDAO.getAccountTransactionLogs(accountNo, from, to);
+        } catch (RuntimeException e) {
+            getAccountTransactionLogs.failed();
+            throw e;
+        } finally {
+            getAccountTransactionLogs.stop(start);
+        }
+    }
+
+    @Override
+    public void scanTransactions(boolean newestFirst, TransactionVisitor visitor) {
+        long start = scanTransactions.start();
+        try {
+            transactionDAO.scanTransactions(newestFirst, visitor);
+        } catch (RuntimeException e) {
+            scanTransactions.failed();
+            throw e;
+        } finally {
+            scanTransactions.stop(start);
+        }
+    }
+
+    @Override
+    public void scanTransactions(Date from, Date to, boolean newestFirst, TransactionVisitor visitor) {
+        long start = scanTransactions.start();
+        try {
+            transactionDAO.scanTransactions(from, to, newestFirst, visitor);
+        } catch (RuntimeException e) {
+            scanTransactions.failed();
+            throw e;
+        } finally {
+            scanTransactions.stop(start);
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        long start = getMonthlyTotals.start();
+        try {
+            return transactionDAO.getMonthlyTotals(accountNo, fromMonth, toMonth);
+        } catch (RuntimeException e) {
+            getMonthlyTotals.failed();
+            throw e;
+        } finally {
+            getMonthlyTotals.stop(start);
+        }
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        long start = rebuildMonthlyTotals.start();
+        try {
+            transactionDAO.rebuildMonthlyTotals();
+        } catch (RuntimeException e) {
+            rebuildMonthlyTotals.failed();
+            throw e;
+        } finally {
+            rebuildMonthlyTotals.stop(start);
+        }
+    }
+}
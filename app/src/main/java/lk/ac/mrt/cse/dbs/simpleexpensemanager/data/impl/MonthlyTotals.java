@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+
+/**
+ * Monthly totals of the transactions of every account, kept up to date in memory as transactions are logged.
+ * Not thread safe; callers guard it with their own lock.
+ */
+class MonthlyTotals {
+    private static final int EXPENSE_TYPES = ExpenseType.values().length;
+
+    /* account number -> month -> totals indexed by expense type ordinal */
+    private final Map<String, TreeMap<Integer, MonthlyTotal[]>> totals = new HashMap<>();
+
+    void add(long date, String accountNo, ExpenseType expenseType, long amount) {
+        get(accountNo, MonthlyTotal.monthOf(date), expenseType).include(amount);
+    }
+
+    /***
+     * Get the totals of an account, month and type, creating empty totals if there are none yet.
+     */
+    MonthlyTotal get(String accountNo, int month, ExpenseType expenseType) {
+        TreeMap<Integer, MonthlyTotal[]> months = totals.get(accountNo);
+        if (months == null) {
+            months = new TreeMap<>();
+            totals.put(accountNo, months);
+        }
+        MonthlyTotal[] monthTotals = months.get(month);
+        if (monthTotals == null) {
+            monthTotals = new MonthlyTotal[EXPENSE_TYPES];
+            months.put(month, monthTotals);
+        }
+        MonthlyTotal total = monthTotals[expenseType.ordinal()];
+        if (total == null) {
+            total = new MonthlyTotal(accountNo, month, expenseType, 0, 0, 0, 0);
+            monthTotals[expenseType.ordinal()] = total;
+        }
+        return total;
+    }
+
+    /***
+     * Get copies of the totals of an account, oldest month first, so that callers cannot change them.
+     *
+     * @param accountNo - the account
+     * @param fromMonth - first month as yyyymm, inclusive
+     * @param toMonth   - last month as yyyymm, inclusive
+     * @return - the totals of every month and type with at least one transaction
+     */
+    List<MonthlyTotal> copyOf(String accountNo, int fromMonth, int toMonth) {
+        List<MonthlyTotal> result = new ArrayList<>();
+        TreeMap<Integer, MonthlyTotal[]> months = totals.get(accountNo);
+        if (months == null || fromMonth > toMonth) return result;
+        for (MonthlyTotal[] monthTotals : months.subMap(fromMonth, true, toMonth, true).values()) {
+            for (MonthlyTotal total : monthTotals) {
+                if (total != null) {
+                    result.add(new MonthlyTotal(total.getAccountNo(), total.getMonth(), total.getExpenseType(),
+                            total.getCount(), total.getTotal(), total.getMinimum(), total.getMaximum()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /***
+     * @return - every non-empty total, live rather than copied
+     */
+    List<MonthlyTotal> all() {
+        List<MonthlyTotal> result = new ArrayList<>();
+        for (TreeMap<Integer, MonthlyTotal[]> months : totals.values()) {
+            for (MonthlyTotal[] monthTotals : months.values()) {
+                for (MonthlyTotal total : monthTotals) {
+                    if (total != null) result.add(total);
+                }
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        totals.clear();
+    }
+}
@@ -16,11 +16,13 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.GroupCommitWriter;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
 
 import java.util.List;
 
@@ -29,25 +31,37 @@ import java.util.List;
  * used to store the account details temporarily in the memory.
  */
 public class PersistentAccountDAO implements AccountDAO {
-    private final SQLiteHelper sqLiteHelper;
+    private final LedgerStore ledgerStore;
+    private final GroupCommitWriter journal;
 
-    public PersistentAccountDAO(SQLiteHelper sqLiteHelper) {
-        this.sqLiteHelper = sqLiteHelper;
+    public PersistentAccountDAO(LedgerStore ledgerStore) {
+        this(ledgerStore, null);
+    }
+
+    /***
+     * @param ledgerStore - the database
+     * @param journal      - group commit writer whose queued postings must be visible to balance reads, or null
+     */
+    public PersistentAccountDAO(LedgerStore ledgerStore, GroupCommitWriter journal) {
+        this.ledgerStore = ledgerStore;
+        this.journal = journal;
     }
 
     @Override
     public List<String> getAccountNumbersList() {
-        return sqLiteHelper.getAccountNumbersList();
+        return ledgerStore.getAccountNumbersList();
     }
 
     @Override
     public List<Account> getAccountsList() {
-        return sqLiteHelper.getAccountsList();
+        awaitPendingWrites();
+        return ledgerStore.getAccountsList();
     }
 
     @Override
     public Account getAccount(String accountNo) throws InvalidAccountException {
-        Account account = sqLiteHelper.getAccount(accountNo);
+        awaitPendingWrites();
+        Account account = ledgerStore.getAccount(accountNo);
         if (account != null) {
             return account;
         }
@@ -57,12 +71,13 @@ public class PersistentAccountDAO implements AccountDAO {
 
     @Override
     public void addAccount(Account account) {
-        sqLiteHelper.addAccount(account);
+        ledgerStore.addAccount(account);
     }
 
     @Override
     public void removeAccount(String accountNo) throws InvalidAccountException {
-        if (!sqLiteHelper.removeAccount(accountNo)) {
+        awaitPendingWrites();
+        if (!ledgerStore.removeAccount(accountNo)) {
             String msg = "Account " + accountNo + " is invalid.";
             throw new InvalidAccountException(msg);
         }
@@ -70,21 +85,28 @@ public class PersistentAccountDAO implements AccountDAO {
 
     @Override
     public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException {
-        Account account = sqLiteHelper.getAccount(accountNo);
-        if (account==null) {
-            String msg = "Account " + accountNo + " is invalid.";
-            throw new InvalidAccountException(msg);
-        }
+        updateBalanceMinor(accountNo, expenseType, Money.fromDouble(amount));
+    }
+
+    @Override
+    public void updateBalanceMinor(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
         // specific implementation based on the transaction type
-        double newBalance = account.getBalance();
+        long delta = 0;
         switch (expenseType) {
             case EXPENSE:
-                newBalance -= amount;
+                delta = -amount;
                 break;
             case INCOME:
-                newBalance += amount;
+                delta = amount;
                 break;
         }
-        sqLiteHelper.updateBalance(accountNo, newBalance);
+        if (!ledgerStore.applyBalanceDelta(accountNo, delta)) {
+            String msg = "Account " + accountNo + " is invalid.";
+            throw new InvalidAccountException(msg);
+        }
+    }
+
+    private void awaitPendingWrites() {
+        if (journal != null) journal.flush();
     }
 }
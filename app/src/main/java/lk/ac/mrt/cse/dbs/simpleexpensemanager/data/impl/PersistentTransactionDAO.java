@@ -16,11 +16,18 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.PageToken;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.GroupCommitWriter;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageException;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,27 +38,103 @@ import java.util.List;
  */
 public class PersistentTransactionDAO implements TransactionDAO {
     private final List<Transaction> transactions;
-    private final SQLiteHelper sqLiteHelper;
+    private final LedgerStore ledgerStore;
+    private final GroupCommitWriter journal;
 
-    public PersistentTransactionDAO(SQLiteHelper sqLiteHelper) {
+    public PersistentTransactionDAO(LedgerStore ledgerStore) {
+        this(ledgerStore, null);
+    }
+
+    /***
+     * @param ledgerStore - the database
+     * @param journal     - group commit writer for single transactions, or null to commit each on its own
+     */
+    public PersistentTransactionDAO(LedgerStore ledgerStore, GroupCommitWriter journal) {
         transactions = new LinkedList<>();
-        this.sqLiteHelper = sqLiteHelper;
+        this.ledgerStore = ledgerStore;
+        this.journal = journal;
     }
 
     @Override
     public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
         Transaction transaction = new Transaction(date, accountNo, expenseType, amount);
-        sqLiteHelper.logTransaction(transaction);
+        boolean logged = journal != null ? journal.write(transaction, false) : ledgerStore.logTransaction(transaction);
+        if (!logged) throw new StorageException("Unable to log the transaction", null);
+    }
+
+    @Override
+    public void logTransactions(Collection<Transaction> transactions) {
+        awaitPendingWrites();
+        if (!ledgerStore.logTransactions(transactions)) {
+            throw new StorageException("Unable to log the transactions", null);
+        }
     }
 
     @Override
     public List<Transaction> getAllTransactionLogs() {
-        return sqLiteHelper.getAllTransactionLogs();
+        awaitPendingWrites();
+        return ledgerStore.getAllTransactionLogs();
     }
 
     @Override
     public List<Transaction> getPaginatedTransactionLogs(int limit) {
-        return sqLiteHelper.getPaginatedTransactionLogs(String.valueOf(limit));
+        awaitPendingWrites();
+        return ledgerStore.getPaginatedTransactionLogs(String.valueOf(limit));
+    }
+
+    @Override
+    public TransactionPage getTransactionLogPage(String pageToken, int limit) {
+        PageToken token = pageToken == null ? null : PageToken.decode(pageToken);
+        awaitPendingWrites();
+        return ledgerStore.getTransactionLogPage(token, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogs(Date from, Date to) {
+        awaitPendingWrites();
+        return ledgerStore.getTransactionLogs(from.getTime(), to.getTime());
+    }
+
+    @Override
+    public List<Transaction> getAccountTransactionLogs(String accountNo, Date from, Date to) {
+        awaitPendingWrites();
+        return ledgerStore.getAccountTransactionLogs(accountNo, from.getTime(), to.getTime());
     }
 
+    @Override
+    public void scanTransactions(boolean newestFirst, TransactionVisitor visitor) {
+        awaitPendingWrites();
+        if (!ledgerStore.scanTransactions(newestFirst, visitor)) {
+            throw new StorageException("Unable to read the transaction log", null);
+        }
+    }
+
+    @Override
+    public void scanTransactions(Date from, Date to, boolean newestFirst, TransactionVisitor visitor) {
+        awaitPendingWrites();
+        if (!ledgerStore.scanTransactions(from.getTime(), to.getTime(), newestFirst, visitor)) {
+            throw new StorageException("Unable to read the transaction log", null);
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        awaitPendingWrites();
+        return ledgerStore.getMonthlyTotals(accountNo, fromMonth, toMonth);
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        awaitPendingWrites();
+        if (!ledgerStore.rebuildMonthlyTotals()) {
+            throw new StorageException("Unable to rebuild the monthly totals", null);
+        }
+    }
+
+    /***
+     * Reads see every transaction logged before them, so anything still queued in the journal is committed first.
+     */
+    private void awaitPendingWrites() {
+        if (journal != null) journal.flush();
+    }
 }
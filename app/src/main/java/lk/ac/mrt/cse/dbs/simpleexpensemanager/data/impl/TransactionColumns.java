@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Column store for transaction logs. Each field is kept in its own growable primitive array and account numbers are
+ * replaced by ids from a dictionary, so a row takes 29 bytes instead of a Transaction with its Date and String.
+ * Rows are kept sorted by date and then transaction id; Transaction objects are only created when a row is read.
+ * <p/>
+ * Views are snapshots which share the arrays instead of copying them. Appending a row only writes past the end of
+ * every view, and inserting one before the end, which moves rows, first gives the columns arrays of their own if a
+ * view may still be reading the current ones. Like the rest of the class, views must be taken while no row is being
+ * inserted; once taken they can be read from any thread.
+ */
+class TransactionColumns {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+
+    private long[] dates = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] accounts = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int size;
+    /* whether a view may be reading the arrays, in which case the rows in them must not move */
+    private boolean shared;
+
+    private final Map<String, Integer> accountIds = new HashMap<>();
+    /* append only, so views can keep reading the array they were given */
+    private String[] accountNumbers = new String[INITIAL_CAPACITY];
+    private int accountCount;
+
+    int size() {
+        return size;
+    }
+
+    long getDate(int row) {
+        return dates[row];
+    }
+
+    long getTransactionId(int row) {
+        return ids[row];
+    }
+
+    /***
+     * Insert a row at its position in date order.
+     *
+     * @param transactionId - id of the transaction, larger than every id inserted before
+     * @param date          - date of the transaction in epoch millis
+     * @param accountNo     - account of the transaction
+     * @param expenseType   - type of the transaction
+     * @param amount        - amount in minor units
+     * @return - index of the new row; the rows from there on moved up by one
+     */
+    int insert(long transactionId, long date, String accountNo, ExpenseType expenseType, long amount) {
+        if (size == dates.length) {
+            reallocate(dates.length + (dates.length >> 1));
+        }
+        // the new id is the largest, so the row goes after every other row on the same date
+        int row = lowerBound(date, Long.MAX_VALUE);
+        if (row < size) {
+            if (shared) reallocate(dates.length);
+            int moved = size - row;
+            System.arraycopy(dates, row, dates, row + 1, moved);
+            System.arraycopy(ids, row, ids, row + 1, moved);
+            System.arraycopy(accounts, row, accounts, row + 1, moved);
+            System.arraycopy(types, row, types, row + 1, moved);
+            System.arraycopy(amounts, row, amounts, row + 1, moved);
+        }
+        dates[row] = date;
+        ids[row] = transactionId;
+        accounts[row] = accountId(accountNo);
+        types[row] = (byte) expenseType.ordinal();
+        amounts[row] = amount;
+        size++;
+        return row;
+    }
+
+    /***
+     * Materialize a row.
+     *
+     * @param row - index of the row in date order
+     * @return - a new Transaction holding the values of the row
+     */
+    Transaction get(int row) {
+        return Transaction.ofMinorUnits(ids[row], new Date(dates[row]), accountNumbers[accounts[row]],
+                EXPENSE_TYPES[types[row]], amounts[row]);
+    }
+
+    /***
+     * Find the index of the first row which is not before the given date and id.
+     */
+    int lowerBound(long date, long transactionId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, date, transactionId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int compare(int row, long date, long transactionId) {
+        if (dates[row] != date) {
+            return dates[row] < date ? -1 : 1;
+        }
+        long id = ids[row];
+        return id < transactionId ? -1 : (id == transactionId ? 0 : 1);
+    }
+
+    /***
+     * Get a snapshot of all rows.
+     *
+     * @return - the view, oldest first
+     */
+    List<Transaction> view() {
+        return view(0, size, false);
+    }
+
+    /***
+     * Get a snapshot of a range of rows without copying them. Rows inserted later do not show up in the view.
+     *
+     * @param from     - first row, inclusive
+     * @param to       - last row, exclusive
+     * @param reversed - whether the view lists the rows newest first
+     * @return - the view
+     */
+    List<Transaction> view(int from, int to, boolean reversed) {
+        shared = true;
+        return new Snapshot(this, from, to, reversed);
+    }
+
+    private int accountId(String accountNo) {
+        Integer id = accountIds.get(accountNo);
+        if (id == null) {
+            id = accountCount;
+            if (id == accountNumbers.length) {
+                accountNumbers = Arrays.copyOf(accountNumbers, id + (id >> 1));
+            }
+            accountNumbers[accountCount++] = accountNo;
+            accountIds.put(accountNo, id);
+        }
+        return id;
+    }
+
+    /***
+     * Move the rows to new arrays, leaving the current ones to the views reading them.
+     */
+    private void reallocate(int capacity) {
+        dates = Arrays.copyOf(dates, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        accounts = Arrays.copyOf(accounts, capacity);
+        types = Arrays.copyOf(types, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        shared = false;
+    }
+
+    /***
+     * View of a range of rows which keeps the arrays they were in when it was taken.
+     */
+    private static final class Snapshot extends AbstractList<Transaction> implements RandomAccess {
+        private final long[] dates;
+        private final long[] ids;
+        private final int[] accounts;
+        private final byte[] types;
+        private final long[] amounts;
+        private final String[] accountNumbers;
+        private final int from;
+        private final int to;
+        private final boolean reversed;
+
+        Snapshot(TransactionColumns columns, int from, int to, boolean reversed) {
+            this.dates = columns.dates;
+            this.ids = columns.ids;
+            this.accounts = columns.accounts;
+            this.types = columns.types;
+            this.amounts = columns.amounts;
+            this.accountNumbers = columns.accountNumbers;
+            this.from = from;
+            this.to = to;
+            this.reversed = reversed;
+        }
+
+        private Snapshot(Snapshot snapshot, int from, int to) {
+            this.dates = snapshot.dates;
+            this.ids = snapshot.ids;
+            this.accounts = snapshot.accounts;
+            this.types = snapshot.types;
+            this.amounts = snapshot.amounts;
+            this.accountNumbers = snapshot.accountNumbers;
+            this.from = from;
+            this.to = to;
+            this.reversed = snapshot.reversed;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= to - from) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            int row = reversed ? to - 1 - index : from + index;
+            return Transaction.ofMinorUnits(ids[row], new Date(dates[row]), accountNumbers[accounts[row]],
+                    EXPENSE_TYPES[types[row]], amounts[row]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<Transaction> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > to - from || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+            }
+            if (reversed) return new Snapshot(this, to - toIndex, to - fromIndex);
+            return new Snapshot(this, from + fromIndex, from + toIndex);
+        }
+    }
+}
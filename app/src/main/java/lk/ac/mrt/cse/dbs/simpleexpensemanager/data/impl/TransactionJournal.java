@@ -0,0 +1,632 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.StorageException;
+
+/**
+ * Append-only journal of transactions in a directory. Records are 32 bytes wide and are written to and read from
+ * memory-mapped segments of the journal file:
+ * <pre>
+ * 0  date     long, epoch millis
+ * 8  amount   long, minor units
+ * 16 account  int, index into the account dictionary
+ * 20 type     byte, expense type ordinal
+ * 24 checksum int, never 0 for a written record
+ * </pre>
+ * Account numbers are appended to a separate dictionary file. The net amount of every account and the monthly totals
+ * are kept in memory and written to a snapshot every so many records and on close, so that opening the journal only
+ * replays the records after the last snapshot. A record whose checksum does not match, such as one torn by a crash,
+ * is dropped when the journal is opened and the records after it move down to close the gap.
+ * <p/>
+ * Writes reach the page cache as soon as they are appended and so survive the process dying; sync makes them durable
+ * against power loss as well. Appends are serialized; reads do not lock and see every record appended before they
+ * started.
+ */
+class TransactionJournal implements Closeable {
+    private static final Logger LOG = Logger.getLogger(TransactionJournal.class.getName());
+    static final int RECORD_SIZE = 32;
+    private static final int SEGMENT_SHIFT = 18;
+    private static final int RECORDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+    private static final long SEGMENT_SIZE = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    private static final int DATE_OFFSET = 0;
+    private static final int AMOUNT_OFFSET = 8;
+    private static final int ACCOUNT_OFFSET = 16;
+    private static final int TYPE_OFFSET = 20;
+    private static final int CHECKSUM_OFFSET = 24;
+    private static final String JOURNAL_FILE = "journal.dat";
+    private static final String ACCOUNTS_FILE = "accounts.dat";
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final int SNAPSHOT_MAGIC = 0x45584a53;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+
+    private final File directory;
+    private final int snapshotInterval;
+    private final RandomAccessFile journalFile;
+    private final FileChannel channel;
+    private final FileOutputStream accountsFile;
+    private final DataOutputStream accountsOut;
+    /* Replaced rather than changed, so that readers can use them without locking. */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile String[] accountNumbers = new String[16];
+    private volatile long size;
+    /* Whether the records are in date order, as they are when transactions are logged as they happen. */
+    private volatile boolean dateOrdered = true;
+
+    /* The following are guarded by this. */
+    private final Map<String, Integer> accountIds = new HashMap<>();
+    private int accountCount;
+    private long[] netAmounts = new long[16];
+    private final MonthlyTotals monthlyTotals = new MonthlyTotals();
+    private long lastDate = Long.MIN_VALUE;
+    /* account id -> positions of its records, oldest first; built on first use and then kept up to date */
+    private long[][] accountPositions;
+    private int[] accountPositionCounts;
+    private long snapshotSize;
+    private int syncedSegments;
+    private boolean closed;
+
+    /***
+     * Open the journal in a directory, creating it if it does not exist.
+     *
+     * @param directory        - directory of the journal files
+     * @param snapshotInterval - number of records appended between two snapshots
+     */
+    TransactionJournal(File directory, int snapshotInterval) throws IOException {
+        if (snapshotInterval < 1) throw new IllegalArgumentException("snapshotInterval must be positive");
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Unable to create " + directory);
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        File accounts = new File(directory, ACCOUNTS_FILE);
+        readAccounts(accounts);
+        accountsFile = new FileOutputStream(accounts, true);
+        accountsOut = new DataOutputStream(new BufferedOutputStream(accountsFile));
+        journalFile = new RandomAccessFile(new File(directory, JOURNAL_FILE), "rw");
+        channel = journalFile.getChannel();
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            closed = true;
+            accountsOut.close();
+            journalFile.close();
+            throw e;
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /***
+     * Append a record. The caller publishes it with publish once a batch is complete.
+     *
+     * @return - id of the record, its position plus one
+     */
+    private long append(long index, long date, String accountNo, ExpenseType expenseType, long amount) {
+        if (closed) throw new IllegalStateException("The journal is closed");
+        int account = accountId(accountNo);
+        MappedByteBuffer segment = segmentFor(index);
+        int offset = (int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        segment.putLong(offset + DATE_OFFSET, date);
+        segment.putLong(offset + AMOUNT_OFFSET, amount);
+        segment.putInt(offset + ACCOUNT_OFFSET, account);
+        segment.put(offset + TYPE_OFFSET, (byte) expenseType.ordinal());
+        // written last, so that the record only becomes valid once it is complete
+        segment.putInt(offset + CHECKSUM_OFFSET, checksum(date, amount, account, expenseType.ordinal()));
+        apply(date, account, expenseType, amount);
+        if (accountPositions != null) addPosition(account, index);
+        return index + 1;
+    }
+
+    synchronized long append(long date, String accountNo, ExpenseType expenseType, long amount) {
+        long id = append(size, date, accountNo, expenseType, amount);
+        publish(id);
+        return id;
+    }
+
+    synchronized void appendAll(List<Transaction> transactions) {
+        long index = size;
+        for (Transaction transaction : transactions) {
+            append(index++, transaction.getDate().getTime(), transaction.getAccountNo(), transaction.getExpenseType(),
+                    transaction.getAmountMinor());
+        }
+        publish(index);
+    }
+
+    private void publish(long newSize) {
+        size = newSize;
+        if (newSize - snapshotSize >= snapshotInterval) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                // the journal itself is intact; the next open just replays more of it
+                snapshotSize = newSize;
+            }
+        }
+    }
+
+    /***
+     * Read a record.
+     *
+     * @param index - position of the record, below size
+     * @return - a new Transaction holding the values of the record
+     */
+    Transaction get(long index) {
+        MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        return Transaction.ofMinorUnits(index + 1, new Date(segment.getLong(offset + DATE_OFFSET)),
+                accountNumbers[segment.getInt(offset + ACCOUNT_OFFSET)], EXPENSE_TYPES[segment.get(offset + TYPE_OFFSET)],
+                segment.getLong(offset + AMOUNT_OFFSET));
+    }
+
+    long getDate(long index) {
+        MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        return segment.getLong((int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE + DATE_OFFSET);
+    }
+
+    boolean isDateOrdered() {
+        return dateOrdered;
+    }
+
+    /***
+     * Find the first record on or after a date. Only meaningful while the records are in date order.
+     *
+     * @param date - epoch millis
+     * @param size - number of records to search
+     * @return - position of the record, or size if every record is before the date
+     */
+    long lowerBound(long date, long size) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (getDate(mid) < date) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /***
+     * Find the records of an account in a date range. The positions of the records of every account are indexed the
+     * first time this is called, which reads the whole journal once; after that the cost depends on the number of
+     * records of the account.
+     *
+     * @param accountNo - the account
+     * @param fromDate  - start of the range in epoch millis, inclusive
+     * @param toDate    - end of the range in epoch millis, exclusive
+     * @return - positions of the records in the range, in logging order
+     */
+    synchronized long[] findAccountRecords(String accountNo, long fromDate, long toDate) {
+        Integer account = accountIds.get(accountNo);
+        if (account == null) return new long[0];
+        if (accountPositions == null) indexAccounts();
+        long[] positions = accountPositions[account];
+        int count = accountPositionCounts[account];
+        if (dateOrdered) {
+            int first = lowerBound(positions, count, fromDate);
+            int last = Math.max(first, lowerBound(positions, count, toDate));
+            return Arrays.copyOfRange(positions, first, last);
+        }
+        long[] found = new long[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            long date = getDate(positions[i]);
+            if (date >= fromDate && date < toDate) found[size++] = positions[i];
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    private int lowerBound(long[] positions, int count, long date) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getDate(positions[mid]) < date) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void indexAccounts() {
+        accountPositions = new long[netAmounts.length][];
+        accountPositionCounts = new int[netAmounts.length];
+        for (int i = 0; i < accountCount; i++) {
+            accountPositions[i] = new long[16];
+        }
+        for (long index = 0; index < size; index++) {
+            MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+            addPosition(segment.getInt((int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE + ACCOUNT_OFFSET), index);
+        }
+    }
+
+    private void addPosition(int account, long index) {
+        int count = accountPositionCounts[account];
+        if (count == accountPositions[account].length) {
+            accountPositions[account] = Arrays.copyOf(accountPositions[account], count + (count >> 1));
+        }
+        accountPositions[account][count] = index;
+        accountPositionCounts[account] = count + 1;
+    }
+
+    /***
+     * Get the sum of the amounts logged for an account, incomes positive and expenses negative.
+     *
+     * @param accountNo - the account
+     * @return - the net amount in minor units, 0 if nothing was logged for the account
+     */
+    synchronized long getNetAmount(String accountNo) {
+        Integer account = accountIds.get(accountNo);
+        return account == null ? 0 : netAmounts[account];
+    }
+
+    synchronized List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        return monthlyTotals.copyOf(accountNo, fromMonth, toMonth);
+    }
+
+    /***
+     * Recompute the net amounts and monthly totals from the records.
+     */
+    synchronized void rebuildTotals() {
+        Arrays.fill(netAmounts, 0);
+        monthlyTotals.clear();
+        dateOrdered = true;
+        lastDate = Long.MIN_VALUE;
+        for (long index = 0; index < size; index++) {
+            Transaction transaction = get(index);
+            apply(transaction.getDate().getTime(), accountIds.get(transaction.getAccountNo()),
+                    transaction.getExpenseType(), transaction.getAmountMinor());
+        }
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new StorageException("Unable to write a snapshot of the journal", e);
+        }
+    }
+
+    /***
+     * Make everything appended so far durable.
+     */
+    synchronized void sync() throws IOException {
+        if (closed) return;
+        accountsOut.flush();
+        accountsFile.getFD().sync();
+        // segments before the last synced one are full and unchanged since they were synced
+        MappedByteBuffer[] mapped = segments;
+        int current = (int) (size >>> SEGMENT_SHIFT);
+        for (int i = Math.max(0, syncedSegments - 1); i < mapped.length && i <= current; i++) {
+            mapped[i].force();
+        }
+        syncedSegments = Math.min(mapped.length, current + 1);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        try {
+            if (channel.isOpen() && size != snapshotSize) writeSnapshot();
+        } finally {
+            closed = true;
+            accountsOut.close();
+            journalFile.close();
+        }
+    }
+
+    private void apply(long date, int account, ExpenseType expenseType, long amount) {
+        if (date < lastDate) dateOrdered = false;
+        lastDate = date;
+        netAmounts[account] += Money.signed(expenseType, amount);
+        monthlyTotals.add(date, accountNumbers[account], expenseType, amount);
+    }
+
+    private int accountId(String accountNo) {
+        Integer id = accountIds.get(accountNo);
+        if (id != null) return id;
+        if (accountNo == null) throw new IllegalArgumentException("accountNo must not be null");
+        try {
+            accountsOut.writeUTF(accountNo);
+            // the record which refers to the entry reaches the page cache as soon as it is written, so must the entry
+            accountsOut.flush();
+        } catch (IOException e) {
+            throw new StorageException("Unable to add account " + accountNo + " to the journal", e);
+        }
+        return addAccount(accountNo);
+    }
+
+    private int addAccount(String accountNo) {
+        int id = accountCount++;
+        String[] numbers = accountNumbers;
+        if (id == numbers.length) {
+            numbers = Arrays.copyOf(numbers, id * 2);
+            netAmounts = Arrays.copyOf(netAmounts, id * 2);
+            if (accountPositions != null) {
+                accountPositions = Arrays.copyOf(accountPositions, id * 2);
+                accountPositionCounts = Arrays.copyOf(accountPositionCounts, id * 2);
+            }
+        }
+        numbers[id] = accountNo;
+        // written back even if it was not grown, so that a reader which sees a record of the account sees its number
+        accountNumbers = numbers;
+        accountIds.put(accountNo, id);
+        if (accountPositions != null) accountPositions[id] = new long[16];
+        return id;
+    }
+
+    private MappedByteBuffer segmentFor(long index) {
+        int segment = (int) (index >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] mapped = segments;
+        if (segment < mapped.length) return mapped[segment];
+        try {
+            mapped = Arrays.copyOf(mapped, segment + 1);
+            mapped[segment] = channel.map(FileChannel.MapMode.READ_WRITE, segment * SEGMENT_SIZE, SEGMENT_SIZE);
+        } catch (IOException e) {
+            throw new StorageException("Unable to extend the journal", e);
+        }
+        segments = mapped;
+        return mapped[segment];
+    }
+
+    private boolean isWritten(long index) {
+        MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        int account = segment.getInt(offset + ACCOUNT_OFFSET);
+        int type = segment.get(offset + TYPE_OFFSET);
+        if (account < 0 || account >= accountCount || type < 0 || type >= EXPENSE_TYPES.length) return false;
+        return segment.getInt(offset + CHECKSUM_OFFSET) == checksum(segment.getLong(offset + DATE_OFFSET),
+                segment.getLong(offset + AMOUNT_OFFSET), account, type);
+    }
+
+    private static int checksum(long date, long amount, int account, int type) {
+        long hash = (date * 0x9E3779B97F4A7C15L) ^ amount;
+        hash = (hash ^ (hash >>> 29)) * 0xBF58476D1CE4E5B9L;
+        hash ^= (((long) account << 8) | type) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 32;
+        int checksum = (int) hash;
+        return checksum == 0 ? 1 : checksum;
+    }
+
+    /***
+     * Load the last snapshot and replay the records after it. A record which is not valid, such as one torn by a crash
+     * or one whose account did not make it to the dictionary, is cleared, and the valid records after it are moved
+     * down so that the journal has no gaps; their ids, which are their positions, go down with them.
+     */
+    private synchronized void recover() throws IOException {
+        int mappedSegments = (int) ((channel.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        for (int i = 0; i < mappedSegments; i++) {
+            segmentFor((long) i << SEGMENT_SHIFT);
+        }
+        long capacity = (long) segments.length << SEGMENT_SHIFT;
+
+        long index = readSnapshot();
+        if (index > capacity || (index > 0 && !isWritten(index - 1))) {
+            // the snapshot is ahead of the journal, so it cannot be trusted
+            Arrays.fill(netAmounts, 0);
+            monthlyTotals.clear();
+            dateOrdered = true;
+            index = 0;
+        }
+        if (index > 0) lastDate = getDate(index - 1);
+        snapshotSize = index;
+        long end = index;
+        long dropped = 0;
+        // a crash can leave valid records after a damaged one, so the whole rest of the journal is checked
+        for (long slot = index; slot < capacity; slot++) {
+            if (isWritten(slot)) {
+                if (slot != end) {
+                    moveRecord(slot, end);
+                }
+                Transaction transaction = get(end);
+                apply(transaction.getDate().getTime(), accountIds.get(transaction.getAccountNo()),
+                        transaction.getExpenseType(), transaction.getAmountMinor());
+                end++;
+            } else if (!isEmpty(slot)) {
+                clearRecord(slot);
+                dropped++;
+            }
+        }
+        size = end;
+        if (dropped > 0) {
+            LOG.warning("Dropped " + dropped + " damaged records from the journal in " + directory);
+            // the repair must not be undone by a power loss while new records are appended after it
+            for (int i = (int) (index >>> SEGMENT_SHIFT); i < segments.length; i++) {
+                segments[i].force();
+            }
+        }
+        syncedSegments = (int) (size >>> SEGMENT_SHIFT);
+    }
+
+    private boolean isEmpty(long index) {
+        MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            if (segment.getLong(offset + i) != 0) return false;
+        }
+        return true;
+    }
+
+    private void clearRecord(long index) {
+        MappedByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            segment.putLong(offset + i, 0);
+        }
+    }
+
+    /***
+     * Copy a record to an earlier position which is free, and clear it where it was.
+     */
+    private void moveRecord(long from, long to) {
+        MappedByteBuffer source = segments[(int) (from >>> SEGMENT_SHIFT)];
+        MappedByteBuffer target = segments[(int) (to >>> SEGMENT_SHIFT)];
+        int sourceOffset = (int) (from & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        int targetOffset = (int) (to & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            target.putLong(targetOffset + i, source.getLong(sourceOffset + i));
+        }
+        clearRecord(from);
+    }
+
+    /***
+     * Read the account dictionary, dropping an entry torn by a crash.
+     */
+    private void readAccounts(File accounts) throws IOException {
+        if (!accounts.exists()) return;
+        long valid = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(accounts)));
+        try {
+            while (true) {
+                String accountNo = in.readUTF();
+                addAccount(accountNo);
+                valid += 2 + utfLength(accountNo);
+            }
+        } catch (EOFException e) {
+            // the end of the dictionary, or an entry which was only partly written
+        } finally {
+            in.close();
+        }
+        if (valid < accounts.length()) {
+            RandomAccessFile file = new RandomAccessFile(accounts, "rw");
+            try {
+                file.setLength(valid);
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    private static int utfLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : (c > 0x07FF ? 3 : 2);
+        }
+        return length;
+    }
+
+    /***
+     * @return - number of records covered by the snapshot, 0 if there is no usable snapshot
+     */
+    private long readSnapshot() throws IOException {
+        File file = new File(directory, SNAPSHOT_FILE);
+        if (!file.exists()) return 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) return 0;
+            long records = in.readLong();
+            boolean ordered = in.readBoolean();
+            int accounts = in.readInt();
+            if (accounts > accountCount) return 0;
+            long[] amounts = new long[netAmounts.length];
+            for (int i = 0; i < accounts; i++) {
+                amounts[i] = in.readLong();
+            }
+            int totals = in.readInt();
+            for (int i = 0; i < totals; i++) {
+                int account = in.readInt();
+                int month = in.readInt();
+                int type = in.readByte();
+                if (account < 0 || account >= accounts || type < 0 || type >= EXPENSE_TYPES.length) {
+                    monthlyTotals.clear();
+                    return 0;
+                }
+                MonthlyTotal total = monthlyTotals.get(accountNumbers[account], month, EXPENSE_TYPES[type]);
+                total.setCount(in.readLong());
+                total.setTotal(in.readLong());
+                total.setMinimum(in.readLong());
+                total.setMaximum(in.readLong());
+            }
+            netAmounts = amounts;
+            dateOrdered = ordered;
+            return records;
+        } catch (EOFException e) {
+            monthlyTotals.clear();
+            return 0;
+        } finally {
+            in.close();
+        }
+    }
+
+    /***
+     * Write a snapshot of the totals of every record appended so far. The records are synced first, so a snapshot
+     * never covers a record which could still be lost, and the snapshot replaces the previous one atomically.
+     */
+    private void writeSnapshot() throws IOException {
+        sync();
+        File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+        FileOutputStream file = new FileOutputStream(temporary);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(size);
+            out.writeBoolean(dateOrdered);
+            out.writeInt(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                out.writeLong(netAmounts[i]);
+            }
+            List<MonthlyTotal> totals = monthlyTotals.all();
+            out.writeInt(totals.size());
+            for (MonthlyTotal total : totals) {
+                out.writeInt(accountIds.get(total.getAccountNo()));
+                out.writeInt(total.getMonth());
+                out.writeByte(total.getExpenseType().ordinal());
+                out.writeLong(total.getCount());
+                out.writeLong(total.getTotal());
+                out.writeLong(total.getMinimum());
+                out.writeLong(total.getMaximum());
+            }
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(new File(directory, SNAPSHOT_FILE))) {
+            throw new IOException("Unable to replace the snapshot in " + directory);
+        }
+        snapshotSize = size;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a single operation. Every call and every error is counted, while only one call in each sample period
+ * is timed, which keeps the two clock reads off most calls. The first calls are all timed, so that an operation which
+ * is rarely called still gets latencies. Nothing is counted while the registry is disabled.
+ * <p/>
+ * The call counter is a plain field rather than an atomic one: an atomic increment costs about as much as an
+ * in-memory lookup, and the calls are statistics, so the odd call lost when two threads increment it at the same
+ * moment is not worth that. It is an int, so that it cannot be torn on 32-bit devices, and read as unsigned.
+ * <p/>
+ * Usage:
+ * <pre>
+ * long start = metrics.start();
+ * try {
+ *     ...
+ * } catch (RuntimeException e) {
+ *     metrics.failed();
+ *     throw e;
+ * } finally {
+ *     metrics.stop(start);
+ * }
+ * </pre>
+ */
+public class OperationMetrics {
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final MetricsRegistry registry;
+    private final int sampleMask;
+    private int calls;
+    private final AtomicLong errors = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /***
+     * @param name         - name of the operation
+     * @param registry     - registry the operation belongs to, which can disable it
+     * @param samplePeriod - one call in this many is timed; a power of two
+     */
+    OperationMetrics(String name, MetricsRegistry registry, int samplePeriod) {
+        this.name = name;
+        this.registry = registry;
+        this.sampleMask = samplePeriod - 1;
+    }
+
+    /***
+     * Count a call.
+     *
+     * @return - the value to be passed to stop when the call returns
+     */
+    public long start() {
+        if (!registry.isEnabled()) return NOT_TIMED;
+        int call = ++calls;
+        return (call & sampleMask) == 0 || (call & ~sampleMask) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public void stop(long start) {
+        if (start != NOT_TIMED) latencies.record(System.nanoTime() - start);
+    }
+
+    public void failed() {
+        if (registry.isEnabled()) errors.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(name, calls & 0xFFFFFFFFL, errors.get(), latencies.getCount(), latencies.getMean(),
+                latencies.getPercentile(50), latencies.getPercentile(90), latencies.getPercentile(99),
+                latencies.getMax());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics;
+
+import java.util.Locale;
+
+/**
+ * Counters of an operation at one point in time. Latencies are in nanoseconds and cover the timed calls only.
+ */
+public class OperationSnapshot {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long timedCalls;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    public OperationSnapshot(String name, long calls, long errors, long timedCalls, long mean, long p50, long p90,
+                             long p99, long max) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.timedCalls = timedCalls;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getTimedCalls() {
+        return timedCalls;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s calls=%d errors=%d p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                name, calls, errors, p50 / 1000.0, p90 / 1000.0, p99 / 1000.0, max / 1000.0);
+    }
+}
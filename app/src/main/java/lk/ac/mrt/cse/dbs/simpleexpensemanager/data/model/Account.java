@@ -23,7 +23,8 @@ public class Account {
     private String accountNo;
     private String bankName;
     private String accountHolderName;
-    private double balance;
+    /* balance in minor units, see Money */
+    private long balance;
 
     public String getAccountNo() {
         return accountNo;
@@ -50,10 +51,18 @@ public class Account {
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toDouble(balance);
     }
 
     public void setBalance(double balance) {
+        this.balance = Money.fromDouble(balance);
+    }
+
+    public long getBalanceMinor() {
+        return balance;
+    }
+
+    public void setBalanceMinor(long balance) {
         this.balance = balance;
     }
 
@@ -61,6 +70,15 @@ public class Account {
         this.accountNo = accountNo;
         this.bankName = bankName;
         this.accountHolderName = accountHolderName;
-        this.balance = balance;
+        this.balance = Money.fromDouble(balance);
+    }
+
+    /***
+     * Create an account with its balance given in minor units.
+     */
+    public static Account ofMinorUnits(String accountNo, String bankName, String accountHolderName, long balance) {
+        Account account = new Account(accountNo, bankName, accountHolderName, 0);
+        account.balance = balance;
+        return account;
     }
 }
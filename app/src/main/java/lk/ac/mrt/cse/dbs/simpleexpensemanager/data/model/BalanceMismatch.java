@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+/**
+ * This POJO holds an account whose recorded balance does not match the balance its transaction history adds up to.
+ */
+public class BalanceMismatch {
+    private final String accountNo;
+    /* amounts in minor units, see Money */
+    private final long recordedBalance;
+    private final long expectedBalance;
+
+    public BalanceMismatch(String accountNo, long recordedBalance, long expectedBalance) {
+        this.accountNo = accountNo;
+        this.recordedBalance = recordedBalance;
+        this.expectedBalance = expectedBalance;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    /***
+     * @return - the balance in the accounts table
+     */
+    public long getRecordedBalance() {
+        return recordedBalance;
+    }
+
+    /***
+     * @return - the balance at the last checkpoint plus the transactions logged since
+     */
+    public long getExpectedBalance() {
+        return expectedBalance;
+    }
+
+    /***
+     * @return - the amount the recorded balance is off by, positive if it is too high
+     */
+    public long getDifference() {
+        return recordedBalance - expectedBalance;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+/**
+ * Fixed-point representation of money amounts. Amounts are held as a long count of minor units (cents) with a scale
+ * of two decimal places, so sums are exact and need neither boxing nor string conversions.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    private static final long UNIT = 100;
+
+    private Money() {
+    }
+
+    /***
+     * Parse a decimal amount such as "-1234.5" into minor units without allocating. Digits beyond the scale are
+     * rounded half away from zero. Only an optional sign, digits and a decimal point are accepted: no whitespace,
+     * exponent or grouping separators.
+     *
+     * @param text - the decimal amount
+     * @return - the amount in minor units
+     * @throws NumberFormatException - if the text is not a decimal number or does not fit in a long
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long whole = 0;
+        int digits = 0;
+        for (; i < length && text.charAt(i) != '.'; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw invalid(text);
+            if (whole > (Long.MAX_VALUE / UNIT - 1 - digit) / 10) throw invalid(text);
+            whole = whole * 10 + digit;
+            digits++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < length) {
+            for (i++; i < length; i++) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) throw invalid(text);
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + digit;
+                } else if (fractionDigits == SCALE) {
+                    roundUp = digit >= 5;
+                }
+                fractionDigits++;
+            }
+        }
+        if (digits == 0 && fractionDigits == 0) throw invalid(text);
+        for (int pad = Math.min(fractionDigits, SCALE); pad < SCALE; pad++) {
+            fraction *= 10;
+        }
+        long minor = whole * UNIT + fraction + (roundUp ? 1 : 0);
+        return negative ? -minor : minor;
+    }
+
+    /***
+     * Convert an amount in major units to minor units, rounding to the nearest minor unit.
+     *
+     * @param amount - the amount in major units
+     * @return - the amount in minor units
+     */
+    public static long fromDouble(double amount) {
+        return Math.round(amount * UNIT);
+    }
+
+    /***
+     * Convert an amount in minor units to major units.
+     *
+     * @param minor - the amount in minor units
+     * @return - the amount in major units
+     */
+    public static double toDouble(long minor) {
+        return minor / (double) UNIT;
+    }
+
+    /***
+     * Format an amount in minor units as a plain decimal, for example "-12.05".
+     *
+     * @param minor - the amount in minor units
+     * @return - the formatted amount
+     */
+    public static String format(long minor) {
+        StringBuilder builder = new StringBuilder(24);
+        if (minor < 0) builder.append('-');
+        long absolute = Math.abs(minor);
+        builder.append(absolute / UNIT).append('.');
+        long fraction = absolute % UNIT;
+        if (fraction < 10) builder.append('0');
+        return builder.append(fraction).toString();
+    }
+
+    /***
+     * Get the change to an account balance caused by a transaction.
+     *
+     * @param expenseType - the type of the transaction
+     * @param minor       - the amount of the transaction in minor units
+     * @return - the amount, negated for expenses
+     */
+    public static long signed(ExpenseType expenseType, long minor) {
+        return expenseType == ExpenseType.EXPENSE ? -minor : minor;
+    }
+
+    private static NumberFormatException invalid(CharSequence text) {
+        return new NumberFormatException("Invalid amount: " + text);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+import java.util.Calendar;
+
+/**
+ * This POJO holds the summary of the transactions of one type on one account in one month. Months are identified by
+ * an int of the form yyyymm, for example 202210 for October 2022, in the local time zone.
+ */
+public class MonthlyTotal {
+    private String accountNo;
+    private int month;
+    private ExpenseType expenseType;
+    private long count;
+    /* amounts in minor units, see Money */
+    private long total;
+    private long minimum;
+    private long maximum;
+
+    public MonthlyTotal(String accountNo, int month, ExpenseType expenseType, long count, long total, long minimum,
+                        long maximum) {
+        this.accountNo = accountNo;
+        this.month = month;
+        this.expenseType = expenseType;
+        this.count = count;
+        this.total = total;
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+    /***
+     * Get the month of a date.
+     *
+     * @param date - epoch millis
+     * @return - the month as yyyymm in the local time zone
+     */
+    public static int monthOf(long date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(date);
+        return calendar.get(Calendar.YEAR) * 100 + calendar.get(Calendar.MONTH) + 1;
+    }
+
+    /***
+     * Add a transaction amount to this summary.
+     *
+     * @param amount - amount in minor units
+     */
+    public void include(long amount) {
+        minimum = count == 0 ? amount : Math.min(minimum, amount);
+        maximum = count == 0 ? amount : Math.max(maximum, amount);
+        count++;
+        total += amount;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public void setAccountNo(String accountNo) {
+        this.accountNo = accountNo;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public void setMonth(int month) {
+        this.month = month;
+    }
+
+    public ExpenseType getExpenseType() {
+        return expenseType;
+    }
+
+    public void setExpenseType(ExpenseType expenseType) {
+        this.expenseType = expenseType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getMinimum() {
+        return minimum;
+    }
+
+    public void setMinimum(long minimum) {
+        this.minimum = minimum;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    public void setMaximum(long maximum) {
+        this.maximum = maximum;
+    }
+}
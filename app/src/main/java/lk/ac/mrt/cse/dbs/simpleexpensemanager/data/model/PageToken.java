@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+/**
+ * This holds the position of a page boundary in the transaction log, ordered by date and then transaction id. It is
+ * handed to callers only in its encoded form, which they should treat as opaque.
+ */
+public final class PageToken {
+    private final boolean older;
+    private final long date;
+    private final long transactionId;
+
+    public PageToken(boolean older, long date, long transactionId) {
+        this.older = older;
+        this.date = date;
+        this.transactionId = transactionId;
+    }
+
+    /***
+     * Whether the page requested by this token lies before the boundary (older entries) or after it (newer entries).
+     *
+     * @return - true for older entries
+     */
+    public boolean isOlder() {
+        return older;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public String encode() {
+        return (older ? "o" : "n") + Long.toString(date, 36) + "." + Long.toString(transactionId, 36);
+    }
+
+    /***
+     * Decode a token produced by encode.
+     *
+     * @param token - the encoded token
+     * @return - the decoded token
+     * @throws IllegalArgumentException - if the token is malformed
+     */
+    public static PageToken decode(String token) {
+        int separator = token.indexOf('.');
+        if (token.length() < 4 || separator < 2 || (token.charAt(0) != 'o' && token.charAt(0) != 'n')) {
+            throw new IllegalArgumentException("Invalid page token " + token);
+        }
+        try {
+            long date = Long.parseLong(token.substring(1, separator), 36);
+            long transactionId = Long.parseLong(token.substring(separator + 1), 36);
+            return new PageToken(token.charAt(0) == 'o', date, transactionId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token " + token, e);
+        }
+    }
+}
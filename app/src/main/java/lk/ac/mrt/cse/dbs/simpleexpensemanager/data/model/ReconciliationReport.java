@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This POJO holds the outcome of a reconciliation run, which checked the transactions logged after the previous run
+ * against the account balances.
+ */
+public class ReconciliationReport {
+    private final long fromTransactionId;
+    private final long toTransactionId;
+    private final long scannedTransactions;
+    private final int checkedAccounts;
+    private final int baselinedAccounts;
+    private final List<BalanceMismatch> mismatches;
+    private final boolean repaired;
+
+    public ReconciliationReport(long fromTransactionId, long toTransactionId, long scannedTransactions,
+                                int checkedAccounts, int baselinedAccounts, List<BalanceMismatch> mismatches,
+                                boolean repaired) {
+        this.fromTransactionId = fromTransactionId;
+        this.toTransactionId = toTransactionId;
+        this.scannedTransactions = scannedTransactions;
+        this.checkedAccounts = checkedAccounts;
+        this.baselinedAccounts = baselinedAccounts;
+        this.mismatches = Collections.unmodifiableList(mismatches);
+        this.repaired = repaired;
+    }
+
+    /***
+     * @return - the id after which transactions were scanned, the oldest checkpoint of the run
+     */
+    public long getFromTransactionId() {
+        return fromTransactionId;
+    }
+
+    /***
+     * @return - the id of the newest transaction scanned, where every checkpoint now stands
+     */
+    public long getToTransactionId() {
+        return toTransactionId;
+    }
+
+    public long getScannedTransactions() {
+        return scannedTransactions;
+    }
+
+    public int getCheckedAccounts() {
+        return checkedAccounts;
+    }
+
+    /***
+     * @return - the accounts without a checkpoint, whose recorded balance was taken as correct
+     */
+    public int getBaselinedAccounts() {
+        return baselinedAccounts;
+    }
+
+    public List<BalanceMismatch> getMismatches() {
+        return mismatches;
+    }
+
+    /***
+     * @return - true if the mismatched balances were set to the expected ones
+     */
+    public boolean isRepaired() {
+        return repaired;
+    }
+}
@@ -22,8 +22,17 @@ import java.util.Date;
  * This POJO holds the information regarding a single transaction.
  */
 public class Transaction {
+    private long transactionId;
     private Date date;
 
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(long transactionId) {
+        this.transactionId = transactionId;
+    }
+
     public Date getDate() {
         return date;
     }
@@ -49,22 +58,47 @@ public class Transaction {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toDouble(amount);
     }
 
     public void setAmount(double amount) {
+        this.amount = Money.fromDouble(amount);
+    }
+
+    public long getAmountMinor() {
+        return amount;
+    }
+
+    public void setAmountMinor(long amount) {
         this.amount = amount;
     }
 
     private String accountNo;
     private ExpenseType expenseType;
-    private double amount;
+    /* amount in minor units, see Money */
+    private long amount;
 
     public Transaction(Date date, String accountNo,
                        ExpenseType expenseType, double amount) {
         this.date = date;
         this.accountNo = accountNo;
         this.expenseType = expenseType;
-        this.amount = amount;
+        this.amount = Money.fromDouble(amount);
+    }
+
+    public Transaction(long transactionId, Date date, String accountNo,
+                       ExpenseType expenseType, double amount) {
+        this(date, accountNo, expenseType, amount);
+        this.transactionId = transactionId;
+    }
+
+    /***
+     * Create a transaction with its amount given in minor units.
+     */
+    public static Transaction ofMinorUnits(long transactionId, Date date, String accountNo,
+                                           ExpenseType expenseType, long amount) {
+        Transaction transaction = new Transaction(transactionId, date, accountNo, expenseType, 0);
+        transaction.amount = amount;
+        return transaction;
     }
 }
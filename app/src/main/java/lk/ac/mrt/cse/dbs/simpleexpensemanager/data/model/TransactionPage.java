@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+import java.util.List;
+
+/**
+ * This holds one page of the transaction log, newest transaction first, together with the tokens for fetching the
+ * neighbouring pages.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;
+    private final String olderPageToken;
+    private final String newerPageToken;
+
+    public TransactionPage(List<Transaction> transactions, String olderPageToken, String newerPageToken) {
+        this.transactions = transactions;
+        this.olderPageToken = olderPageToken;
+        this.newerPageToken = newerPageToken;
+    }
+
+    /***
+     * Build a page from transactions ordered newest first.
+     *
+     * @param transactions - the transactions of the page, newest first
+     * @param hasOlder     - whether there are transactions older than this page
+     * @param hasNewer     - whether there are transactions newer than this page
+     * @return - the page with its continuation tokens
+     */
+    public static TransactionPage of(List<Transaction> transactions, boolean hasOlder, boolean hasNewer) {
+        if (transactions.isEmpty()) {
+            return new TransactionPage(transactions, null, null);
+        }
+        Transaction newest = transactions.get(0);
+        Transaction oldest = transactions.get(transactions.size() - 1);
+        String older = hasOlder ? new PageToken(true, oldest.getDate().getTime(), oldest.getTransactionId()).encode() : null;
+        String newer = hasNewer ? new PageToken(false, newest.getDate().getTime(), newest.getTransactionId()).encode() : null;
+        return new TransactionPage(transactions, older, newer);
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /***
+     * Get the token of the page before this one.
+     *
+     * @return - the token, or null if there are no older transactions
+     */
+    public String getOlderPageToken() {
+        return olderPageToken;
+    }
+
+    /***
+     * Get the token of the page after this one.
+     *
+     * @return - the token, or null if there were no newer transactions when this page was read
+     */
+    public String getNewerPageToken() {
+        return newerPageToken;
+    }
+}
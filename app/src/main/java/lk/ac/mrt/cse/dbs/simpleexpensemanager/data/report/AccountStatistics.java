@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This POJO holds the statistics of the transactions of one type on one account over the range of a report.
+ * Amounts are in minor units, see Money.
+ */
+public class AccountStatistics {
+    private final String accountNo;
+    private final ExpenseType expenseType;
+    private final long count;
+    private final long total;
+    private final List<Transaction> largest;
+
+    public AccountStatistics(String accountNo, ExpenseType expenseType, long count, long total,
+                             List<Transaction> largest) {
+        this.accountNo = accountNo;
+        this.expenseType = expenseType;
+        this.count = count;
+        this.total = total;
+        this.largest = largest;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public ExpenseType getExpenseType() {
+        return expenseType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /***
+     * @return - the mean amount in minor units, 0 if there are no transactions
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : total / (double) count;
+    }
+
+    /***
+     * @return - the largest transactions, largest first
+     */
+    public List<Transaction> getLargest() {
+        return largest;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+import java.util.Calendar;
+
+/**
+ * The length of the periods a report breaks the net flow of each account into. Periods are identified by an int
+ * in the local time zone: yyyymmdd for days, yyyymm for months, like MonthlyTotal, and yyyy for years.
+ */
+public enum Period {
+    DAY(Calendar.DAY_OF_MONTH),
+    MONTH(Calendar.MONTH),
+    YEAR(Calendar.YEAR);
+
+    private final int field;
+
+    Period(int field) {
+        this.field = field;
+    }
+
+    /***
+     * Move a calendar back to the start of the period it is in.
+     *
+     * @param calendar - the calendar, changed in place
+     */
+    void truncate(Calendar calendar) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (this != DAY) calendar.set(Calendar.DAY_OF_MONTH, 1);
+        if (this == YEAR) calendar.set(Calendar.MONTH, Calendar.JANUARY);
+    }
+
+    /***
+     * Move a calendar to the start of the next period.
+     *
+     * @param calendar - a calendar at the start of a period, changed in place
+     */
+    void next(Calendar calendar) {
+        calendar.add(field, 1);
+    }
+
+    int keyOf(Calendar calendar) {
+        int year = calendar.get(Calendar.YEAR);
+        switch (this) {
+            case DAY:
+                return (year * 100 + calendar.get(Calendar.MONTH) + 1) * 100 + calendar.get(Calendar.DAY_OF_MONTH);
+            case MONTH:
+                return year * 100 + calendar.get(Calendar.MONTH) + 1;
+            default:
+                return year;
+        }
+    }
+}
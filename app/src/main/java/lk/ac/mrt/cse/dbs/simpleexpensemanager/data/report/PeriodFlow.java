@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+/**
+ * This POJO holds the money which went into and out of one account in one period of a report. Amounts are in minor
+ * units, see Money.
+ */
+public class PeriodFlow {
+    private final int period;
+    private final String accountNo;
+    private final long income;
+    private final long expense;
+
+    public PeriodFlow(int period, String accountNo, long income, long expense) {
+        this.period = period;
+        this.accountNo = accountNo;
+        this.income = income;
+        this.expense = expense;
+    }
+
+    /***
+     * @return - the period, see Period for its format
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public long getIncome() {
+        return income;
+    }
+
+    public long getExpense() {
+        return expense;
+    }
+
+    public long getNet() {
+        return income - expense;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The result of a report over a date range: statistics per account and expense type, sorted by account number and
+ * type, and the net flow of each account per period, sorted by period and account number.
+ */
+public class Report {
+    private final Date from;
+    private final Date to;
+    private final Period period;
+    private final long transactionCount;
+    private final List<AccountStatistics> statistics;
+    private final List<PeriodFlow> flows;
+
+    public Report(Date from, Date to, Period period, long transactionCount, List<AccountStatistics> statistics,
+                  List<PeriodFlow> flows) {
+        this.from = from;
+        this.to = to;
+        this.period = period;
+        this.transactionCount = transactionCount;
+        this.statistics = statistics;
+        this.flows = flows;
+    }
+
+    /***
+     * @return - start of the range, inclusive
+     */
+    public Date getFrom() {
+        return from;
+    }
+
+    /***
+     * @return - end of the range, exclusive
+     */
+    public Date getTo() {
+        return to;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public List<AccountStatistics> getStatistics() {
+        return statistics;
+    }
+
+    public List<PeriodFlow> getFlows() {
+        return flows;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Accumulates the statistics of the transactions of one slice of a report. Each slice is scanned by one thread into
+ * its own accumulator, and the accumulators are merged once all slices are done, so no state is shared while
+ * scanning. Not thread safe.
+ */
+class ReportAccumulator implements TransactionVisitor {
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+    private static final int INCOME = 0;
+    private static final int EXPENSE = 1;
+    /* smallest amount first, so that the head of a queue is the entry to drop when a larger one comes along */
+    private static final Comparator<Transaction> BY_AMOUNT = new Comparator<Transaction>() {
+        @Override
+        public int compare(Transaction a, Transaction b) {
+            long x = a.getAmountMinor();
+            long y = b.getAmountMinor();
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+    };
+
+    private final Period period;
+    private final int largestEntries;
+    private final Map<String, AccountEntry> accounts = new HashMap<>();
+    private final Calendar calendar = Calendar.getInstance();
+    private long transactionCount;
+    /* the period the last transaction fell in, which the next one most likely falls in too since scans are in date order */
+    private long periodStart = Long.MAX_VALUE;
+    private long periodEnd = Long.MIN_VALUE;
+    private int periodKey;
+
+    /***
+     * @param period         - length of the periods the net flow is broken into
+     * @param largestEntries - number of largest transactions kept per account and type
+     */
+    ReportAccumulator(Period period, int largestEntries) {
+        this.period = period;
+        this.largestEntries = largestEntries;
+    }
+
+    @Override
+    public boolean visit(Transaction transaction) {
+        long date = transaction.getDate().getTime();
+        if (date < periodStart || date >= periodEnd) {
+            calendar.setTimeInMillis(date);
+            period.truncate(calendar);
+            periodStart = calendar.getTimeInMillis();
+            periodKey = period.keyOf(calendar);
+            period.next(calendar);
+            periodEnd = calendar.getTimeInMillis();
+        }
+        AccountEntry account = accounts.get(transaction.getAccountNo());
+        if (account == null) {
+            account = new AccountEntry();
+            accounts.put(transaction.getAccountNo(), account);
+        }
+        account.add(transaction, periodKey, largestEntries);
+        transactionCount++;
+        return true;
+    }
+
+    /***
+     * Add the statistics of another slice to this one.
+     *
+     * @param other - the other accumulator, which must not be used afterwards
+     */
+    void merge(ReportAccumulator other) {
+        transactionCount += other.transactionCount;
+        for (Map.Entry<String, AccountEntry> entry : other.accounts.entrySet()) {
+            AccountEntry account = accounts.get(entry.getKey());
+            if (account == null) {
+                accounts.put(entry.getKey(), entry.getValue());
+            } else {
+                account.merge(entry.getValue(), largestEntries);
+            }
+        }
+    }
+
+    Report toReport(Date from, Date to) {
+        List<String> accountNumbers = new ArrayList<>(accounts.keySet());
+        Collections.sort(accountNumbers);
+        List<AccountStatistics> statistics = new ArrayList<>();
+        TreeMap<Integer, List<PeriodFlow>> flowsByPeriod = new TreeMap<>();
+        for (String accountNo : accountNumbers) {
+            AccountEntry account = accounts.get(accountNo);
+            for (ExpenseType type : EXPENSE_TYPES) {
+                int i = type.ordinal();
+                if (account.counts[i] == 0) continue;
+                List<Transaction> largest = new ArrayList<>(account.largest.get(i));
+                Collections.sort(largest, Collections.reverseOrder(BY_AMOUNT));
+                statistics.add(new AccountStatistics(accountNo, type, account.counts[i], account.totals[i], largest));
+            }
+            for (Map.Entry<Integer, long[]> flow : account.flows.entrySet()) {
+                List<PeriodFlow> flows = flowsByPeriod.get(flow.getKey());
+                if (flows == null) {
+                    flows = new ArrayList<>();
+                    flowsByPeriod.put(flow.getKey(), flows);
+                }
+                long[] amounts = flow.getValue();
+                flows.add(new PeriodFlow(flow.getKey(), accountNo, amounts[INCOME], amounts[EXPENSE]));
+            }
+        }
+        List<PeriodFlow> flows = new ArrayList<>();
+        for (List<PeriodFlow> periodFlows : flowsByPeriod.values()) {
+            flows.addAll(periodFlows);
+        }
+        return new Report(from, to, period, transactionCount, statistics, flows);
+    }
+
+    private static final class AccountEntry {
+        final long[] counts = new long[EXPENSE_TYPES.length];
+        final long[] totals = new long[EXPENSE_TYPES.length];
+        final List<PriorityQueue<Transaction>> largest = new ArrayList<>(EXPENSE_TYPES.length);
+        /* period -> {income, expense} */
+        final Map<Integer, long[]> flows = new HashMap<>();
+        int flowKey;
+        long[] flow;
+
+        AccountEntry() {
+            for (int i = 0; i < EXPENSE_TYPES.length; i++) {
+                largest.add(new PriorityQueue<>(11, BY_AMOUNT));
+            }
+        }
+
+        void add(Transaction transaction, int periodKey, int largestEntries) {
+            int type = transaction.getExpenseType().ordinal();
+            long amount = transaction.getAmountMinor();
+            counts[type]++;
+            totals[type] += amount;
+            offer(largest.get(type), transaction, largestEntries);
+            if (flow == null || flowKey != periodKey) {
+                flowKey = periodKey;
+                flow = flows.get(periodKey);
+                if (flow == null) {
+                    flow = new long[2];
+                    flows.put(periodKey, flow);
+                }
+            }
+            flow[transaction.getExpenseType() == ExpenseType.INCOME ? INCOME : EXPENSE] += amount;
+        }
+
+        void merge(AccountEntry other, int largestEntries) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                totals[i] += other.totals[i];
+                for (Transaction transaction : other.largest.get(i)) {
+                    offer(largest.get(i), transaction, largestEntries);
+                }
+            }
+            for (Map.Entry<Integer, long[]> entry : other.flows.entrySet()) {
+                long[] flow = flows.get(entry.getKey());
+                if (flow == null) {
+                    flows.put(entry.getKey(), entry.getValue());
+                } else {
+                    flow[INCOME] += entry.getValue()[INCOME];
+                    flow[EXPENSE] += entry.getValue()[EXPENSE];
+                }
+            }
+            this.flow = null;
+        }
+
+        private static void offer(PriorityQueue<Transaction> queue, Transaction transaction, int limit) {
+            if (queue.size() < limit) {
+                queue.add(transaction);
+            } else if (limit > 0 && queue.peek().getAmountMinor() < transaction.getAmountMinor()) {
+                queue.poll();
+                queue.add(transaction);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Computes reports over the transaction log in parallel. The date range of a report is split into slices, each slice
+ * is read with a range scan of the TransactionDAO into its own ReportAccumulator on a pool of threads, and the
+ * accumulators are merged at the end, so a report never holds the log in memory and no locks are taken while
+ * scanning. There are several slices per thread, so that a busy stretch of the log does not leave the other threads
+ * idle while one slice is still being scanned.
+ */
+public class ReportEngine {
+    public static final int DEFAULT_LARGEST_ENTRIES = 5;
+    private static final int SLICES_PER_THREAD = 4;
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static ExecutorService sharedExecutor;
+
+    private final TransactionDAO transactionDAO;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /***
+     * Create an engine which runs on a pool shared by the whole process, with one thread per core.
+     *
+     * @param transactionDAO - the log to report on; it must allow concurrent range scans
+     */
+    public ReportEngine(TransactionDAO transactionDAO) {
+        this(transactionDAO, sharedExecutor(), PARALLELISM);
+    }
+
+    /***
+     * @param transactionDAO - the log to report on; it must allow concurrent range scans
+     * @param executor       - runs the scans of the slices
+     * @param parallelism    - number of threads of the executor the report may use
+     */
+    public ReportEngine(TransactionDAO transactionDAO, ExecutorService executor, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive");
+        this.transactionDAO = transactionDAO;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /***
+     * Report on the whole log.
+     *
+     * @param period - length of the periods the net flow is broken into
+     * @return - the report, covering the oldest to the newest transaction
+     */
+    public Report generate(Period period) {
+        Transaction oldest = first(false);
+        if (oldest == null) return generate(new Date(0), new Date(0), period, DEFAULT_LARGEST_ENTRIES);
+        Transaction newest = first(true);
+        return generate(oldest.getDate(), new Date(newest.getDate().getTime() + 1), period, DEFAULT_LARGEST_ENTRIES);
+    }
+
+    /***
+     * Report on the transactions of a date range.
+     *
+     * @param from           - start of the range, inclusive
+     * @param to             - end of the range, exclusive
+     * @param period         - length of the periods the net flow is broken into
+     * @param largestEntries - number of largest transactions listed per account and type
+     * @return - the report
+     */
+    public Report generate(Date from, Date to, final Period period, final int largestEntries) {
+        long start = from.getTime();
+        long end = to.getTime();
+        if (end <= start) return new ReportAccumulator(period, largestEntries).toReport(from, to);
+
+        int slices = (int) Math.min(parallelism * SLICES_PER_THREAD, end - start);
+        long step = (end - start) / slices;
+        List<Future<ReportAccumulator>> results = new ArrayList<>(slices);
+        try {
+            for (int i = 0; i < slices; i++) {
+                final Date sliceFrom = new Date(start + step * i);
+                final Date sliceTo = new Date(i == slices - 1 ? end : start + step * (i + 1));
+                results.add(executor.submit(new Callable<ReportAccumulator>() {
+                    @Override
+                    public ReportAccumulator call() {
+                        ReportAccumulator accumulator = new ReportAccumulator(period, largestEntries);
+                        transactionDAO.scanTransactions(sliceFrom, sliceTo, false, accumulator);
+                        return accumulator;
+                    }
+                }));
+            }
+            ReportAccumulator report = results.get(0).get();
+            for (int i = 1; i < slices; i++) {
+                report.merge(results.get(i).get());
+            }
+            return report.toReport(from, to);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating a report", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Unable to generate a report", cause);
+        } finally {
+            // after a failure, do not leave the other slices running
+            for (Future<ReportAccumulator> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    private Transaction first(boolean newestFirst) {
+        final Transaction[] first = new Transaction[1];
+        transactionDAO.scanTransactions(newestFirst, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                first[0] = transaction;
+                return false;
+            }
+        });
+        return first[0];
+    }
+
+    private static synchronized ExecutorService sharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "expense-report-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sharedExecutor;
+    }
+}
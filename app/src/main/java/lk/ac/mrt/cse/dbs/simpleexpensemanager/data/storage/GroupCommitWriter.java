@@ -0,0 +1,305 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Group commit for transactions. Transactions are queued in memory and a single background writer commits them to the
+ * database in groups, either when a group reaches the configured size, when someone waits for it, or when the oldest
+ * queued transaction has waited for the configured interval.
+ * <p/>
+ * write returns only once the group of its transaction is committed, and tells whether the transaction made it, so
+ * nothing it acknowledged can be lost. Threads writing at the same time still share one database transaction: while
+ * one group is being committed the next one fills up. submit only queues; what it queued is lost if the process dies
+ * before the group is committed, and a transaction which cannot be committed is counted and logged, and reported only
+ * to a caller which waits for it with awaitCommitted, so it is for callers which can afford that or which wait.
+ */
+public class GroupCommitWriter {
+    private static final Logger LOG = Logger.getLogger(GroupCommitWriter.class.getName());
+
+    private final LedgerStore ledgerStore;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Object lock = new Object();
+    /* All of the following are guarded by lock. Tickets are the running count of submitted transactions. */
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private long submitted;
+    private long completed;
+    private long flushRequested;
+    private long failed;
+    /* tickets of the transactions which could not be committed, until write or awaitCommitted picks them up; those of
+    submitted transactions nobody waits for stay, but failures are rare */
+    private final Set<Long> failedTickets = new HashSet<>();
+    private long oldestPendingSince;
+    private boolean closed;
+    private Thread worker;
+
+    /***
+     * @param ledgerStore    - store the transactions are committed to
+     * @param maxBatchSize   - maximum number of transactions committed together
+     * @param maxDelayMillis - longest time a transaction waits in the queue before its group is committed
+     */
+    public GroupCommitWriter(LedgerStore ledgerStore, int maxBatchSize, long maxDelayMillis) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.ledgerStore = ledgerStore;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayMillis * 1000000L;
+    }
+
+    /***
+     * Queue a transaction to be logged.
+     *
+     * @param transaction  - the transaction
+     * @param applyBalance - whether the transaction also changes the balance of its account
+     * @return - ticket which can be passed to awaitCommitted
+     */
+    public long submit(Transaction transaction, boolean applyBalance) {
+        synchronized (lock) {
+            return enqueue(transaction, applyBalance, false);
+        }
+    }
+
+    /***
+     * Log a transaction and wait until it is committed. The group is committed right away rather than after the
+     * interval, together with whatever other threads have queued by then.
+     *
+     * @param transaction  - the transaction
+     * @param applyBalance - whether the transaction also changes the balance of its account
+     * @return - true if the transaction was committed, false if it could not be, for example because its account was
+     * removed
+     */
+    public boolean write(Transaction transaction, boolean applyBalance) {
+        boolean interrupted = false;
+        try {
+            synchronized (lock) {
+                long ticket = enqueue(transaction, applyBalance, true);
+                requestFlush(ticket);
+                // once queued the transaction is committed whatever happens to this thread, so it waits for the outcome
+                while (completed < ticket) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                return !failedTickets.remove(ticket);
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /***
+     * Queue a transaction. Called with the lock held.
+     */
+    private long enqueue(Transaction transaction, boolean applyBalance, boolean awaited) {
+        if (closed) throw new IllegalStateException("The writer is closed");
+        if (pending.isEmpty()) oldestPendingSince = System.nanoTime();
+        submitted++;
+        pending.add(new Entry(transaction, applyBalance, submitted, awaited));
+        if (worker == null) {
+            worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "expense-group-commit");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        if (pending.size() >= maxBatchSize) lock.notifyAll();
+        return submitted;
+    }
+
+    /***
+     * Wait until the transaction with the given ticket has been committed, or given up on if it could not be. Only
+     * the first wait for a ticket which failed is told so.
+     *
+     * @param ticket        - ticket returned by submit
+     * @param timeoutMillis - maximum time to wait
+     * @return - true if the transaction was committed within the timeout, false if it could not be committed or the
+     * timeout passed first
+     * @throws InterruptedException - if the calling thread is interrupted while waiting
+     */
+    public boolean awaitCommitted(long ticket, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        synchronized (lock) {
+            requestFlush(ticket);
+            while (completed < ticket) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                lock.wait(Math.max(1, remaining / 1000000L));
+            }
+            return !failedTickets.remove(ticket);
+        }
+    }
+
+    /***
+     * Commit everything submitted so far and wait until it is durable. Returns immediately if nothing is queued.
+     */
+    public void flush() {
+        boolean interrupted = false;
+        synchronized (lock) {
+            long target = submitted;
+            requestFlush(target);
+            while (completed < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /***
+     * Whether there are transactions which have been submitted but not yet committed.
+     *
+     * @return - true if a flush would have to wait
+     */
+    public boolean hasPending() {
+        synchronized (lock) {
+            return completed < submitted;
+        }
+    }
+
+    /***
+     * Number of transactions, written or submitted, which could not be committed, for example because their account was
+     * removed.
+     *
+     * @return - count of failed transactions
+     */
+    public long getFailedCount() {
+        synchronized (lock) {
+            return failed;
+        }
+    }
+
+    /***
+     * Commit everything queued and stop the background writer. No transactions can be submitted afterwards.
+     */
+    public void close() {
+        flush();
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void requestFlush(long ticket) {
+        if (ticket > flushRequested) {
+            flushRequested = ticket;
+            lock.notifyAll();
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            synchronized (lock) {
+                while (!isBatchDue()) {
+                    if (closed) return;
+                    try {
+                        if (pending.isEmpty()) {
+                            lock.wait();
+                        } else {
+                            long remaining = maxDelayNanos - (System.nanoTime() - oldestPendingSince);
+                            lock.wait(Math.max(1, remaining / 1000000L));
+                        }
+                    } catch (InterruptedException e) {
+                        // the writer only stops when closed
+                    }
+                }
+                while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+                    batch.add(pending.poll());
+                }
+                // the remaining entries are at least as old as the group being committed
+                if (!pending.isEmpty()) oldestPendingSince = System.nanoTime() - maxDelayNanos;
+            }
+            List<Entry> failures = commit(batch);
+            synchronized (lock) {
+                completed += batch.size();
+                failed += failures.size();
+                for (Entry entry : failures) {
+                    failedTickets.add(entry.ticket);
+                }
+                lock.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean isBatchDue() {
+        if (pending.isEmpty()) return false;
+        return pending.size() >= maxBatchSize || flushRequested > completed
+                || System.nanoTime() - oldestPendingSince >= maxDelayNanos;
+    }
+
+    /***
+     * Commit a group in one database transaction. If that fails, the group is retried one transaction at a time so
+     * that a single bad transaction does not take the rest of the group down with it.
+     *
+     * @return - the entries which could not be committed
+     */
+    private List<Entry> commit(List<Entry> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        boolean[] applyBalance = new boolean[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            transactions.add(batch.get(i).transaction);
+            applyBalance[i] = batch.get(i).applyBalance;
+        }
+        if (ledgerStore.writeTransactions(transactions, applyBalance)) return Collections.emptyList();
+
+        List<Entry> failures = new ArrayList<>();
+        for (Entry entry : batch) {
+            boolean written = entry.applyBalance ? ledgerStore.postTransaction(entry.transaction)
+                    : ledgerStore.logTransactions(Collections.singletonList(entry.transaction));
+            if (!written) {
+                failures.add(entry);
+                // whoever called write hears about it; a submitted one is only heard about if someone awaits it
+                if (!entry.awaited) {
+                    LOG.warning("Unable to commit a transaction of account " + entry.transaction.getAccountNo());
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static final class Entry {
+        final Transaction transaction;
+        final boolean applyBalance;
+        final long ticket;
+        final boolean awaited;
+
+        Entry(Transaction transaction, boolean applyBalance, long ticket, boolean awaited) {
+            this.transaction = transaction;
+            this.applyBalance = applyBalance;
+            this.ticket = ticket;
+            this.awaited = awaited;
+        }
+    }
+}
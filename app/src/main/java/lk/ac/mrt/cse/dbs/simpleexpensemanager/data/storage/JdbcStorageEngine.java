@@ -0,0 +1,337 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage engine which opens the database through a JDBC driver for SQLite, such as sqlite-jdbc, so that the ledger
+ * can be stored and load tested on a plain JVM. The schema version is kept in user_version, as the Android framework
+ * does, so a database file can be moved between the two engines.
+ */
+public class JdbcStorageEngine implements StorageEngine {
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    private final String url;
+
+    /***
+     * @param url - JDBC url of the database, e.g. jdbc:sqlite:/path/to/file
+     */
+    public JdbcStorageEngine(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public SqlConnection openWriter(Schema schema) {
+        JdbcConnection connection = open();
+        try {
+            connection.execute("pragma journal_mode = wal");
+            int version = (int) connection.prepareAndQueryForLong("pragma user_version");
+            int newVersion = schema.getVersion();
+            if (version > newVersion) {
+                throw new StorageException("Cannot downgrade " + url + " from version " + version + " to " + newVersion, null);
+            }
+            if (version < newVersion) {
+                connection.beginTransaction();
+                try {
+                    if (version == 0) {
+                        schema.onCreate(connection);
+                    } else {
+                        schema.onUpgrade(connection, version, newVersion);
+                    }
+                    connection.execute("pragma user_version = " + newVersion);
+                    connection.setTransactionSuccessful();
+                } finally {
+                    connection.endTransaction();
+                }
+            }
+            schema.onOpen(connection);
+            return connection;
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public SqlConnection openReader() {
+        JdbcConnection connection = open();
+        connection.execute("pragma query_only = 1");
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        // every connection is closed by whoever opened it
+    }
+
+    private JdbcConnection open() {
+        try {
+            JdbcConnection connection = new JdbcConnection(DriverManager.getConnection(url));
+            connection.execute("pragma busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            return connection;
+        } catch (SQLException e) {
+            throw new StorageException("Unable to open " + url, e);
+        }
+    }
+
+    /***
+     * A JDBC connection left in auto-commit mode, with transactions begun and ended by statements so that they can be
+     * nested the way the Android framework nests them.
+     */
+    private static class JdbcConnection implements SqlConnection {
+        private final Connection connection;
+        /* whether each open transaction level has been marked successful, outermost first */
+        private final List<Boolean> levels = new ArrayList<>();
+        private boolean failed;
+
+        JdbcConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void execute(String sql) {
+            try {
+                Statement statement = connection.createStatement();
+                try {
+                    statement.execute(sql);
+                } finally {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Unable to execute " + sql, e);
+            }
+        }
+
+        @Override
+        public SqlStatement prepare(String sql) {
+            try {
+                return new JdbcStatement(connection, connection.prepareStatement(sql));
+            } catch (SQLException e) {
+                throw new StorageException("Unable to prepare " + sql, e);
+            }
+        }
+
+        @Override
+        public SqlCursor query(String sql, String[] args) {
+            try {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                try {
+                    if (args != null) {
+                        for (int i = 0; i < args.length; i++) {
+                            statement.setString(i + 1, args[i]);
+                        }
+                    }
+                    return new JdbcCursor(statement, statement.executeQuery());
+                } catch (SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Unable to query " + sql, e);
+            }
+        }
+
+        long prepareAndQueryForLong(String sql) {
+            SqlStatement statement = prepare(sql);
+            try {
+                return statement.simpleQueryForLong();
+            } finally {
+                statement.close();
+            }
+        }
+
+        @Override
+        public void beginTransaction() {
+            if (levels.isEmpty()) {
+                // the writer is the only connection which writes, so taking the write lock up front cannot deadlock
+                execute("begin immediate");
+                failed = false;
+            }
+            levels.add(Boolean.FALSE);
+        }
+
+        @Override
+        public void setTransactionSuccessful() {
+            if (levels.isEmpty()) throw new IllegalStateException("No transaction is open");
+            levels.set(levels.size() - 1, Boolean.TRUE);
+        }
+
+        @Override
+        public void endTransaction() {
+            if (levels.isEmpty()) throw new IllegalStateException("No transaction is open");
+            if (!levels.remove(levels.size() - 1)) failed = true;
+            if (levels.isEmpty()) {
+                execute(failed ? "rollback" : "commit");
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            try {
+                return !connection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private static class JdbcStatement implements SqlStatement {
+        private final Connection connection;
+        private final PreparedStatement statement;
+
+        JdbcStatement(Connection connection, PreparedStatement statement) {
+            this.connection = connection;
+            this.statement = statement;
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            try {
+                statement.setString(index, value);
+            } catch (SQLException e) {
+                throw new StorageException("Unable to bind parameter " + index, e);
+            }
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            try {
+                statement.setLong(index, value);
+            } catch (SQLException e) {
+                throw new StorageException("Unable to bind parameter " + index, e);
+            }
+        }
+
+        @Override
+        public long executeInsert() {
+            try {
+                if (statement.executeUpdate() == 0) return -1;
+                Statement rowId = connection.createStatement();
+                try {
+                    ResultSet resultSet = rowId.executeQuery("select last_insert_rowid()");
+                    return resultSet.next() ? resultSet.getLong(1) : -1;
+                } finally {
+                    rowId.close();
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Unable to insert", e);
+            }
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            try {
+                return statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new StorageException("Unable to update", e);
+            }
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            try {
+                ResultSet resultSet = statement.executeQuery();
+                try {
+                    if (!resultSet.next()) throw new StorageException("The query returned no rows", null);
+                    return resultSet.getLong(1);
+                } finally {
+                    resultSet.close();
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Unable to query", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private static class JdbcCursor implements SqlCursor {
+        private final Statement statement;
+        private final ResultSet resultSet;
+
+        JdbcCursor(Statement statement, ResultSet resultSet) {
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean moveToNext() {
+            try {
+                return resultSet.next();
+            } catch (SQLException e) {
+                throw new StorageException("Unable to read the next row", e);
+            }
+        }
+
+        @Override
+        public String getString(int column) {
+            try {
+                return resultSet.getString(column + 1);
+            } catch (SQLException e) {
+                throw new StorageException("Unable to read column " + column, e);
+            }
+        }
+
+        @Override
+        public long getLong(int column) {
+            try {
+                return resultSet.getLong(column + 1);
+            } catch (SQLException e) {
+                throw new StorageException("Unable to read column " + column, e);
+            }
+        }
+
+        @Override
+        public int getInt(int column) {
+            try {
+                return resultSet.getInt(column + 1);
+            } catch (SQLException e) {
+                throw new StorageException("Unable to read column " + column, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
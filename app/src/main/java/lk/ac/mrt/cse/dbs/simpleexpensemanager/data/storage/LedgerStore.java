@@ -0,0 +1,1289 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.BalanceMismatch;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlyTotal;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.PageToken;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ReconciliationReport;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stores accounts and transactions in a SQLite database opened through a StorageEngine, and owns its schema. A single
+ * writer connection is opened on first use and kept open for the life of the process, with write-ahead logging enabled
+ * so that readers never wait on a writer. Reads are served from a small pool of read-only connections which are
+ * opened lazily and reused across calls.
+ */
+public class LedgerStore implements Schema {
+    private static final String ACCOUNT_TABLE = "accounts";
+    private static final String ACCOUNT_NO_FIELD = "accountNo";
+    private static final String BANK_NAME_FIELD = "bankName";
+    private static final String ACCOUNT_HOLDER_NAME_FIELD = "accountHolderName";
+    private static final String BALANCE_FIELD = "balance";
+    private static final String TRANSACTION_TABLE = "transactions";
+    private static final String EXPENSE_TYPE_FIELD = "expenseType";
+    private static final String AMOUNT_FIELD = "amount";
+    private static final String DATE_FIELD = "date";
+    private static final String TRANSACTION_ID_FIELD = "transactionID";
+    private static final String LEGACY_TRANSACTION_TABLE = "transactions_legacy";
+    private static final String MONTHLY_TOTAL_TABLE = "monthly_totals";
+    private static final String MONTH_FIELD = "month";
+    private static final String COUNT_FIELD = "count";
+    private static final String TOTAL_FIELD = "total";
+    private static final String META_TABLE = "meta";
+    private static final String KEY_FIELD = "key";
+    private static final String VALUE_FIELD = "value";
+    private static final String SEEDED_KEY = "seeded";
+    private static final String CHECKPOINT_TABLE = "reconciliation_checkpoints";
+    private static final String MINIMUM_FIELD = "minimum";
+    private static final String MAXIMUM_FIELD = "maximum";
+    /* Version 1 stored the date as varchar. Version 2 stores it as integer epoch millis and adds indexes. Version 3
+    stores amounts and balances as integer minor units instead of real. Version 4 adds the monthly totals. Version 5
+    adds the meta table. Version 6 adds the reconciliation checkpoints. */
+    private static final int DATABASE_VERSION = 6;
+    private static final String CONVERT_DATE = "cast(" + DATE_FIELD + " as integer)";
+    private static final String CONVERT_AMOUNT = "cast(round(" + AMOUNT_FIELD + " * 100) as integer)";
+    private static final int MIGRATION_CHUNK_SIZE = 5000;
+    private static final int READER_POOL_SIZE = 2;
+    private static final int SCAN_WINDOW_SIZE = 256;
+    private static final String TRANSACTION_COLUMNS = TRANSACTION_ID_FIELD + ", " + ACCOUNT_NO_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + AMOUNT_FIELD + ", " + DATE_FIELD;
+    private static final String NEWEST_FIRST = " order by " + DATE_FIELD + " desc, " + TRANSACTION_ID_FIELD + " desc limit ";
+    private static final String OLDEST_FIRST = " order by " + DATE_FIELD + " asc, " + TRANSACTION_ID_FIELD + " asc limit ";
+
+    private final StorageEngine engine;
+    private volatile StorageErrorListener errorListener;
+    private final Object statementLock = new Object();
+    private SqlConnection writer;
+    private SqlStatement insertTransactionStatement;
+    private SqlStatement balanceDeltaStatement;
+    private SqlStatement updateMonthlyTotalStatement;
+    private SqlStatement insertMonthlyTotalStatement;
+    private BlockingQueue<SqlConnection> idleReaders;
+    private int openReaders;
+
+    /***
+     * @param engine - the database the ledger is stored in
+     */
+    public LedgerStore(StorageEngine engine) {
+        this.engine = engine;
+    }
+
+    /***
+     * Set the listener told about the errors which the store recovers from instead of throwing.
+     *
+     * @param errorListener - the listener, or null for none
+     */
+    public void setErrorListener(StorageErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    private void reportError(String operation, RuntimeException e) {
+        StorageErrorListener listener = errorListener;
+        if (listener != null) listener.onStorageError(operation, e);
+    }
+
+    @Override
+    public int getVersion() {
+        return DATABASE_VERSION;
+    }
+
+    @Override
+    public void onCreate(SqlConnection connection) {
+        createAccountTable(connection);
+        createTransactionTable(connection);
+        createMonthlyTotalTable(connection);
+        createMetaTable(connection);
+        createCheckpointTable(connection);
+    }
+
+    private static void createAccountTable(SqlConnection connection) {
+        connection.execute(
+                "create table " + ACCOUNT_TABLE + " (" + ACCOUNT_NO_FIELD + " varchar(30) primary key, " + BANK_NAME_FIELD + " varchar(50), " + ACCOUNT_HOLDER_NAME_FIELD + " varchar(80), " + BALANCE_FIELD + " integer)"
+        );
+    }
+
+    private static void createTransactionTable(SqlConnection connection) {
+        connection.execute(
+                "create table " + TRANSACTION_TABLE + " (" + TRANSACTION_ID_FIELD + " integer primary key, " + ACCOUNT_NO_FIELD + " varchar(30), " + EXPENSE_TYPE_FIELD + " varchar(30), " + AMOUNT_FIELD + " integer, " + DATE_FIELD + " integer)"
+        );
+        connection.execute(
+                "create index " + TRANSACTION_TABLE + "_account_date_idx on " + TRANSACTION_TABLE + " (" + ACCOUNT_NO_FIELD + ", " + DATE_FIELD + ")"
+        );
+        connection.execute(
+                "create index " + TRANSACTION_TABLE + "_date_idx on " + TRANSACTION_TABLE + " (" + DATE_FIELD + ")"
+        );
+    }
+
+    private static void createMonthlyTotalTable(SqlConnection connection) {
+        connection.execute(
+                "create table " + MONTHLY_TOTAL_TABLE + " (" + ACCOUNT_NO_FIELD + " varchar(30), " + MONTH_FIELD + " integer, " + EXPENSE_TYPE_FIELD + " varchar(30), "
+                        + COUNT_FIELD + " integer, " + TOTAL_FIELD + " integer, " + MINIMUM_FIELD + " integer, " + MAXIMUM_FIELD + " integer, "
+                        + "primary key (" + ACCOUNT_NO_FIELD + ", " + MONTH_FIELD + ", " + EXPENSE_TYPE_FIELD + "))"
+        );
+    }
+
+    private static void createMetaTable(SqlConnection connection) {
+        connection.execute(
+                "create table " + META_TABLE + " (" + KEY_FIELD + " varchar(30) primary key, " + VALUE_FIELD + " integer)"
+        );
+    }
+
+    /***
+     * Every account has a checkpoint: the id of the newest transaction up to which its balance has been verified, and
+     * the balance its history adds up to at that point.
+     */
+    private static void createCheckpointTable(SqlConnection connection) {
+        connection.execute(
+                "create table " + CHECKPOINT_TABLE + " (" + ACCOUNT_NO_FIELD + " varchar(30) primary key, " + TRANSACTION_ID_FIELD + " integer, " + BALANCE_FIELD + " integer)"
+        );
+    }
+
+    /***
+     * Upgrade the schema without losing data. Only the table definitions are changed here, since this runs in a
+     * single transaction; the rows of a rebuilt table are copied over in chunks when the database is opened.
+     */
+    @Override
+    public void onUpgrade(SqlConnection connection, int oldVersion, int newVersion) {
+        if (oldVersion < 4) {
+            // finishing a legacy migration recomputes the totals, so the table has to exist first
+            createMonthlyTotalTable(connection);
+        }
+        if (oldVersion < 3) {
+            if (oldVersion == 2) {
+                // a copy from version 1 may have been interrupted; it has to finish before the table is replaced again
+                migrateLegacyTransactions(connection, AMOUNT_FIELD);
+            }
+            // the legacy table now holds real amounts, with the date either as varchar or as integer
+            connection.execute("alter table " + TRANSACTION_TABLE + " rename to " + LEGACY_TRANSACTION_TABLE);
+            // indexes keep their names when their table is renamed, and the copy only reads the legacy table by id
+            connection.execute("drop index if exists " + TRANSACTION_TABLE + "_account_date_idx");
+            connection.execute("drop index if exists " + TRANSACTION_TABLE + "_date_idx");
+            createTransactionTable(connection);
+
+            // accounts are few, so they are converted right away
+            connection.execute("alter table " + ACCOUNT_TABLE + " rename to " + ACCOUNT_TABLE + "_legacy");
+            createAccountTable(connection);
+            connection.execute("insert into " + ACCOUNT_TABLE + " select " + ACCOUNT_NO_FIELD + ", " + BANK_NAME_FIELD + ", " + ACCOUNT_HOLDER_NAME_FIELD
+                    + ", cast(round(" + BALANCE_FIELD + " * 100) as integer) from " + ACCOUNT_TABLE + "_legacy");
+            connection.execute("drop table " + ACCOUNT_TABLE + "_legacy");
+        }
+        if (oldVersion < 4) {
+            rebuildMonthlyTotals(connection);
+        }
+        if (oldVersion < 5) {
+            createMetaTable(connection);
+            // earlier versions added the demo accounts every time they started, so they are already there
+            setMeta(connection, SEEDED_KEY, 1);
+        }
+        if (oldVersion < 6) {
+            // the existing accounts get their checkpoints from the first reconciliation, which trusts their balances
+            createCheckpointTable(connection);
+        }
+    }
+
+    private static void setMeta(SqlConnection db, String key, long value) {
+        SqlStatement insert = db.prepare("insert or replace into " + META_TABLE + " (" + KEY_FIELD + ", " + VALUE_FIELD + ") values (?, ?)");
+        try {
+            insert.bindString(1, key);
+            insert.bindLong(2, value);
+            insert.executeInsert();
+        } finally {
+            insert.close();
+        }
+    }
+
+    private static boolean hasMeta(SqlConnection db, String key) {
+        SqlStatement exists = db.prepare("select count(*) from " + META_TABLE + " where " + KEY_FIELD + " = ?");
+        try {
+            exists.bindString(1, key);
+            return exists.simpleQueryForLong() > 0;
+        } finally {
+            exists.close();
+        }
+    }
+
+    @Override
+    public void onOpen(SqlConnection connection) {
+        migrateLegacyTransactions(connection, CONVERT_AMOUNT);
+    }
+
+    /***
+     * Copy the rows of a legacy transactions table into the current one, converting the date to an integer. Each
+     * chunk is committed separately so that the work per transaction stays bounded, and an interrupted migration
+     * resumes after the last copied transaction the next time the database is opened.
+     *
+     * @param db               - the writable database
+     * @param amountExpression - expression converting the legacy amount to the amount of the current table
+     */
+    private static void migrateLegacyTransactions(SqlConnection db, String amountExpression) {
+        SqlStatement exists = db.prepare("select count(*) from sqlite_master where type = 'table' and name = ?");
+        exists.bindString(1, LEGACY_TRANSACTION_TABLE);
+        boolean hasLegacyTable = exists.simpleQueryForLong() > 0;
+        exists.close();
+        if (!hasLegacyTable) return;
+
+        SqlStatement lastCopied = db.prepare("select ifnull(max(" + TRANSACTION_ID_FIELD + "), 0) from " + TRANSACTION_TABLE);
+        SqlStatement copyChunk = db.prepare(
+                "insert into " + TRANSACTION_TABLE + " (" + TRANSACTION_ID_FIELD + ", " + ACCOUNT_NO_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + AMOUNT_FIELD + ", " + DATE_FIELD + ")"
+                        + " select " + TRANSACTION_ID_FIELD + ", " + ACCOUNT_NO_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + amountExpression + ", " + CONVERT_DATE
+                        + " from " + LEGACY_TRANSACTION_TABLE + " where " + TRANSACTION_ID_FIELD + " > ? order by " + TRANSACTION_ID_FIELD + " limit " + MIGRATION_CHUNK_SIZE);
+        try {
+            long copied;
+            do {
+                db.beginTransaction();
+                try {
+                    copyChunk.bindLong(1, lastCopied.simpleQueryForLong());
+                    copied = copyChunk.executeUpdateDelete();
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } while (copied == MIGRATION_CHUNK_SIZE);
+            db.beginTransaction();
+            try {
+                rebuildMonthlyTotals(db);
+                db.execute("drop table " + LEGACY_TRANSACTION_TABLE);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            lastCopied.close();
+            copyChunk.close();
+        }
+    }
+
+    /***
+     * Recompute the monthly totals from the transaction log.
+     *
+     * @param db - the writable database, inside a transaction
+     */
+    private static void rebuildMonthlyTotals(SqlConnection db) {
+        db.execute("delete from " + MONTHLY_TOTAL_TABLE);
+        db.execute("insert into " + MONTHLY_TOTAL_TABLE + " select " + ACCOUNT_NO_FIELD + ", " + monthOf(DATE_FIELD) + ", " + EXPENSE_TYPE_FIELD
+                + ", count(*), sum(" + AMOUNT_FIELD + "), min(" + AMOUNT_FIELD + "), max(" + AMOUNT_FIELD + ") from " + TRANSACTION_TABLE + " group by 1, 2, 3");
+    }
+
+    /***
+     * Get the long-lived writer connection, opening it on first use.
+     *
+     * @return - the writer connection
+     */
+    private synchronized SqlConnection getWriter() {
+        if (writer == null || !writer.isOpen()) {
+            writer = engine.openWriter(this);
+        }
+        return writer;
+    }
+
+    /***
+     * Take a reader connection from the pool. A new read-only connection is opened while the pool is below its
+     * capacity; otherwise the caller waits for another reader to be released.
+     *
+     * @return - a reader connection which must be handed back with releaseReader
+     */
+    private SqlConnection acquireReader() {
+        getWriter();
+        BlockingQueue<SqlConnection> pool;
+        synchronized (this) {
+            if (idleReaders == null) {
+                idleReaders = new ArrayBlockingQueue<>(READER_POOL_SIZE);
+            }
+            pool = idleReaders;
+            SqlConnection reader = pool.poll();
+            if (reader != null) return reader;
+            if (openReaders < READER_POOL_SIZE) {
+                SqlConnection opened = engine.openReader();
+                openReaders++;
+                return opened;
+            }
+        }
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a reader connection", e);
+        }
+    }
+
+    private synchronized void releaseReader(SqlConnection reader) {
+        if (idleReaders != null && reader.isOpen() && idleReaders.offer(reader)) return;
+        reader.close();
+        openReaders--;
+    }
+
+    /***
+     * Open the database now rather than on first use, creating or upgrading the schema and finishing any interrupted
+     * migration. Meant to be called once off the main thread, so that later calls find the database ready.
+     *
+     * @return - false if the database could not be opened
+     */
+    public boolean open() {
+        try {
+            getWriter();
+            return true;
+        } catch (RuntimeException e) {
+            reportError("open", e);
+            return false;
+        }
+    }
+
+    /***
+     * Close the writer and all pooled reader connections. They are reopened on the next call.
+     */
+    public void close() {
+        synchronized (statementLock) {
+            if (insertTransactionStatement != null) insertTransactionStatement.close();
+            if (balanceDeltaStatement != null) balanceDeltaStatement.close();
+            if (updateMonthlyTotalStatement != null) updateMonthlyTotalStatement.close();
+            if (insertMonthlyTotalStatement != null) insertMonthlyTotalStatement.close();
+            insertTransactionStatement = null;
+            balanceDeltaStatement = null;
+            updateMonthlyTotalStatement = null;
+            insertMonthlyTotalStatement = null;
+        }
+        synchronized (this) {
+            if (idleReaders != null) {
+                SqlConnection reader;
+                while ((reader = idleReaders.poll()) != null) {
+                    reader.close();
+                    openReaders--;
+                }
+            }
+            if (writer != null) writer.close();
+            writer = null;
+            engine.close();
+        }
+    }
+
+    public void addAccount(Account account) {
+        addAccounts(Collections.singletonList(account));
+    }
+
+    /***
+     * Add a batch of accounts in a single database transaction. An account whose number is already taken is skipped.
+     *
+     * @param accounts - the accounts to be added
+     * @return - true if the batch was committed
+     */
+    public boolean addAccounts(Collection<Account> accounts) {
+        if (accounts.isEmpty()) return true;
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    insertAccounts(db, accounts);
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("addAccounts", e);
+            return false;
+        }
+    }
+
+    /***
+     * Add the initial accounts of a new database, once: the database remembers that it has been seeded, so accounts
+     * the user removed later do not come back, and nothing is written on later calls.
+     *
+     * @param accounts - the accounts to be added
+     * @return - true if the accounts were added now
+     */
+    public boolean seedAccounts(Collection<Account> accounts) {
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                if (hasMeta(db, SEEDED_KEY)) return false;
+                db.beginTransaction();
+                try {
+                    insertAccounts(db, accounts);
+                    setMeta(db, SEEDED_KEY, 1);
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("seedAccounts", e);
+            return false;
+        }
+    }
+
+    /***
+     * Insert accounts, skipping those whose number is already taken. Each new account is checkpointed at its initial
+     * balance, since none of the transactions logged so far belong to it.
+     *
+     * @param db       - the writer, inside a transaction
+     * @param accounts - the accounts to be added
+     */
+    private static void insertAccounts(SqlConnection db, Collection<Account> accounts) {
+        SqlStatement insert = db.prepare("insert or ignore into " + ACCOUNT_TABLE + " (" + ACCOUNT_NO_FIELD + ", " + BANK_NAME_FIELD + ", "
+                + ACCOUNT_HOLDER_NAME_FIELD + ", " + BALANCE_FIELD + ") values (?, ?, ?, ?)");
+        SqlStatement checkpoint = db.prepare("insert or ignore into " + CHECKPOINT_TABLE + " (" + ACCOUNT_NO_FIELD + ", " + TRANSACTION_ID_FIELD + ", " + BALANCE_FIELD
+                + ") values (?, (select ifnull(max(" + TRANSACTION_ID_FIELD + "), 0) from " + TRANSACTION_TABLE + "), ?)");
+        try {
+            for (Account account : accounts) {
+                insert.bindString(1, account.getAccountNo());
+                insert.bindString(2, account.getBankName());
+                insert.bindString(3, account.getAccountHolderName());
+                insert.bindLong(4, account.getBalanceMinor());
+                insert.executeInsert();
+                checkpoint.bindString(1, account.getAccountNo());
+                checkpoint.bindLong(2, account.getBalanceMinor());
+                checkpoint.executeInsert();
+            }
+        } finally {
+            insert.close();
+            checkpoint.close();
+        }
+    }
+
+    public boolean removeAccount(String accountNo) {
+        if (accountNo==null) return false;
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                SqlStatement delete = db.prepare("delete from " + ACCOUNT_TABLE + " where " + ACCOUNT_NO_FIELD + " = ?");
+                SqlStatement deleteCheckpoint = db.prepare("delete from " + CHECKPOINT_TABLE + " where " + ACCOUNT_NO_FIELD + " = ?");
+                db.beginTransaction();
+                try {
+                    delete.bindString(1, accountNo);
+                    deleteCheckpoint.bindString(1, accountNo);
+                    boolean removed = delete.executeUpdateDelete() > 0;
+                    deleteCheckpoint.executeUpdateDelete();
+                    db.setTransactionSuccessful();
+                    return removed;
+                } finally {
+                    db.endTransaction();
+                    delete.close();
+                    deleteCheckpoint.close();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("removeAccount", e);
+            return false;
+        }
+    }
+
+    public Account getAccount(String accountNo) {
+        if (accountNo == null) return null;
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + BANK_NAME_FIELD + ", " + ACCOUNT_HOLDER_NAME_FIELD + ", " + BALANCE_FIELD + " from " + ACCOUNT_TABLE
+                        + " where " + ACCOUNT_NO_FIELD + " = ?", new String[]{accountNo});
+                try {
+                    if (!cursor.moveToNext()) return null;
+                    return Account.ofMinorUnits(accountNo, cursor.getString(0), cursor.getString(1), cursor.getLong(2));
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+        } catch (RuntimeException e) {
+            reportError("getAccount", e);
+            return null;
+        }
+    }
+
+    public List<Account> getAccountsList() {
+        List<Account> accountList = new ArrayList<>();
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + ACCOUNT_NO_FIELD + ", " + BANK_NAME_FIELD + ", " + ACCOUNT_HOLDER_NAME_FIELD + ", " + BALANCE_FIELD
+                        + " from " + ACCOUNT_TABLE, null);
+                try {
+                    while (cursor.moveToNext()) {
+                        Account account = Account.ofMinorUnits(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3));
+                        accountList.add(account);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+            return accountList;
+        } catch (RuntimeException e) {
+            reportError("getAccountsList", e);
+            return new ArrayList<>();
+        }
+    }
+
+    public List<String> getAccountNumbersList() {
+        List<String> accountNumbersList = new ArrayList<>();
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + ACCOUNT_NO_FIELD + " from " + ACCOUNT_TABLE, null);
+                try {
+                    while (cursor.moveToNext()) {
+                        accountNumbersList.add(cursor.getString(0));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+            return accountNumbersList;
+        } catch (RuntimeException e) {
+            reportError("getAccountNumbersList", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /***
+     * Add a signed amount to the balance of an account in a single statement, so concurrent updates are not lost.
+     *
+     * @param accountNo - account to be updated
+     * @param delta     - amount in minor units to be added to the balance, negative for expenses
+     * @return - true if the account exists and was updated
+     */
+    public boolean applyBalanceDelta(String accountNo, long delta) {
+        if (accountNo == null) return false;
+        try {
+            synchronized (statementLock) {
+                SqlStatement statement = getBalanceDeltaStatement();
+                statement.bindLong(1, delta);
+                statement.bindString(2, accountNo);
+                return statement.executeUpdateDelete() > 0;
+            }
+        } catch (RuntimeException e) {
+            reportError("applyBalanceDelta", e);
+            return false;
+        }
+    }
+
+    /***
+     * Log a single transaction.
+     *
+     * @param transaction - the transaction to be logged
+     * @return - true if it was committed
+     */
+    public boolean logTransaction(Transaction transaction) {
+        // the monthly totals are updated in the same database transaction as the insert
+        return logTransactions(Collections.singletonList(transaction));
+    }
+
+    /***
+     * Log a batch of transactions in a single database transaction, reusing one compiled insert statement.
+     *
+     * @param transactions - the transactions to be logged
+     * @return - true if the whole batch was committed
+     */
+    public boolean logTransactions(Collection<Transaction> transactions) {
+        if (transactions.isEmpty()) return true;
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    SqlStatement insert = getInsertTransactionStatement();
+                    for (Transaction transaction : transactions) {
+                        bindTransaction(insert, transaction);
+                        insert.executeInsert();
+                        addToMonthlyTotals(transaction);
+                    }
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("logTransactions", e);
+            return false;
+        }
+    }
+
+    /***
+     * Log a transaction and apply it to the balance of its account in one database transaction. Nothing is written if
+     * the account does not exist.
+     *
+     * @param transaction - the transaction to be posted
+     * @return - true if the transaction was logged and the balance updated
+     */
+    public boolean postTransaction(Transaction transaction) {
+        if (transaction.getAccountNo() == null) return false;
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    SqlStatement update = getBalanceDeltaStatement();
+                    update.bindLong(1, Money.signed(transaction.getExpenseType(), transaction.getAmountMinor()));
+                    update.bindString(2, transaction.getAccountNo());
+                    if (update.executeUpdateDelete() == 0) return false;
+
+                    SqlStatement insert = getInsertTransactionStatement();
+                    bindTransaction(insert, transaction);
+                    insert.executeInsert();
+                    addToMonthlyTotals(transaction);
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("postTransaction", e);
+            return false;
+        }
+    }
+
+    /***
+     * Log a batch of transactions and apply them to the account balances in one database transaction. The net change
+     * of each account is applied with a single update. Nothing is written if any of the accounts does not exist.
+     *
+     * @param transactions - the transactions to be posted
+     * @return - true if the whole batch was committed
+     */
+    public boolean postTransactions(Collection<Transaction> transactions) {
+        return writeTransactions(transactions, null);
+    }
+
+    /***
+     * Log a batch of transactions in one database transaction, applying the flagged ones to the account balances.
+     * This lets a mixed batch of plain logs and postings be committed together in submission order.
+     *
+     * @param transactions - the transactions to be logged
+     * @param applyBalance - whether each transaction, in iteration order, changes its account balance; null for all
+     * @return - true if the whole batch was committed
+     */
+    public boolean writeTransactions(Collection<Transaction> transactions, boolean[] applyBalance) {
+        if (transactions.isEmpty()) return true;
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        int index = 0;
+        for (Transaction transaction : transactions) {
+            if (applyBalance != null && !applyBalance[index++]) continue;
+            if (transaction.getAccountNo() == null) return false;
+            Long delta = deltas.get(transaction.getAccountNo());
+            long amount = Money.signed(transaction.getExpenseType(), transaction.getAmountMinor());
+            deltas.put(transaction.getAccountNo(), delta == null ? amount : delta + amount);
+        }
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    SqlStatement update = getBalanceDeltaStatement();
+                    for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                        update.bindLong(1, entry.getValue());
+                        update.bindString(2, entry.getKey());
+                        if (update.executeUpdateDelete() == 0) return false;
+                    }
+                    SqlStatement insert = getInsertTransactionStatement();
+                    for (Transaction transaction : transactions) {
+                        bindTransaction(insert, transaction);
+                        insert.executeInsert();
+                        addToMonthlyTotals(transaction);
+                    }
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("writeTransactions", e);
+            return false;
+        }
+    }
+
+    public List<Transaction> getAllTransactionLogs(){
+        final List<Transaction> transactionList = new ArrayList<>();
+        boolean read = scanTransactions(false, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                return transactionList.add(transaction);
+            }
+        });
+        if (!read) transactionList.clear();
+        return transactionList;
+    }
+
+    public List<Transaction> getPaginatedTransactionLogs(String limit){
+        List<Transaction> transactionList = new ArrayList<>();
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                String select = "select " + TRANSACTION_COLUMNS + " from " + TRANSACTION_TABLE + " order by " + DATE_FIELD + " desc, " + TRANSACTION_ID_FIELD + " desc";
+                SqlCursor cursor = db.query(limit == null ? select : select + " limit " + Integer.parseInt(limit.trim()), null);
+                try {
+                    while (cursor.moveToNext()) {
+                        transactionList.add(readTransaction(cursor));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+            Collections.reverse(transactionList);
+            return transactionList;
+        } catch (RuntimeException e) {
+            reportError("getPaginatedTransactionLogs", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private SqlStatement getInsertTransactionStatement() {
+        if (insertTransactionStatement == null) {
+            insertTransactionStatement = getWriter().prepare(
+                    "insert into " + TRANSACTION_TABLE + " (" + ACCOUNT_NO_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + AMOUNT_FIELD + ", " + DATE_FIELD + ") values (?, ?, ?, ?)");
+        }
+        return insertTransactionStatement;
+    }
+
+    private SqlStatement getBalanceDeltaStatement() {
+        if (balanceDeltaStatement == null) {
+            balanceDeltaStatement = getWriter().prepare(
+                    "update " + ACCOUNT_TABLE + " set " + BALANCE_FIELD + " = " + BALANCE_FIELD + " + ? where " + ACCOUNT_NO_FIELD + " = ?");
+        }
+        return balanceDeltaStatement;
+    }
+
+    /***
+     * Add a transaction to the totals of its month. Must be called under the statement lock, inside the database
+     * transaction which logs it.
+     */
+    private void addToMonthlyTotals(Transaction transaction) {
+        SqlStatement update = getUpdateMonthlyTotalStatement();
+        bindMonthlyTotal(update, transaction);
+        if (update.executeUpdateDelete() == 0) {
+            SqlStatement insert = getInsertMonthlyTotalStatement();
+            bindMonthlyTotal(insert, transaction);
+            insert.executeInsert();
+        }
+    }
+
+    private SqlStatement getUpdateMonthlyTotalStatement() {
+        if (updateMonthlyTotalStatement == null) {
+            updateMonthlyTotalStatement = getWriter().prepare(
+                    "update " + MONTHLY_TOTAL_TABLE + " set " + COUNT_FIELD + " = " + COUNT_FIELD + " + 1, " + TOTAL_FIELD + " = " + TOTAL_FIELD + " + ?1, "
+                            + MINIMUM_FIELD + " = min(" + MINIMUM_FIELD + ", ?1), " + MAXIMUM_FIELD + " = max(" + MAXIMUM_FIELD + ", ?1)"
+                            + " where " + ACCOUNT_NO_FIELD + " = ?2 and " + MONTH_FIELD + " = " + monthOf("?3") + " and " + EXPENSE_TYPE_FIELD + " = ?4");
+        }
+        return updateMonthlyTotalStatement;
+    }
+
+    private SqlStatement getInsertMonthlyTotalStatement() {
+        if (insertMonthlyTotalStatement == null) {
+            insertMonthlyTotalStatement = getWriter().prepare(
+                    "insert into " + MONTHLY_TOTAL_TABLE + " (" + ACCOUNT_NO_FIELD + ", " + MONTH_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + COUNT_FIELD + ", "
+                            + TOTAL_FIELD + ", " + MINIMUM_FIELD + ", " + MAXIMUM_FIELD + ") values (?2, " + monthOf("?3") + ", ?4, 1, ?1, ?1, ?1)");
+        }
+        return insertMonthlyTotalStatement;
+    }
+
+    /***
+     * SQL for the yyyymm of an epoch millis date in the local time zone, matching MonthlyTotal.monthOf.
+     */
+    private static String monthOf(String dateExpression) {
+        return "cast(strftime('%Y%m', " + dateExpression + " / 1000, 'unixepoch', 'localtime') as integer)";
+    }
+
+    private static void bindMonthlyTotal(SqlStatement statement, Transaction transaction) {
+        statement.bindLong(1, transaction.getAmountMinor());
+        statement.bindString(2, transaction.getAccountNo());
+        statement.bindLong(3, transaction.getDate().getTime());
+        statement.bindString(4, transaction.getExpenseType().name());
+    }
+
+    private static void bindTransaction(SqlStatement statement, Transaction transaction) {
+        statement.bindString(1, transaction.getAccountNo());
+        statement.bindString(2, transaction.getExpenseType().name());
+        statement.bindLong(3, transaction.getAmountMinor());
+        statement.bindLong(4, transaction.getDate().getTime());
+    }
+
+    /***
+     * Read the monthly totals of an account, oldest month first.
+     *
+     * @param accountNo - the account
+     * @param fromMonth - first month as yyyymm, inclusive
+     * @param toMonth   - last month as yyyymm, inclusive
+     * @return - the totals of every month and type with at least one transaction
+     */
+    public List<MonthlyTotal> getMonthlyTotals(String accountNo, int fromMonth, int toMonth) {
+        List<MonthlyTotal> totals = new ArrayList<>();
+        if (accountNo == null) return totals;
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + MONTH_FIELD + ", " + EXPENSE_TYPE_FIELD + ", " + COUNT_FIELD + ", " + TOTAL_FIELD + ", " + MINIMUM_FIELD + ", " + MAXIMUM_FIELD
+                                + " from " + MONTHLY_TOTAL_TABLE + " where " + ACCOUNT_NO_FIELD + " = ? and " + MONTH_FIELD + " between ? and ? order by " + MONTH_FIELD + ", " + EXPENSE_TYPE_FIELD,
+                        new String[]{accountNo, String.valueOf(fromMonth), String.valueOf(toMonth)});
+                try {
+                    while (cursor.moveToNext()) {
+                        totals.add(new MonthlyTotal(accountNo, cursor.getInt(0), ExpenseType.valueOf(cursor.getString(1)),
+                                cursor.getLong(2), cursor.getLong(3), cursor.getLong(4), cursor.getLong(5)));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+            return totals;
+        } catch (RuntimeException e) {
+            reportError("getMonthlyTotals", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /***
+     * Check the balance of every account against its transactions, starting from the checkpoints of the previous run.
+     * Only the transactions logged since the oldest checkpoint are read, through the primary key, so a run costs time
+     * in proportion to what changed rather than to the whole history. The run happens in one database transaction on
+     * the writer, so no posting can land between reading the log and reading the balances.
+     * <p/>
+     * Every checkpoint then moves to the newest transaction with the balance the history adds up to, whether or not
+     * the recorded balance matched; an unrepaired mismatch is therefore reported again on the next run. An account
+     * without a checkpoint, one which existed before checkpoints did, is checkpointed at its recorded balance.
+     *
+     * @param repair - true to set each mismatched balance to the expected one
+     * @return - the report, or null if the run failed, in which case nothing was changed
+     */
+    public ReconciliationReport reconcile(boolean repair) {
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    ReconciliationReport report = reconcile(db, repair);
+                    db.setTransactionSuccessful();
+                    return report;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("reconcile", e);
+            return null;
+        }
+    }
+
+    private static ReconciliationReport reconcile(SqlConnection db, boolean repair) {
+        SqlStatement newest = db.prepare("select ifnull(max(" + TRANSACTION_ID_FIELD + "), 0) from " + TRANSACTION_TABLE);
+        long to = newest.simpleQueryForLong();
+        newest.close();
+        SqlStatement baseline = db.prepare("insert into " + CHECKPOINT_TABLE + " select " + ACCOUNT_NO_FIELD + ", ?, " + BALANCE_FIELD + " from " + ACCOUNT_TABLE
+                + " where " + ACCOUNT_NO_FIELD + " not in (select " + ACCOUNT_NO_FIELD + " from " + CHECKPOINT_TABLE + ")");
+        baseline.bindLong(1, to);
+        int baselined = baseline.executeUpdateDelete();
+        baseline.close();
+        SqlStatement oldest = db.prepare("select ifnull(min(" + TRANSACTION_ID_FIELD + "), ?) from " + CHECKPOINT_TABLE);
+        oldest.bindLong(1, to);
+        long from = oldest.simpleQueryForLong();
+        oldest.close();
+
+        // the range on the primary key bounds the scan; the join skips what each account's own checkpoint covers
+        String delta = "select t." + ACCOUNT_NO_FIELD + ", sum(case when t." + EXPENSE_TYPE_FIELD + " = '" + ExpenseType.EXPENSE.name() + "' then -t." + AMOUNT_FIELD
+                + " else t." + AMOUNT_FIELD + " end) as delta, count(*) as rows from " + TRANSACTION_TABLE + " t join " + CHECKPOINT_TABLE + " c on c." + ACCOUNT_NO_FIELD + " = t." + ACCOUNT_NO_FIELD
+                + " where t." + TRANSACTION_ID_FIELD + " > ? and t." + TRANSACTION_ID_FIELD + " <= ? and t." + TRANSACTION_ID_FIELD + " > c." + TRANSACTION_ID_FIELD
+                + " group by t." + ACCOUNT_NO_FIELD;
+        List<BalanceMismatch> mismatches = new ArrayList<>();
+        List<String> changedAccounts = new ArrayList<>();
+        List<Long> changedBalances = new ArrayList<>();
+        long scanned = 0;
+        int checked = 0;
+        SqlCursor cursor = db.query("select a." + ACCOUNT_NO_FIELD + ", a." + BALANCE_FIELD + ", c." + BALANCE_FIELD + " + ifnull(d.delta, 0), ifnull(d.rows, 0) from " + ACCOUNT_TABLE + " a join "
+                + CHECKPOINT_TABLE + " c on c." + ACCOUNT_NO_FIELD + " = a." + ACCOUNT_NO_FIELD + " left join (" + delta + ") d on d." + ACCOUNT_NO_FIELD + " = a." + ACCOUNT_NO_FIELD,
+                new String[]{String.valueOf(from), String.valueOf(to)});
+        try {
+            while (cursor.moveToNext()) {
+                String accountNo = cursor.getString(0);
+                long recorded = cursor.getLong(1);
+                long expected = cursor.getLong(2);
+                long rows = cursor.getLong(3);
+                checked++;
+                scanned += rows;
+                if (rows > 0) {
+                    changedAccounts.add(accountNo);
+                    changedBalances.add(expected);
+                }
+                if (recorded != expected) mismatches.add(new BalanceMismatch(accountNo, recorded, expected));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (repair && !mismatches.isEmpty()) {
+            SqlStatement update = db.prepare("update " + ACCOUNT_TABLE + " set " + BALANCE_FIELD + " = ? where " + ACCOUNT_NO_FIELD + " = ?");
+            try {
+                for (BalanceMismatch mismatch : mismatches) {
+                    update.bindLong(1, mismatch.getExpectedBalance());
+                    update.bindString(2, mismatch.getAccountNo());
+                    update.executeUpdateDelete();
+                }
+            } finally {
+                update.close();
+            }
+        }
+        SqlStatement advance = db.prepare("update " + CHECKPOINT_TABLE + " set " + BALANCE_FIELD + " = ? where " + ACCOUNT_NO_FIELD + " = ?");
+        try {
+            for (int i = 0; i < changedAccounts.size(); i++) {
+                advance.bindLong(1, changedBalances.get(i));
+                advance.bindString(2, changedAccounts.get(i));
+                advance.executeUpdateDelete();
+            }
+        } finally {
+            advance.close();
+        }
+        SqlStatement advanceAll = db.prepare("update " + CHECKPOINT_TABLE + " set " + TRANSACTION_ID_FIELD + " = ? where " + TRANSACTION_ID_FIELD + " < ?");
+        try {
+            advanceAll.bindLong(1, to);
+            advanceAll.bindLong(2, to);
+            advanceAll.executeUpdateDelete();
+        } finally {
+            advanceAll.close();
+        }
+        return new ReconciliationReport(from, to, scanned, checked, baselined, mismatches, repair && !mismatches.isEmpty());
+    }
+
+    /***
+     * Take the recorded balances of accounts as verified up to the newest transaction, for accounts whose balances
+     * already include transactions logged after them, such as imported ones.
+     *
+     * @param accountNos - the accounts
+     * @return - true if the checkpoints were moved
+     */
+    public boolean checkpointBalances(Collection<String> accountNos) {
+        if (accountNos.isEmpty()) return true;
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                SqlStatement checkpoint = db.prepare("insert or replace into " + CHECKPOINT_TABLE + " select " + ACCOUNT_NO_FIELD + ", (select ifnull(max(" + TRANSACTION_ID_FIELD + "), 0) from "
+                        + TRANSACTION_TABLE + "), " + BALANCE_FIELD + " from " + ACCOUNT_TABLE + " where " + ACCOUNT_NO_FIELD + " = ?");
+                db.beginTransaction();
+                try {
+                    for (String accountNo : accountNos) {
+                        checkpoint.bindString(1, accountNo);
+                        checkpoint.executeUpdateDelete();
+                    }
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                    checkpoint.close();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("checkpointBalances", e);
+            return false;
+        }
+    }
+
+    /***
+     * Recompute the monthly totals from the transaction log, in case they were lost or have drifted.
+     *
+     * @return - true if the totals were rebuilt
+     */
+    public boolean rebuildMonthlyTotals() {
+        try {
+            SqlConnection db = getWriter();
+            synchronized (statementLock) {
+                db.beginTransaction();
+                try {
+                    rebuildMonthlyTotals(db);
+                    db.setTransactionSuccessful();
+                    return true;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } catch (RuntimeException e) {
+            reportError("rebuildMonthlyTotals", e);
+            return false;
+        }
+    }
+
+    /***
+     * Read a page of the transaction log, newest first. Pages after a token are located with a seek on the date index
+     * rather than an offset, so every page costs the same regardless of its position.
+     *
+     * @param token - boundary of the previous page, or null for the newest transactions
+     * @param limit - maximum number of transactions in the page
+     * @return - the page
+     */
+    public TransactionPage getTransactionLogPage(PageToken token, int limit) {
+        List<Transaction> page = new ArrayList<>(limit + 1);
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                boolean newestFirst = token == null || token.isOlder();
+                SqlCursor cursor = seekTransactions(db, newestFirst, token, null, limit + 1);
+                try {
+                    while (cursor.moveToNext()) {
+                        page.add(readTransaction(cursor));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+        } catch (RuntimeException e) {
+            reportError("getTransactionLogPage", e);
+            return TransactionPage.of(new ArrayList<Transaction>(), false, false);
+        }
+        // one extra row was read to learn whether there is more in the direction of travel
+        boolean hasMore = page.size() > limit;
+        if (hasMore) page.remove(page.size() - 1);
+        if (token == null) return TransactionPage.of(page, hasMore, false);
+        if (token.isOlder()) return TransactionPage.of(page, hasMore, true);
+        Collections.reverse(page);
+        return TransactionPage.of(page, true, hasMore);
+    }
+
+    /***
+     * Visit every account through a single cursor, without holding them in memory.
+     *
+     * @param visitor - receives each account; returning false stops the scan
+     * @return - false if the accounts could not be read
+     */
+    public boolean exportAccounts(AccountVisitor visitor) {
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + ACCOUNT_NO_FIELD + ", " + BANK_NAME_FIELD + ", " + ACCOUNT_HOLDER_NAME_FIELD + ", " + BALANCE_FIELD
+                        + " from " + ACCOUNT_TABLE, null);
+                try {
+                    while (cursor.moveToNext()) {
+                        if (!visitor.visit(Account.ofMinorUnits(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3)))) break;
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            reportError("exportAccounts", e);
+            return false;
+        }
+    }
+
+    /***
+     * Visit every transaction in the order it was logged without holding the log in memory. Like scanTransactions,
+     * the log is read in windows of a bounded number of rows, each located through the primary key by seeking past the
+     * last id of the previous window, and the visitor is called once the reader connection of a window is released.
+     * Transactions logged while the export runs show up at its end.
+     *
+     * @param visitor - receives each transaction; returning false stops the scan
+     * @return - false if the transactions could not be read
+     */
+    public boolean exportTransactions(TransactionVisitor visitor) {
+        List<Transaction> window = new ArrayList<>(SCAN_WINDOW_SIZE);
+        long lastId = Long.MIN_VALUE;
+        do {
+            window.clear();
+            try {
+                SqlConnection db = acquireReader();
+                try {
+                    SqlCursor cursor = db.query("select " + TRANSACTION_COLUMNS + " from " + TRANSACTION_TABLE + " where " + TRANSACTION_ID_FIELD + " > ? order by " + TRANSACTION_ID_FIELD + " limit " + SCAN_WINDOW_SIZE,
+                            new String[]{String.valueOf(lastId)});
+                    try {
+                        while (cursor.moveToNext()) {
+                            window.add(readTransaction(cursor));
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                } finally {
+                    releaseReader(db);
+                }
+            } catch (RuntimeException e) {
+                reportError("exportTransactions", e);
+                return false;
+            }
+            for (Transaction transaction : window) {
+                if (!visitor.visit(transaction)) return true;
+            }
+            if (!window.isEmpty()) lastId = window.get(window.size() - 1).getTransactionId();
+        } while (window.size() == SCAN_WINDOW_SIZE);
+        return true;
+    }
+
+    /***
+     * Read the transactions of a date range, located through the date index.
+     *
+     * @param fromDate - start of the range in epoch millis, inclusive
+     * @param toDate   - end of the range in epoch millis, exclusive
+     * @return - the transactions, oldest first
+     */
+    public List<Transaction> getTransactionLogs(long fromDate, long toDate) {
+        return queryTransactions("getTransactionLogs", " where " + DATE_FIELD + " >= ? and " + DATE_FIELD + " < ?",
+                new String[]{String.valueOf(fromDate), String.valueOf(toDate)});
+    }
+
+    /***
+     * Read the transactions of one account in a date range, located through the account and date index.
+     *
+     * @param accountNo - the account
+     * @param fromDate  - start of the range in epoch millis, inclusive
+     * @param toDate    - end of the range in epoch millis, exclusive
+     * @return - the transactions, oldest first
+     */
+    public List<Transaction> getAccountTransactionLogs(String accountNo, long fromDate, long toDate) {
+        return queryTransactions("getAccountTransactionLogs", " where " + ACCOUNT_NO_FIELD + " = ? and " + DATE_FIELD
+                + " >= ? and " + DATE_FIELD + " < ?", new String[]{accountNo, String.valueOf(fromDate), String.valueOf(toDate)});
+    }
+
+    private List<Transaction> queryTransactions(String operation, String where, String[] args) {
+        List<Transaction> transactions = new ArrayList<>();
+        try {
+            SqlConnection db = acquireReader();
+            try {
+                SqlCursor cursor = db.query("select " + TRANSACTION_COLUMNS + " from " + TRANSACTION_TABLE + where
+                        + " order by " + DATE_FIELD + " asc, " + TRANSACTION_ID_FIELD + " asc", args);
+                try {
+                    while (cursor.moveToNext()) {
+                        transactions.add(readTransaction(cursor));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                releaseReader(db);
+            }
+        } catch (RuntimeException e) {
+            reportError(operation, e);
+            transactions.clear();
+        }
+        return transactions;
+    }
+
+    /***
+     * Visit the transaction log in date order without holding it in memory. The log is read in windows of a bounded
+     * number of rows, each located by seeking past the last row of the previous window. The visitor is called once
+     * a window has been read and its reader connection released, and what it throws is passed on to the caller.
+     *
+     * @param newestFirst - order of the scan
+     * @param visitor     - receives each transaction; returning false stops the scan
+     * @return - false if the transactions could not be read, in which case the visitor may have seen some of them
+     */
+    public boolean scanTransactions(boolean newestFirst, TransactionVisitor visitor) {
+        return scanTransactions(null, newestFirst, visitor);
+    }
+
+    /***
+     * Visit the transactions of a date range in date order, in the same bounded windows as a full scan. The range is
+     * located through the date index.
+     *
+     * @param fromDate    - start of the range in epoch millis, inclusive
+     * @param toDate      - end of the range in epoch millis, exclusive
+     * @param newestFirst - order of the scan
+     * @param visitor     - receives each transaction; returning false stops the scan
+     * @return - false if the transactions could not be read, in which case the visitor may have seen some of them
+     */
+    public boolean scanTransactions(long fromDate, long toDate, boolean newestFirst, TransactionVisitor visitor) {
+        return scanTransactions(new long[]{fromDate, toDate}, newestFirst, visitor);
+    }
+
+    private boolean scanTransactions(long[] range, boolean newestFirst, TransactionVisitor visitor) {
+        List<Transaction> window = new ArrayList<>(SCAN_WINDOW_SIZE);
+        PageToken boundary = null;
+        do {
+            window.clear();
+            try {
+                SqlConnection db = acquireReader();
+                try {
+                    SqlCursor cursor = seekTransactions(db, newestFirst, boundary, range, SCAN_WINDOW_SIZE);
+                    try {
+                        while (cursor.moveToNext()) {
+                            window.add(readTransaction(cursor));
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                } finally {
+                    releaseReader(db);
+                }
+            } catch (RuntimeException e) {
+                reportError("scanTransactions", e);
+                return false;
+            }
+            // outside of the try, so that only storage errors are reported as such
+            for (Transaction transaction : window) {
+                if (!visitor.visit(transaction)) return true;
+            }
+            if (!window.isEmpty()) {
+                Transaction last = window.get(window.size() - 1);
+                boundary = new PageToken(newestFirst, last.getDate().getTime(), last.getTransactionId());
+            }
+        } while (window.size() == SCAN_WINDOW_SIZE);
+        return true;
+    }
+
+    /***
+     * Query transactions in date order, starting after the given boundary when there is one and limited to a date
+     * range, given as {from inclusive, to exclusive}, when there is one.
+     */
+    private static SqlCursor seekTransactions(SqlConnection db, boolean newestFirst, PageToken boundary, long[] range,
+                                              int limit) {
+        StringBuilder sql = new StringBuilder("select " + TRANSACTION_COLUMNS + " from " + TRANSACTION_TABLE);
+        List<String> args = new ArrayList<>(5);
+        if (boundary != null) {
+            String date = String.valueOf(boundary.getDate());
+            if (newestFirst) {
+                sql.append(" where " + DATE_FIELD + " <= ? and (" + DATE_FIELD + " < ? or " + TRANSACTION_ID_FIELD + " < ?)");
+            } else {
+                sql.append(" where " + DATE_FIELD + " >= ? and (" + DATE_FIELD + " > ? or " + TRANSACTION_ID_FIELD + " > ?)");
+            }
+            Collections.addAll(args, date, date, String.valueOf(boundary.getTransactionId()));
+        }
+        if (range != null) {
+            sql.append(boundary == null ? " where " : " and ");
+            sql.append(DATE_FIELD + " >= ? and " + DATE_FIELD + " < ?");
+            Collections.addAll(args, String.valueOf(range[0]), String.valueOf(range[1]));
+        }
+        sql.append(newestFirst ? NEWEST_FIRST : OLDEST_FIRST).append(limit);
+        return db.query(sql.toString(), args.isEmpty() ? null : args.toArray(new String[args.size()]));
+    }
+
+    private static Transaction readTransaction(SqlCursor cursor) {
+        return Transaction.ofMinorUnits(cursor.getLong(0), new Date(cursor.getLong(4)), cursor.getString(1),
+                ExpenseType.valueOf(cursor.getString(2)), cursor.getLong(3));
+    }
+}
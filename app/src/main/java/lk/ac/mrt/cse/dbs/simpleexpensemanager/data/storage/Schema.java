@@ -0,0 +1,31 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+/**
+ * Creates and migrates the tables of a database. The engine calls onCreate or onUpgrade in a single transaction when
+ * the stored version differs from getVersion, and onOpen every time the writer is opened.
+ */
+public interface Schema {
+    int getVersion();
+
+    void onCreate(SqlConnection connection);
+
+    void onUpgrade(SqlConnection connection, int oldVersion, int newVersion);
+
+    void onOpen(SqlConnection connection);
+}
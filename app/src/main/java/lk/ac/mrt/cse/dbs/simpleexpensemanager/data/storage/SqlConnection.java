@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+/**
+ * A connection to a SQLite database. Transactions nest: only the outermost endTransaction commits, and only if every
+ * level was marked successful. A connection is not thread safe; callers serialize access to it.
+ */
+public interface SqlConnection {
+    void execute(String sql);
+
+    /***
+     * Compile a statement which can be bound and executed repeatedly.
+     *
+     * @param sql - the statement, with ? or ?NNN parameters
+     * @return - the compiled statement, which must be closed
+     */
+    SqlStatement prepare(String sql);
+
+    /***
+     * Run a query.
+     *
+     * @param sql  - the query
+     * @param args - values of its parameters, or null if it has none
+     * @return - cursor over the result, which must be closed
+     */
+    SqlCursor query(String sql, String[] args);
+
+    void beginTransaction();
+
+    void setTransactionSuccessful();
+
+    void endTransaction();
+
+    boolean isOpen();
+
+    void close();
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Copyright 2022 Thevindu Wijesekera.
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
@@ -14,11 +14,19 @@
  *
  */
 
-package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
 
 /**
- *
+ * Forward-only cursor over the result of a query. Columns are numbered from 0.
  */
-public class Constants {
-    public static final String EXPENSE_MANAGER = "expense-manager";
+public interface SqlCursor {
+    boolean moveToNext();
+
+    String getString(int column);
+
+    long getLong(int column);
+
+    int getInt(int column);
+
+    void close();
 }
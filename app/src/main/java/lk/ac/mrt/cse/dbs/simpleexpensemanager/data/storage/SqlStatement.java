@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+/**
+ * A compiled statement. Bound values are kept between executions until they are bound again.
+ */
+public interface SqlStatement {
+    void bindString(int index, String value);
+
+    void bindLong(int index, long value);
+
+    /***
+     * @return - row id of the inserted row
+     */
+    long executeInsert();
+
+    /***
+     * @return - number of rows changed
+     */
+    int executeUpdateDelete();
+
+    /***
+     * @return - the first column of the first row of a query
+     */
+    long simpleQueryForLong();
+
+    void close();
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+/**
+ * A SQLite database the ledger can be stored in. An engine hides how connections are opened, so the same SQL runs
+ * through the Android framework on a device and through JDBC on a plain JVM.
+ */
+public interface StorageEngine {
+
+    /***
+     * Open the connection all writes go through, creating or upgrading the schema first when the database does not
+     * match its version. Write-ahead logging is enabled so that readers never wait on the writer.
+     *
+     * @param schema - the schema the database must have
+     * @return - the writer connection
+     */
+    SqlConnection openWriter(Schema schema);
+
+    /***
+     * Open an additional read-only connection. Must only be called after the writer has been opened.
+     *
+     * @return - the reader connection
+     */
+    SqlConnection openReader();
+
+    /***
+     * Release whatever the engine holds on to besides the connections it has handed out.
+     */
+    void close();
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage;
+
+/**
+ * Told about errors which the LedgerStore recovers from by returning false, null or an empty result, so that they
+ * are not lost entirely.
+ */
+public interface StorageErrorListener {
+
+    /***
+     * @param operation - name of the LedgerStore method which failed
+     * @param e         - the error
+     */
+    void onStorageError(String operation, RuntimeException e);
+}
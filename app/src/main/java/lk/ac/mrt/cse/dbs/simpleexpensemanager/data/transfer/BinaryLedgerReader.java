@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Reads a ledger written by BinaryLedgerWriter. Only the dictionary of account numbers is kept in memory.
+ */
+class BinaryLedgerReader implements LedgerReader {
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BinaryLedgerWriter.BUFFER_SIZE];
+    private final List<String> dictionary = new ArrayList<>();
+    private int position;
+    private int limit;
+    private long offset;
+
+    BinaryLedgerReader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public void readAll(LedgerSink sink) throws IOException {
+        for (byte magic : BinaryLedgerWriter.MAGIC) {
+            if (readByte() != magic) throw malformed("not a ledger");
+        }
+        long version = readVarint();
+        if (version != BinaryLedgerWriter.VERSION) throw malformed("unsupported version " + version);
+        long lastDate = 0;
+        while (true) {
+            long tag = readVarint();
+            if (tag == BinaryLedgerWriter.END) {
+                return;
+            } else if (tag == BinaryLedgerWriter.ACCOUNT) {
+                String accountNo = readString();
+                String bankName = readString();
+                String accountHolderName = readString();
+                long balance = BinaryLedgerWriter.unzigzag(readVarint());
+                dictionary.add(accountNo);
+                sink.account(Account.ofMinorUnits(accountNo, bankName, accountHolderName, balance));
+            } else if (tag == BinaryLedgerWriter.DICTIONARY) {
+                dictionary.add(readString());
+            } else if (tag == BinaryLedgerWriter.TRANSACTION) {
+                lastDate += BinaryLedgerWriter.unzigzag(readVarint());
+                long key = readVarint();
+                long index = key / BinaryLedgerWriter.TYPES;
+                if (index >= dictionary.size()) throw malformed("unknown account " + index);
+                long amount = BinaryLedgerWriter.unzigzag(readVarint());
+                sink.transaction(Transaction.ofMinorUnits(0, new Date(lastDate), dictionary.get((int) index),
+                        EXPENSE_TYPES[(int) (key % BinaryLedgerWriter.TYPES)], amount));
+            } else {
+                throw malformed("unknown record " + tag);
+            }
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            offset += limit;
+            position = 0;
+            limit = Math.max(0, in.read(buffer));
+            if (limit == 0) throw new EOFException("Truncated ledger at byte " + offset);
+        }
+        return buffer[position++];
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw malformed("varint too long");
+    }
+
+    private String readString() throws IOException {
+        long length = readVarint() - 1;
+        if (length < 0) return null;
+        if (length > Integer.MAX_VALUE) throw malformed("string too long");
+        byte[] bytes = new byte[(int) length];
+        int read = Math.min(bytes.length, limit - position);
+        System.arraycopy(buffer, position, bytes, 0, read);
+        position += read;
+        while (read < bytes.length) {
+            int count = in.read(bytes, read, bytes.length - read);
+            if (count < 0) throw new EOFException("Truncated ledger at byte " + (offset + limit));
+            offset += count;
+            read += count;
+        }
+        return new String(bytes, CsvLedgerWriter.UTF_8);
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed ledger at byte " + (offset + position) + ": " + reason);
+    }
+}
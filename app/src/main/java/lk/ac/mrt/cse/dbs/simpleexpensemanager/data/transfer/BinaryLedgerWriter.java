@@ -0,0 +1,169 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Writes a ledger in the compact binary format. The stream starts with the magic bytes "SEML" and a version, followed
+ * by records, each starting with a tag:
+ * <pre>
+ * ACCOUNT     account no, bank name, account holder name, balance
+ * DICTIONARY  account no
+ * TRANSACTION date - previous date, account index * 2 + expense type, amount
+ * END
+ * </pre>
+ * Every account and dictionary record adds its account number to the dictionary, in order, so transactions refer to
+ * accounts by index. Integers are written as base 128 varints, signed ones zigzag encoded first, and strings as their
+ * UTF-8 length plus one, zero standing for null, followed by the bytes.
+ */
+class BinaryLedgerWriter implements LedgerWriter {
+    static final byte[] MAGIC = {'S', 'E', 'M', 'L'};
+    static final int VERSION = 1;
+    static final int END = 0;
+    static final int ACCOUNT = 1;
+    static final int DICTIONARY = 2;
+    static final int TRANSACTION = 3;
+    static final int TYPES = ExpenseType.values().length;
+    static final int BUFFER_SIZE = 1 << 16;
+    // the longest record apart from its strings: a tag and three varints
+    private static final int MAX_FIXED_LENGTH = 4 * 10;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int position;
+    private long lastDate;
+    private boolean started;
+
+    BinaryLedgerWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void account(Account account) throws IOException {
+        start();
+        reserve(MAX_FIXED_LENGTH);
+        writeVarint(ACCOUNT);
+        writeString(account.getAccountNo());
+        writeString(account.getBankName());
+        writeString(account.getAccountHolderName());
+        reserve(MAX_FIXED_LENGTH);
+        writeVarint(zigzag(account.getBalanceMinor()));
+        define(account.getAccountNo());
+    }
+
+    @Override
+    public void transaction(Transaction transaction) throws IOException {
+        start();
+        Integer index = dictionary.get(transaction.getAccountNo());
+        if (index == null) {
+            // the account was removed after the transaction was logged
+            reserve(MAX_FIXED_LENGTH);
+            writeVarint(DICTIONARY);
+            writeString(transaction.getAccountNo());
+            index = define(transaction.getAccountNo());
+        }
+        long date = transaction.getDate().getTime();
+        reserve(MAX_FIXED_LENGTH);
+        writeVarint(TRANSACTION);
+        writeVarint(zigzag(date - lastDate));
+        writeVarint((long) index * TYPES + transaction.getExpenseType().ordinal());
+        writeVarint(zigzag(transaction.getAmountMinor()));
+        lastDate = date;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        start();
+        reserve(MAX_FIXED_LENGTH);
+        writeVarint(END);
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (started) return;
+        started = true;
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        position = MAGIC.length;
+        writeVarint(VERSION);
+    }
+
+    private int define(String accountNo) {
+        Integer index = dictionary.get(accountNo);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(accountNo, index);
+        }
+        return index;
+    }
+
+    /***
+     * Make room for at least <code>length</code> bytes in the buffer, writing out what it holds if necessary.
+     */
+    private void reserve(int length) throws IOException {
+        if (position + length <= buffer.length) return;
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            reserve(MAX_FIXED_LENGTH);
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(CsvLedgerWriter.UTF_8);
+        reserve(MAX_FIXED_LENGTH);
+        writeVarint(bytes.length + 1L);
+        if (bytes.length > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
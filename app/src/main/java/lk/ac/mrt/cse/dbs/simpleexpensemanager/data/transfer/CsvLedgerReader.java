@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Reads a ledger written by CsvLedgerWriter. Records are parsed one at a time into reused buffers. Blank lines are
+ * skipped; an empty field is read as an empty string. A ledger without its end record is rejected as truncated.
+ */
+class CsvLedgerReader implements LedgerReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private long line;
+
+    CsvLedgerReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, CsvLedgerWriter.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void readAll(LedgerSink sink) throws IOException {
+        if (!readRecord() || fields.size() != 2 || !fields.get(0).equals(CsvLedgerWriter.HEADER)) {
+            throw malformed("not a ledger");
+        }
+        if (!fields.get(1).equals(CsvLedgerWriter.VERSION)) throw malformed("unsupported version " + fields.get(1));
+        long count = 0;
+        while (readRecord()) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) continue;
+            String type = fields.get(0);
+            try {
+                if (type.equals(CsvLedgerWriter.END) && fields.size() == 2) {
+                    if (Long.parseLong(fields.get(1)) != count) {
+                        throw malformed("expected " + fields.get(1) + " records");
+                    }
+                    while (readRecord()) {
+                        if (fields.size() != 1 || !fields.get(0).isEmpty()) throw malformed("record after the end");
+                    }
+                    return;
+                } else if (type.equals(CsvLedgerWriter.ACCOUNT) && fields.size() == 5) {
+                    sink.account(Account.ofMinorUnits(fields.get(1), fields.get(2), fields.get(3),
+                            Money.parse(fields.get(4))));
+                } else if (type.equals(CsvLedgerWriter.TRANSACTION) && fields.size() == 5) {
+                    sink.transaction(Transaction.ofMinorUnits(0, new Date(Long.parseLong(fields.get(1))),
+                            fields.get(2), ExpenseType.valueOf(fields.get(3)), Money.parse(fields.get(4))));
+                } else {
+                    throw malformed("unexpected record");
+                }
+                count++;
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included
+                throw malformed(e.getMessage());
+            }
+        }
+        throw new EOFException("Truncated ledger at line " + line);
+    }
+
+    /***
+     * Read the fields of the next record, which may span several lines if a quoted field contains line breaks.
+     *
+     * @return - false at the end of the stream
+     */
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = in.read();
+        if (c < 0) return false;
+        line++;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c < 0) throw malformed("unterminated quote");
+                if (c == '"') {
+                    c = in.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                fields.add(field.toString());
+                return true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed ledger at line " + line + ": " + reason);
+    }
+}
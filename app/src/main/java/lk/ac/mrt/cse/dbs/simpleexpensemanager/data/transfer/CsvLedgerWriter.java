@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Writes a ledger as CSV:
+ * <pre>
+ * ledger,1
+ * account,&lt;account no&gt;,&lt;bank name&gt;,&lt;account holder name&gt;,&lt;balance&gt;
+ * transaction,&lt;date&gt;,&lt;account no&gt;,&lt;EXPENSE|INCOME&gt;,&lt;amount&gt;
+ * end,&lt;number of records&gt;
+ * </pre>
+ * Fields are quoted as in RFC 4180 when they contain a comma, a quote or a line break. The last line tells a reader
+ * that the file was not cut short.
+ */
+class CsvLedgerWriter implements LedgerWriter {
+    static final String HEADER = "ledger";
+    static final String VERSION = "1";
+    static final String ACCOUNT = "account";
+    static final String TRANSACTION = "transaction";
+    static final String END = "end";
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private boolean started;
+    private long count;
+
+    CsvLedgerWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void account(Account account) throws IOException {
+        start();
+        out.write(ACCOUNT);
+        field(account.getAccountNo());
+        field(account.getBankName());
+        field(account.getAccountHolderName());
+        out.write(',');
+        out.write(Money.format(account.getBalanceMinor()));
+        out.write('\n');
+        count++;
+    }
+
+    @Override
+    public void transaction(Transaction transaction) throws IOException {
+        start();
+        out.write(TRANSACTION);
+        out.write(',');
+        out.write(Long.toString(transaction.getDate().getTime()));
+        field(transaction.getAccountNo());
+        out.write(',');
+        out.write(transaction.getExpenseType().name());
+        out.write(',');
+        out.write(Money.format(transaction.getAmountMinor()));
+        out.write('\n');
+        count++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        start();
+        out.write(END + "," + count + "\n");
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (started) return;
+        started = true;
+        out.write(HEADER + "," + VERSION + "\n");
+    }
+
+    private void field(String value) throws IOException {
+        out.write(',');
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The formats a ledger can be exported to and imported from.
+ * <p/>
+ * CSV is for people and other tools: one record per line in UTF-8, the first field naming the record type, dates in
+ * epoch milliseconds and amounts as plain decimals.
+ * <p/>
+ * BINARY is for backups: account numbers are replaced by their index in a dictionary built as the ledger is written,
+ * each date is stored as the difference to the previous one, and all numbers are variable-length, so a typical
+ * transaction takes 6 to 8 bytes.
+ */
+public enum LedgerFormat {
+    CSV {
+        @Override
+        public LedgerWriter newWriter(OutputStream out) {
+            return new CsvLedgerWriter(out);
+        }
+
+        @Override
+        public LedgerReader newReader(InputStream in) {
+            return new CsvLedgerReader(in);
+        }
+    },
+    BINARY {
+        @Override
+        public LedgerWriter newWriter(OutputStream out) {
+            return new BinaryLedgerWriter(out);
+        }
+
+        @Override
+        public LedgerReader newReader(InputStream in) {
+            return new BinaryLedgerReader(in);
+        }
+    };
+
+    public abstract LedgerWriter newWriter(OutputStream out);
+
+    public abstract LedgerReader newReader(InputStream in);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.IOException;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Receives the records of a ledger one at a time: all the accounts first, then all the transactions in the order they
+ * were logged.
+ */
+public interface LedgerSink {
+
+    /***
+     * @param account - the next account
+     */
+    public void account(Account account) throws IOException;
+
+    /***
+     * @param transaction - the next transaction; its id is not carried over
+     */
+    public void transaction(Transaction transaction) throws IOException;
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+
+/**
+ * Exports the accounts and transactions tables of a LedgerStore to a stream and imports them back, in constant memory:
+ * the export writes the rows as it reads them in bounded windows, and the import inserts the rows it reads in batches,
+ * each in its own database transaction.
+ * <p/>
+ * The accounts are exported first, then the transactions, so a transaction posted during an export may show up in the
+ * log but not in the balance of its account. Transaction ids are not exported; imported transactions are given new ids
+ * in the order they were read. Imported transactions are logged without touching any balance, since the exported
+ * balances already include them, and the balances of the accounts added are taken as reconciled up to the last
+ * imported transaction.
+ * <p/>
+ * An import only adds accounts. An account whose number is already taken is skipped together with its transactions,
+ * so the existing account keeps both its balance and its log and still reconciles, and importing the same ledger
+ * twice adds nothing the second time. Transactions of accounts which are not in the ledger, such as removed ones, are
+ * skipped as well, since no balance accounts for them. An import which failed half way is not completed by running it
+ * again: the accounts it added are then taken as existing.
+ */
+public class LedgerTransfer {
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    private final LedgerStore store;
+    private final int batchSize;
+
+    public LedgerTransfer(LedgerStore store) {
+        this(store, DEFAULT_BATCH_SIZE);
+    }
+
+    /***
+     * @param store     - the store to export from and import into
+     * @param batchSize - the number of rows inserted per database transaction during an import
+     */
+    public LedgerTransfer(LedgerStore store, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        this.store = store;
+        this.batchSize = batchSize;
+    }
+
+    /***
+     * Write every account and transaction to a stream. The stream is flushed but not closed.
+     *
+     * @param out    - the stream to write to
+     * @param format - the format to write
+     * @return - the number of records written
+     * @throws IOException - if the stream cannot be written or the store cannot be read
+     */
+    public long exportLedger(OutputStream out, LedgerFormat format) throws IOException {
+        ExportVisitor visitor = new ExportVisitor(format.newWriter(out));
+        if (!store.exportAccounts(visitor)) throw new IOException("Unable to read the accounts");
+        visitor.rethrow();
+        if (!store.exportTransactions(visitor)) throw new IOException("Unable to read the transactions");
+        visitor.rethrow();
+        visitor.writer.finish();
+        return visitor.count;
+    }
+
+    /***
+     * Read a ledger from a stream and add the accounts it has which the store does not, with their transactions.
+     * Batches committed before an error are kept, but the balances of the accounts they added are then left to be
+     * reconciled against the imported transactions. The stream is not closed.
+     *
+     * @param in     - the stream to read from
+     * @param format - the format to read
+     * @return - the number of records read, including the skipped ones
+     * @throws IOException - if the stream cannot be read, is malformed or the store cannot be read or written
+     */
+    public long importLedger(InputStream in, LedgerFormat format) throws IOException {
+        final Set<String> existingAccounts = new HashSet<>();
+        // unlike getAccountNumbersList, a failed read is told apart from an empty store, which would duplicate the log
+        boolean read = store.exportAccounts(new AccountVisitor() {
+            @Override
+            public boolean visit(Account account) {
+                existingAccounts.add(account.getAccountNo());
+                return true;
+            }
+        });
+        if (!read) throw new IOException("Unable to read the accounts");
+        ImportSink sink = new ImportSink(existingAccounts);
+        format.newReader(in).readAll(sink);
+        sink.flush();
+        if (!store.checkpointBalances(sink.addedAccounts)) throw new IOException("Unable to checkpoint the balances");
+        return sink.count;
+    }
+
+    /**
+     * Passes the rows of the store to a writer. The visitor interfaces cannot throw, so the first IOException stops
+     * the scan and is kept to be thrown once the store has released its cursor.
+     */
+    private static class ExportVisitor implements AccountVisitor, TransactionVisitor {
+        private final LedgerWriter writer;
+        private IOException error;
+        private long count;
+
+        ExportVisitor(LedgerWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public boolean visit(Account account) {
+            try {
+                writer.account(account);
+                count++;
+                return true;
+            } catch (IOException e) {
+                error = e;
+                return false;
+            }
+        }
+
+        @Override
+        public boolean visit(Transaction transaction) {
+            try {
+                writer.transaction(transaction);
+                count++;
+                return true;
+            } catch (IOException e) {
+                error = e;
+                return false;
+            }
+        }
+
+        void rethrow() throws IOException {
+            if (error != null) throw error;
+        }
+    }
+
+    /**
+     * Collects the records to be added into batches. The accounts always come first, so they are committed before any
+     * transaction, and the transactions of the accounts which are not added are dropped as they are read.
+     */
+    private class ImportSink implements LedgerSink {
+        private final Set<String> existingAccounts;
+        private final Set<String> addedAccounts = new HashSet<>();
+        private final List<Account> accounts = new ArrayList<>();
+        private final List<Transaction> transactions = new ArrayList<>();
+        private long count;
+
+        ImportSink(Set<String> existingAccounts) {
+            this.existingAccounts = existingAccounts;
+        }
+
+        @Override
+        public void account(Account account) throws IOException {
+            count++;
+            String accountNo = account.getAccountNo();
+            if (existingAccounts.contains(accountNo) || !addedAccounts.add(accountNo)) return;
+            accounts.add(account);
+            if (accounts.size() >= batchSize) flush();
+        }
+
+        @Override
+        public void transaction(Transaction transaction) throws IOException {
+            if (!accounts.isEmpty()) flush();
+            count++;
+            if (!addedAccounts.contains(transaction.getAccountNo())) return;
+            transactions.add(transaction);
+            if (transactions.size() >= batchSize) flush();
+        }
+
+        void flush() throws IOException {
+            if (!store.addAccounts(accounts)) throw new IOException("Unable to add the accounts");
+            accounts.clear();
+            if (!store.logTransactions(transactions)) throw new IOException("Unable to log the transactions");
+            transactions.clear();
+        }
+    }
+}
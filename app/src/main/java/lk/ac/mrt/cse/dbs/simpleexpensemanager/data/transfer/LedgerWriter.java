@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer;
+
+import java.io.IOException;
+
+/**
+ * Writes the records of a ledger to a stream in one of the LedgerFormats.
+ */
+public interface LedgerWriter extends LedgerSink {
+
+    /***
+     * Write whatever ends the ledger and flush everything to the underlying stream, which is left open.
+     */
+    public void finish() throws IOException;
+}
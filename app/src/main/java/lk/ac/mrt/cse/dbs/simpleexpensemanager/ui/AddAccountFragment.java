@@ -16,8 +16,10 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
 
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
+import android.support.v7.app.AlertDialog;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -25,26 +27,23 @@ import android.widget.Button;
 import android.widget.EditText;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AsyncExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerRegistry;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
  *
  */
 public class AddAccountFragment extends Fragment implements View.OnClickListener {
-    private ExpenseManager currentExpenseManager;
+    private AsyncExpenseManager asyncExpenseManager;
+    private final PendingCalls pendingCalls = new PendingCalls();
     private EditText accountNumber;
     private EditText bankName;
     private EditText accountHolderName;
     private EditText initialBalance;
     private Button addAccount;
 
-    public static AddAccountFragment newInstance(ExpenseManager expenseManager) {
-        AddAccountFragment addAccountFragment = new AddAccountFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        addAccountFragment.setArguments(args);
-        return addAccountFragment;
+    public static AddAccountFragment newInstance() {
+        return new AddAccountFragment();
     }
 
     public AddAccountFragment() {
@@ -60,10 +59,17 @@ public class AddAccountFragment extends Fragment implements View.OnClickListener
         addAccount = (Button) rootView.findViewById(R.id.add_account);
         addAccount.setOnClickListener(this);
 
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
+        asyncExpenseManager = new AsyncExpenseManager(
+                ExpenseManagerRegistry.get(getActivity()).getExpenseManager(), new MainThreadExecutor());
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        pendingCalls.cancelAll();
+    }
+
     @Override
     public void onClick(View view) {
         switch (view.getId()) {
@@ -94,15 +100,39 @@ public class AddAccountFragment extends Fragment implements View.OnClickListener
                     break;
                 }
 
-                if (currentExpenseManager != null) {
-                    currentExpenseManager.addAccount(accountNumStr, bankNameStr, accountHolderStr,
-                            Double.parseDouble(initialBalanceStr));
+                if (asyncExpenseManager != null) {
+                    final String newAccount = accountNumStr;
+                    // a write, so it is not cancelled with the view
+                    asyncExpenseManager.addAccount(accountNumStr, bankNameStr, accountHolderStr, initialBalanceStr,
+                            pendingCalls.write(getActivity(), new AsyncExpenseManager.Callback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            showAddError(newAccount, e);
+                        }
+                    }));
                 }
                 cleanUp();
                 break;
         }
     }
 
+    private void showAddError(String account, Exception e) {
+        new AlertDialog.Builder(this.getActivity())
+                .setTitle(this.getString(R.string.msg_account_add_unable) + account)
+                .setMessage(e.getMessage())
+                .setNeutralButton(this.getString(R.string.msg_ok),
+                        new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.cancel();
+                    }
+                }).setIcon(android.R.drawable.ic_dialog_alert).show();
+    }
+
     private void cleanUp() {
         accountNumber.getText().clear();
         bankName.getText().clear();
@@ -18,34 +18,38 @@ package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
 
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TableLayout;
-import android.widget.TableRow;
-import android.widget.TextView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AsyncExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionPage;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
- *
+ * Shows the transaction log newest first in a recycling list. Pages are read on a background thread, and the next
+ * older page is requested while the user is still a few rows away from the end of what has been loaded.
  */
 public class ExpenseLogsFragment extends Fragment {
-    private ExpenseManager currentExpenseManager;
+    private static final int PAGE_SIZE = MainActivity.FIRST_PAGE_SIZE;
+    private static final int PREFETCH_DISTANCE = 25;
+
+    private ExpenseManagerRegistry registry;
+    private AsyncExpenseManager asyncExpenseManager;
+    private final PendingCalls pendingCalls = new PendingCalls();
+    private TransactionLogAdapter adapter;
+    private LinearLayoutManager layoutManager;
+    private String olderPageToken;
+    private boolean hasOlder;
+    private boolean loading;
 
-    public static ExpenseLogsFragment newInstance(ExpenseManager expenseManager) {
-        ExpenseLogsFragment expenseLogsFragment = new ExpenseLogsFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        expenseLogsFragment.setArguments(args);
-        return expenseLogsFragment;
+    public static ExpenseLogsFragment newInstance() {
+        return new ExpenseLogsFragment();
     }
 
     public ExpenseLogsFragment() {
@@ -54,42 +58,65 @@ public class ExpenseLogsFragment extends Fragment {
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View rootView = inflater.inflate(R.layout.fragment_expense_logs, container, false);
-        TableLayout logsTableLayout = (TableLayout) rootView.findViewById(R.id.logs_table);
-        TableRow tableRowHeader = (TableRow) rootView.findViewById(R.id.logs_table_header);
+        RecyclerView logsList = (RecyclerView) rootView.findViewById(R.id.logs_list);
 
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
-        List<Transaction> transactionList = new ArrayList<>();
-        if (currentExpenseManager != null) {
-            transactionList = currentExpenseManager.getTransactionLogs();
-        }
-        generateTransactionsTable(rootView, logsTableLayout, transactionList);
+        registry = ExpenseManagerRegistry.get(getActivity());
+        asyncExpenseManager = new AsyncExpenseManager(registry.getExpenseManager(), new MainThreadExecutor());
+        adapter = new TransactionLogAdapter(new SimpleDateFormat(getActivity().getString(R.string.config_date_log_pattern)));
+        layoutManager = new LinearLayoutManager(rootView.getContext());
+        logsList.setLayoutManager(layoutManager);
+        logsList.setHasFixedSize(true);
+        logsList.setAdapter(adapter);
+        logsList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() + PREFETCH_DISTANCE >= adapter.getItemCount()) {
+                    loadOlderPage();
+                }
+            }
+        });
+
+        olderPageToken = null;
+        hasOlder = true;
+        loading = false;
+        loadOlderPage();
         return rootView;
     }
 
-    private void generateTransactionsTable(View rootView, TableLayout logsTableLayout,
-                                           List<Transaction> transactionList) {
-        for (Transaction transaction : transactionList) {
-            TableRow tr = new TableRow(rootView.getContext());
-            TextView lDateVal = new TextView(rootView.getContext());
-
-            SimpleDateFormat sdf = new SimpleDateFormat(getActivity().getString(R.string.config_date_log_pattern));
-            String formattedDate = sdf.format(transaction.getDate());
-            lDateVal.setText(formattedDate);
-            tr.addView(lDateVal);
-
-            TextView lAccountNoVal = new TextView(rootView.getContext());
-            lAccountNoVal.setText(transaction.getAccountNo());
-            tr.addView(lAccountNoVal);
-
-            TextView lExpenseTypeVal = new TextView(rootView.getContext());
-            lExpenseTypeVal.setText(transaction.getExpenseType().toString());
-            tr.addView(lExpenseTypeVal);
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        pendingCalls.cancelAll();
+    }
 
-            TextView lAmountVal = new TextView(rootView.getContext());
-            lAmountVal.setText(String.valueOf(transaction.getAmount()));
-            tr.addView(lAmountVal);
+    /***
+     * Read the page after the oldest loaded transaction in the background and append it on the main thread. Does
+     * nothing while a page is already being read or once the oldest transaction has been loaded.
+     */
+    private void loadOlderPage() {
+        if (loading || !hasOlder || asyncExpenseManager == null) return;
+        loading = true;
+        AsyncExpenseManager.Callback<TransactionPage> callback = new AsyncExpenseManager.Callback<TransactionPage>() {
+            @Override
+            public void onSuccess(TransactionPage page) {
+                olderPageToken = page.getOlderPageToken();
+                hasOlder = olderPageToken != null;
+                loading = false;
+                adapter.appendPage(page.getTransactions());
+            }
 
-            logsTableLayout.addView(tr);
+            @Override
+            public void onError(Exception e) {
+                // the next scroll retries
+                loading = false;
+            }
+        };
+        if (olderPageToken == null) {
+            // the newest page is normally loaded while the activity is created
+            pendingCalls.add(asyncExpenseManager.getFirstTransactionLogPage(registry.getStartup(), PAGE_SIZE,
+                    callback));
+        } else {
+            pendingCalls.add(asyncExpenseManager.getTransactionLogPage(olderPageToken, PAGE_SIZE, callback));
         }
     }
 }
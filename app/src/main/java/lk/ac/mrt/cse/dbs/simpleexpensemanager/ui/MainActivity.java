@@ -16,8 +16,10 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
 
-import android.content.Context;
 import android.os.Bundle;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.design.widget.TabLayout;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
@@ -25,15 +27,20 @@ import android.support.v4.app.FragmentPagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
+import android.view.ViewTreeObserver;
 
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.BuildConfig;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.InMemoryDemoExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.PersistentExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.SQLiteHelper;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AsyncExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerRegistry;
 
 public class MainActivity extends AppCompatActivity {
-    private ExpenseManager expenseManager;
+    private static final String TAG = "MainActivity";
+    /* The page size of ExpenseLogsFragment, so that its first page can be loaded at startup. */
+    static final int FIRST_PAGE_SIZE = 50;
+
+    private AsyncExpenseManager asyncExpenseManager;
     /**
      * The {@link android.support.v4.view.PagerAdapter} that will provide
      * fragments for each of the sections. We use a
@@ -51,7 +58,23 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        final long createdAt = SystemClock.uptimeMillis();
+        Trace.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
+        if (BuildConfig.DEBUG) {
+            // storage calls belong on the I/O threads of AsyncExpenseManager
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads().detectDiskWrites().penaltyLog().build());
+        }
+
+        // the manager outlives the activity; the first time round, the database is opened and the first screens
+        // loaded on the I/O threads while the views are inflated
+        ExpenseManagerRegistry registry = ExpenseManagerRegistry.get(this);
+        // only debug builds have the metrics screen, so release builds do not pay for the metering
+        registry.getExpenseManager().getMetrics().setEnabled(BuildConfig.DEBUG);
+        asyncExpenseManager = new AsyncExpenseManager(registry.getExpenseManager(), new MainThreadExecutor());
+        registry.start(new MainThreadExecutor(), FIRST_PAGE_SIZE, new StartupLogger(createdAt));
+
         setContentView(R.layout.activity_main);
 
         Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
@@ -67,10 +90,45 @@ public class MainActivity extends AppCompatActivity {
         TabLayout tabLayout = (TabLayout) findViewById(R.id.tabs);
         tabLayout.setupWithViewPager(mViewPager);
 
-        /*  Setup the Persistent implementation  */
-        Context context = this.getApplicationContext();
-        expenseManager = new PersistentExpenseManager(context);
-        /* END */
+        final ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                getWindow().getDecorView().getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.i(TAG, "First frame " + (SystemClock.uptimeMillis() - createdAt) + " ms after onCreate");
+                return true;
+            }
+        });
+        Trace.endSection();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // transactions queued for a group commit are only durable once written
+        asyncExpenseManager.flush(null);
+    }
+
+    /**
+     * Logs when the storage is ready. Static, since the registry keeps the startup, and so its callback until it is
+     * delivered, for longer than the activity lives.
+     */
+    private static class StartupLogger implements AsyncExpenseManager.Callback<Void> {
+        private final long createdAt;
+
+        StartupLogger(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        public void onSuccess(Void result) {
+            Log.i(TAG, "Storage ready " + (SystemClock.uptimeMillis() - createdAt) + " ms after onCreate");
+        }
+
+        @Override
+        public void onError(Exception e) {
+            Log.e(TAG, "Unable to open the storage", e);
+        }
     }
 
     /**
@@ -89,20 +147,22 @@ public class MainActivity extends AppCompatActivity {
             // Return the respective fragment.
             switch (position) {
                 case 0:
-                    return ManageExpensesFragment.newInstance(expenseManager);
+                    return ManageExpensesFragment.newInstance();
                 case 1:
-                    return AddAccountFragment.newInstance(expenseManager);
+                    return AddAccountFragment.newInstance();
                 case 2:
-                    return ExpenseLogsFragment.newInstance(expenseManager);
+                    return ExpenseLogsFragment.newInstance();
+                case 3:
+                    return MetricsFragment.newInstance();
                 default:
-                    return ManageExpensesFragment.newInstance(expenseManager);
+                    return ManageExpensesFragment.newInstance();
             }
         }
 
         @Override
         public int getCount() {
-            // Show 3 total pages.
-            return 3;
+            // Show 3 total pages, and the metrics in debug builds.
+            return BuildConfig.DEBUG ? 4 : 3;
         }
 
         @Override
@@ -114,6 +174,8 @@ public class MainActivity extends AppCompatActivity {
                     return getString(R.string.label_add_account);
                 case 2:
                     return getString(R.string.label_logs);
+                case 3:
+                    return getString(R.string.label_metrics);
                 default:
                     return getString(R.string.label_manage);
             }
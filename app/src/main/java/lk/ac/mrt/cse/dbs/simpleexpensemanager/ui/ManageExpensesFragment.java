@@ -31,12 +31,13 @@ import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.Spinner;
 
+import java.util.List;
+
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AsyncExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerRegistry;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
  *
  */
@@ -46,14 +47,11 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
     private Spinner accountSelector;
     private RadioGroup expenseTypeGroup;
     private DatePicker datePicker;
-    private ExpenseManager currentExpenseManager;
-
-    public static ManageExpensesFragment newInstance(ExpenseManager expenseManager) {
-        ManageExpensesFragment manageExpensesFragment = new ManageExpensesFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        manageExpensesFragment.setArguments(args);
-        return manageExpensesFragment;
+    private AsyncExpenseManager asyncExpenseManager;
+    private final PendingCalls pendingCalls = new PendingCalls();
+
+    public static ManageExpensesFragment newInstance() {
+        return new ManageExpensesFragment();
     }
 
     public ManageExpensesFragment() {
@@ -67,14 +65,24 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
 
         amount = (EditText) rootView.findViewById(R.id.amount);
         accountSelector = (Spinner) rootView.findViewById(R.id.account_selector);
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
-        ArrayAdapter<String> adapter =
-                null;
-        if (currentExpenseManager != null) {
-            adapter = new ArrayAdapter<>(this.getActivity(), R.layout.support_simple_spinner_dropdown_item,
-                    currentExpenseManager.getAccountNumbersList());
-        }
+        ExpenseManagerRegistry registry = ExpenseManagerRegistry.get(getActivity());
+        asyncExpenseManager = new AsyncExpenseManager(registry.getExpenseManager(), new MainThreadExecutor());
+        final ArrayAdapter<String> adapter = new ArrayAdapter<>(this.getActivity(),
+                R.layout.support_simple_spinner_dropdown_item);
         accountSelector.setAdapter(adapter);
+        // the account numbers are normally loaded while the activity is created
+        pendingCalls.add(asyncExpenseManager.getAccountNumbersList(registry.getStartup(),
+                new AsyncExpenseManager.Callback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> accountNumbers) {
+                adapter.addAll(accountNumbers);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                showError(getString(R.string.msg_accounts_load_unable), e);
+            }
+        }));
 
         expenseTypeGroup = (RadioGroup) rootView.findViewById(R.id.expense_type_group);
         RadioButton expenseType = (RadioButton) rootView.findViewById(R.id.expense);
@@ -83,11 +91,17 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        pendingCalls.cancelAll();
+    }
+
     @Override
     public void onClick(View view) {
         switch (view.getId()) {
             case R.id.submit_amount:
-                String selectedAccount = (String) accountSelector.getSelectedItem();
+                final String selectedAccount = (String) accountSelector.getSelectedItem();
                 String amountStr = amount.getText().toString();
                 RadioButton checkedType = (RadioButton) getActivity().findViewById(expenseTypeGroup
                         .getCheckedRadioButtonId());
@@ -101,25 +115,36 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
                     amount.setError(getActivity().getString(R.string.err_amount_required));
                 }
 
-                if (currentExpenseManager != null) {
-                    try {
-                        currentExpenseManager.updateAccountBalance(selectedAccount, day, month, year,
-                                ExpenseType.valueOf(type.toUpperCase()), amountStr);
-                    } catch (InvalidAccountException e) {
-                        new AlertDialog.Builder(this.getActivity())
-                                .setTitle(this.getString(R.string.msg_account_update_unable) + selectedAccount)
-                                .setMessage(e.getMessage())
-                                .setNeutralButton(this.getString(R.string.msg_ok),
-                                        new DialogInterface.OnClickListener() {
-                                    @Override
-                                    public void onClick(DialogInterface dialog, int which) {
-                                        dialog.cancel();
-                                    }
-                                }).setIcon(android.R.drawable.ic_dialog_alert).show();
-                    }
+                if (asyncExpenseManager != null) {
+                    // a write, so it is not cancelled with the view
+                    asyncExpenseManager.updateAccountBalance(selectedAccount, day, month, year,
+                            ExpenseType.valueOf(type.toUpperCase()), amountStr, pendingCalls.write(getActivity(),
+                            new AsyncExpenseManager.Callback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            showError(getString(R.string.msg_account_update_unable) + selectedAccount, e);
+                        }
+                    }));
                 }
                 amount.getText().clear();
                 break;
         }
     }
+
+    private void showError(String title, Exception e) {
+        new AlertDialog.Builder(this.getActivity())
+                .setTitle(title)
+                .setMessage(e.getMessage())
+                .setNeutralButton(this.getString(R.string.msg_ok),
+                        new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.cancel();
+                    }
+                }).setIcon(android.R.drawable.ic_dialog_alert).show();
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
+
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.OperationSnapshot;
+
+/**
+ * Debug screen listing the call counts, error counts and latency percentiles of every DAO operation and of the
+ * postings. The metrics are kept in memory, so they are read on the main thread.
+ */
+public class MetricsFragment extends Fragment implements View.OnClickListener {
+    private ExpenseManager expenseManager;
+    private TextView metricsText;
+
+    public static MetricsFragment newInstance() {
+        return new MetricsFragment();
+    }
+
+    public MetricsFragment() {
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        View rootView = inflater.inflate(R.layout.fragment_metrics, container, false);
+        Button refreshButton = (Button) rootView.findViewById(R.id.refresh_metrics);
+        refreshButton.setOnClickListener(this);
+        metricsText = (TextView) rootView.findViewById(R.id.metrics_text);
+        expenseManager = ExpenseManagerRegistry.get(getActivity()).getExpenseManager();
+        return rootView;
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    @Override
+    public void onClick(View view) {
+        if (view.getId() == R.id.refresh_metrics) {
+            showMetrics();
+        }
+    }
+
+    private void showMetrics() {
+        List<OperationSnapshot> snapshots = expenseManager == null ? null : expenseManager.getMetricsSnapshot();
+        if (snapshots == null || snapshots.isEmpty()) {
+            metricsText.setText(R.string.msg_no_metrics);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (OperationSnapshot snapshot : snapshots) {
+            text.append(snapshot).append('\n');
+        }
+        metricsText.setText(text);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
+
+import android.content.Context;
+import android.widget.Toast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AsyncExpenseManager;
+
+/**
+ * Tracks the background calls started by a screen so they can be let go of together when its view is destroyed.
+ * Reads are cancelled, since nobody is left to show their results. Writes are never cancelled, since a write which is
+ * still queued would then never run and what the user entered would be lost; only their callbacks are detached, and
+ * a failure arriving after that is shown as a toast. Only used on the main thread.
+ */
+public class PendingCalls {
+    private final List<Future<?>> reads = new ArrayList<>();
+    private final List<DetachableCallback<?>> writes = new ArrayList<>();
+
+    /***
+     * Track a read, which is cancelled when the view is destroyed.
+     *
+     * @param call - the pending read
+     */
+    public void add(Future<?> call) {
+        // completed calls are kept too, since their callback may still be waiting in the main thread queue
+        reads.add(call);
+    }
+
+    /***
+     * Wrap the callback of a write, so that the view can let go of it without cancelling the write.
+     *
+     * @param context  - any context of the app; only its application context is kept
+     * @param callback - receives the outcome while the view exists
+     * @return - the callback to pass to the write
+     */
+    public <T> AsyncExpenseManager.Callback<T> write(Context context, AsyncExpenseManager.Callback<T> callback) {
+        DetachableCallback<T> detachable = new DetachableCallback<>(context.getApplicationContext(), callback);
+        writes.add(detachable);
+        return detachable;
+    }
+
+    /***
+     * Cancel every read which has not delivered its result yet and detach the callbacks of the writes. Reads which are
+     * already running are not interrupted, but their callbacks are skipped. Writes run to completion.
+     */
+    public void cancelAll() {
+        for (Future<?> call : reads) {
+            call.cancel(false);
+        }
+        reads.clear();
+        for (DetachableCallback<?> callback : writes) {
+            callback.detach();
+        }
+        writes.clear();
+    }
+
+    private static class DetachableCallback<T> implements AsyncExpenseManager.Callback<T> {
+        private final Context context;
+        private AsyncExpenseManager.Callback<T> callback;
+
+        DetachableCallback(Context context, AsyncExpenseManager.Callback<T> callback) {
+            this.context = context;
+            this.callback = callback;
+        }
+
+        void detach() {
+            callback = null;
+        }
+
+        @Override
+        public void onSuccess(T result) {
+            if (callback != null) callback.onSuccess(result);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            if (callback != null) {
+                callback.onError(e);
+            } else {
+                // the screen is gone, but the user still has to learn that what they entered was not saved
+                Toast.makeText(context, e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Binds the loaded part of the transaction log, newest first, to recycled rows. Older pages are appended as they
+ * arrive, so rows already on screen are never rebound.
+ */
+public class TransactionLogAdapter extends RecyclerView.Adapter<TransactionLogAdapter.ViewHolder> {
+    private final List<Transaction> transactions = new ArrayList<>();
+    /* only used on the main thread, so one instance serves every row */
+    private final DateFormat dateFormat;
+
+    public TransactionLogAdapter(DateFormat dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    /***
+     * Append a page of older transactions.
+     *
+     * @param page - the transactions, newest first
+     */
+    public void appendPage(List<Transaction> page) {
+        int start = transactions.size();
+        transactions.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_transaction_log, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        Transaction transaction = transactions.get(position);
+        holder.date.setText(dateFormat.format(transaction.getDate()));
+        holder.accountNo.setText(transaction.getAccountNo());
+        holder.expenseType.setText(transaction.getExpenseType().toString());
+        holder.amount.setText(Money.format(transaction.getAmountMinor()));
+    }
+
+    @Override
+    public int getItemCount() {
+        return transactions.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView date;
+        final TextView accountNo;
+        final TextView expenseType;
+        final TextView amount;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            date = (TextView) itemView.findViewById(R.id.log_date);
+            accountNo = (TextView) itemView.findViewById(R.id.log_account);
+            expenseType = (TextView) itemView.findViewById(R.id.log_type);
+            amount = (TextView) itemView.findViewById(R.id.log_amount);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.CachingAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account DAO operations against a store which already holds the given number of accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountDAOBenchmark {
+    private static final int CACHE_SIZE = 128;
+    private static final int BULK_LOAD_CHUNK = 100000;
+
+    @Param({"inMemory", "persistent", "cachedPersistent"})
+    public String implementation;
+
+    @Param({"1000", "100000", "10000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private AccountDAO accountDAO;
+    private int added;
+    private long probe;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (implementation.equals("inMemory")) {
+            accountDAO = new InMemoryAccountDAO();
+        } else {
+            database = new BenchmarkDatabase();
+            PersistentAccountDAO persistent = new PersistentAccountDAO(database.getLedgerStore());
+            accountDAO = implementation.equals("cachedPersistent") ? new CachingAccountDAO(persistent, CACHE_SIZE) : persistent;
+        }
+        List<Account> chunk = new ArrayList<>(BULK_LOAD_CHUNK);
+        for (int from = 0; from < rows; from += BULK_LOAD_CHUNK) {
+            chunk.clear();
+            for (int i = from; i < Math.min(rows, from + BULK_LOAD_CHUNK); i++) {
+                chunk.add(new Account(accountNo(i), "Bench Bank", "Bench Holder", 1000.0));
+            }
+            if (database != null) {
+                database.bulkLoad(chunk);
+            } else {
+                for (Account account : chunk) {
+                    accountDAO.addAccount(account);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) database.delete();
+    }
+
+    @Benchmark
+    public void addAccount() {
+        accountDAO.addAccount(new Account("NEW" + added++, "Bench Bank", "Bench Holder", 1000.0));
+    }
+
+    @Benchmark
+    public long balanceLookup() throws InvalidAccountException {
+        return accountDAO.getAccount(accountNo(nextProbe())).getBalanceMinor();
+    }
+
+    @Benchmark
+    public void updateBalance() throws InvalidAccountException {
+        accountDAO.updateBalance(accountNo(nextProbe()), ExpenseType.EXPENSE, 1.0);
+    }
+
+    /***
+     * Pseudo-random existing account, so lookups are not served from a warm page or cache line every time.
+     */
+    private int nextProbe() {
+        probe = (probe * 6364136223846793005L + 1442695040888963407L);
+        return (int) ((probe >>> 33) % rows);
+    }
+
+    private static String accountNo(int i) {
+        return "ACC" + i;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.JdbcStorageEngine;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+
+/**
+ * A database in a temporary directory for the persistent DAOs, opened through the JDBC storage engine and deleted
+ * again when the benchmark is done.
+ */
+final class BenchmarkDatabase {
+    private static final String NAME = "benchmark.db";
+
+    private final File directory;
+    private LedgerStore ledgerStore;
+
+    BenchmarkDatabase() throws IOException {
+        directory = Files.createTempDirectory("expense-benchmark").toFile();
+        ledgerStore = open();
+    }
+
+    private LedgerStore open() {
+        return new LedgerStore(new JdbcStorageEngine("jdbc:sqlite:" + new File(directory, NAME).getPath()));
+    }
+
+    LedgerStore getLedgerStore() {
+        return ledgerStore;
+    }
+
+    /***
+     * Populate the database with one transaction per call rather than one per account.
+     */
+    void bulkLoad(Collection<Account> accounts) {
+        if (!ledgerStore.addAccounts(accounts)) throw new IllegalStateException("Unable to load the accounts");
+    }
+
+    /***
+     * Close the database and open it again, the way the app finds it when it starts.
+     */
+    LedgerStore reopen() {
+        ledgerStore.close();
+        ledgerStore = open();
+        return ledgerStore;
+    }
+
+    void delete() {
+        ledgerStore.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            // the database, its write-ahead log and shared memory index
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
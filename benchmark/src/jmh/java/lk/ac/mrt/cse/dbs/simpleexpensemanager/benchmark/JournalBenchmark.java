@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JournalTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The append-only journal against the SQLite transaction log: how fast each ingests transactions, and how long it
+ * takes to open a log which already holds the given number of transactions and read its newest page, which is what
+ * the app does when it starts.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int ACCOUNTS = 8;
+    private static final int BATCH_SIZE = 10000;
+    private static final int INGESTED_ROWS = 100000;
+    private static final int PAGE_SIZE = 50;
+
+    /***
+     * An empty log, created again for every iteration so that each ingests into a log of the same size.
+     */
+    @State(Scope.Thread)
+    public static class EmptyLog {
+        @Param({"persistent", "journal", "journalSynced"})
+        public String implementation;
+
+        Log log;
+        List<List<Transaction>> batches;
+
+        @Setup(Level.Trial)
+        public void createBatches() {
+            batches = batches(INGESTED_ROWS);
+        }
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            log = new Log(implementation);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.delete();
+        }
+    }
+
+    /***
+     * A log holding the given number of transactions, closed after it was loaded.
+     */
+    @State(Scope.Thread)
+    public static class FullLog {
+        @Param({"persistent", "journal"})
+        public String implementation;
+
+        @Param({"100000", "1000000"})
+        public int rows;
+
+        Log log;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            log = new Log(implementation);
+            for (List<Transaction> batch : batches(rows)) {
+                log.transactionDAO.logTransactions(batch);
+            }
+            log.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            log.delete();
+        }
+    }
+
+    @Benchmark
+    public TransactionDAO ingest(EmptyLog state) {
+        for (List<Transaction> batch : state.batches) {
+            state.log.transactionDAO.logTransactions(batch);
+            if (state.implementation.equals("journalSynced")) {
+                ((JournalTransactionDAO) state.log.transactionDAO).sync();
+            }
+        }
+        return state.log.transactionDAO;
+    }
+
+    @Benchmark
+    public List<Transaction> coldStart(FullLog state) throws IOException {
+        TransactionDAO transactionDAO = state.log.open();
+        try {
+            return transactionDAO.getTransactionLogPage(null, PAGE_SIZE).getTransactions();
+        } finally {
+            state.log.close();
+        }
+    }
+
+    private static List<List<Transaction>> batches(int rows) {
+        long date = System.currentTimeMillis() - rows * 1000L;
+        List<List<Transaction>> batches = new ArrayList<>();
+        List<Transaction> batch = null;
+        for (int i = 0; i < rows; i++) {
+            if (i % BATCH_SIZE == 0) {
+                batch = new ArrayList<>(BATCH_SIZE);
+                batches.add(batch);
+            }
+            ExpenseType type = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            batch.add(new Transaction(new Date(date += 1000), "ACC" + (i % ACCOUNTS), type, 10.0 + i % 100));
+        }
+        return batches;
+    }
+
+    /***
+     * A transaction log of either implementation in a temporary directory.
+     */
+    private static final class Log {
+        private final boolean journal;
+        private BenchmarkDatabase database;
+        private File directory;
+        TransactionDAO transactionDAO;
+
+        Log(String implementation) throws IOException {
+            journal = implementation.startsWith("journal");
+            if (journal) {
+                directory = Files.createTempDirectory("expense-journal").toFile();
+                transactionDAO = new JournalTransactionDAO(directory);
+            } else {
+                database = new BenchmarkDatabase();
+                transactionDAO = new PersistentTransactionDAO(database.getLedgerStore());
+            }
+        }
+
+        TransactionDAO open() throws IOException {
+            transactionDAO = journal ? new JournalTransactionDAO(directory)
+                    : new PersistentTransactionDAO(database.reopen());
+            return transactionDAO;
+        }
+
+        void close() throws IOException {
+            if (journal) {
+                ((JournalTransactionDAO) transactionDAO).close();
+            } else {
+                database.getLedgerStore().close();
+            }
+        }
+
+        void delete() throws IOException {
+            if (journal) {
+                close();
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                directory.delete();
+            } else {
+                database.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MeteredAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MeteredTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.metrics.MetricsRegistry;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metering decorators: the same calls with and without MeteredAccountDAO and MeteredTransactionDAO in
+ * front of the DAOs, and with the decorators in front but the registry disabled. The in-memory lookups are the worst
+ * case, since the call itself takes well under a microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteringOverheadBenchmark {
+    private static final int ACCOUNTS = 10000;
+
+    @Param({"inMemory", "persistent"})
+    public String implementation;
+
+    @Param({"none", "disabled", "enabled"})
+    public String metering;
+
+    private BenchmarkDatabase database;
+    private AccountDAO accountDAO;
+    private TransactionDAO transactionDAO;
+    private String[] accountNumbers;
+    private long nextDate;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (implementation.equals("inMemory")) {
+            accountDAO = new InMemoryAccountDAO();
+            transactionDAO = new InMemoryTransactionDAO();
+        } else {
+            database = new BenchmarkDatabase();
+            accountDAO = new PersistentAccountDAO(database.getLedgerStore());
+            transactionDAO = new PersistentTransactionDAO(database.getLedgerStore());
+        }
+        if (!metering.equals("none")) {
+            MetricsRegistry metrics = new MetricsRegistry();
+            metrics.setEnabled(metering.equals("enabled"));
+            accountDAO = new MeteredAccountDAO(accountDAO, metrics);
+            transactionDAO = new MeteredTransactionDAO(transactionDAO, metrics);
+        }
+        accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers[i] = "ACC" + i;
+            accountDAO.addAccount(new Account(accountNumbers[i], "Bench Bank", "Bench Holder", 1000.0));
+        }
+        nextDate = System.currentTimeMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) database.delete();
+    }
+
+    @Benchmark
+    public Account balanceLookup() throws InvalidAccountException {
+        return accountDAO.getAccount(accountNumbers[probe++ % ACCOUNTS]);
+    }
+
+    @Benchmark
+    public void postTransaction() throws InvalidAccountException {
+        String accountNo = accountNumbers[probe++ % ACCOUNTS];
+        transactionDAO.logTransaction(new Date(nextDate += 1000), accountNo, ExpenseType.EXPENSE, 1.0);
+        accountDAO.updateBalance(accountNo, ExpenseType.EXPENSE, 1.0);
+    }
+
+    @Benchmark
+    public void pageRead(Blackhole blackhole) {
+        for (Transaction transaction : transactionDAO.getTransactionLogPage(null, 50).getTransactions()) {
+            blackhole.consume(transaction);
+        }
+    }
+}
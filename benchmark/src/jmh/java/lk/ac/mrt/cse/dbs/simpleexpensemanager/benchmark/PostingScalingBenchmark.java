@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posting throughput of ExpenseManager from 1 to 8 threads, spread over many accounts. With one lock stripe every
+ * posting is serialized; with the default number of stripes postings to different accounts run in parallel, so the
+ * throughput should grow with the number of threads up to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostingScalingBenchmark {
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"1", "64"})
+    public int stripes;
+
+    private ExpenseManager expenseManager;
+
+    /***
+     * A new manager for every iteration, so that the log does not keep growing over the whole run.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        expenseManager = new BenchmarkExpenseManager(stripes);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            expenseManager.addAccount(accountNo(i), "Bench Bank", "Bench Holder", "1000.00");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void post1Thread() throws InvalidAccountException {
+        post();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void post2Threads() throws InvalidAccountException {
+        post();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void post4Threads() throws InvalidAccountException {
+        post();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void post8Threads() throws InvalidAccountException {
+        post();
+    }
+
+    private void post() throws InvalidAccountException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ExpenseType type = random.nextInt(3) == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+        // the same day for every posting, so the log is appended to in time order as in the app
+        expenseManager.updateAccountBalance(accountNo(random.nextInt(ACCOUNTS)), 1, 0, 2022, type, "12.50");
+    }
+
+    private static String accountNo(int i) {
+        return "ACC" + i;
+    }
+
+    /***
+     * An in-memory manager, so that the benchmark measures the locking rather than the storage.
+     */
+    private static final class BenchmarkExpenseManager extends ExpenseManager {
+        BenchmarkExpenseManager(int stripes) {
+            super(stripes);
+            setup();
+        }
+
+        @Override
+        public void setup() {
+            setTransactionsDAO(new InMemoryTransactionDAO());
+            setAccountsDAO(new InMemoryAccountDAO());
+        }
+    }
+}
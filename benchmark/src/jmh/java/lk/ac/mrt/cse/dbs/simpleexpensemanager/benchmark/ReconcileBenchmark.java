@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ReconciliationReport;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.storage.LedgerStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciling the balances after a number of new postings, incrementally from the checkpoints and by summing the whole
+ * history of every account.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconcileBenchmark {
+    private static final int ACCOUNTS = 64;
+    private static final int HISTORY = 1000000;
+    private static final int BATCH_SIZE = 10000;
+    // large enough that no expense is refused for want of funds
+    private static final long OPENING_BALANCE = 1000000000000L;
+
+    @Param({"10", "1000", "100000"})
+    public int delta;
+
+    private BenchmarkDatabase database;
+    private LedgerStore store;
+    private long date;
+    private int posted;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = new BenchmarkDatabase();
+        store = database.getLedgerStore();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(Account.ofMinorUnits("ACC" + i, "Bank " + i, "Holder " + i, OPENING_BALANCE));
+        }
+        database.bulkLoad(accounts);
+        date = System.currentTimeMillis() - (long) HISTORY * 60000L;
+        post(HISTORY);
+        if (store.reconcile(false) == null) throw new IllegalStateException("Unable to reconcile");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.delete();
+    }
+
+    /***
+     * The postings since the previous run, which are what an incremental run has to read.
+     */
+    @Setup(Level.Invocation)
+    public void postDelta() {
+        post(delta);
+    }
+
+    private void post(int count) {
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++, posted++) {
+            ExpenseType type = posted % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            batch.add(Transaction.ofMinorUnits(0, new Date(date += 60000), "ACC" + (posted * 7919L % ACCOUNTS), type,
+                    1000 + posted % 100000));
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                if (!store.postTransactions(batch)) throw new IllegalStateException("Unable to post");
+                batch.clear();
+            }
+        }
+    }
+
+    @Benchmark
+    public ReconciliationReport incremental() {
+        return store.reconcile(false);
+    }
+
+    @Benchmark
+    public Map<String, Long> fullHistory() {
+        final Map<String, Long> balances = new HashMap<>();
+        store.scanTransactions(false, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                long amount = transaction.getAmountMinor();
+                Long balance = balances.get(transaction.getAccountNo());
+                balances.put(transaction.getAccountNo(), (balance == null ? 0 : balance)
+                        + (transaction.getExpenseType() == ExpenseType.EXPENSE ? -amount : amount));
+                return true;
+            }
+        });
+        return balances;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JournalTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Period;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.Report;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.report.ReportEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A report over the whole transaction log with the given number of threads, against the single-threaded loop over
+ * getAllTransactionLogs it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportBenchmark {
+    private static final int ACCOUNTS = 64;
+    private static final int BATCH_SIZE = 10000;
+
+    @Param({"inMemory", "journal", "persistent"})
+    public String implementation;
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private BenchmarkDatabase database;
+    private File journalDirectory;
+    private TransactionDAO transactionDAO;
+    private ExecutorService executor;
+    private ReportEngine engine;
+    private Date from;
+    private Date to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (implementation.equals("inMemory")) {
+            transactionDAO = new InMemoryTransactionDAO();
+        } else if (implementation.equals("journal")) {
+            journalDirectory = Files.createTempDirectory("expense-journal").toFile();
+            transactionDAO = new JournalTransactionDAO(journalDirectory);
+        } else {
+            database = new BenchmarkDatabase();
+            transactionDAO = new PersistentTransactionDAO(database.getLedgerStore());
+        }
+        // a transaction every minute on average, so 10M rows span about 19 years
+        long date = System.currentTimeMillis() - rows * 60000L;
+        from = new Date(date);
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            ExpenseType type = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            batch.add(Transaction.ofMinorUnits(0, new Date(date += 60000), "ACC" + (i * 7919L % ACCOUNTS), type,
+                    1000 + i % 100000));
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                transactionDAO.logTransactions(batch);
+                batch.clear();
+            }
+        }
+        to = new Date(date + 1);
+        executor = Executors.newFixedThreadPool(parallelism);
+        engine = new ReportEngine(transactionDAO, executor, parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (database != null) database.delete();
+        if (journalDirectory != null) {
+            ((JournalTransactionDAO) transactionDAO).close();
+            File[] files = journalDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            journalDirectory.delete();
+        }
+    }
+
+    @Benchmark
+    public Report report() {
+        return engine.generate(from, to, Period.MONTH, ReportEngine.DEFAULT_LARGEST_ENTRIES);
+    }
+
+    /***
+     * The totals per account and type only, computed the way callers did before; parallelism does not apply.
+     */
+    @Benchmark
+    public Map<String, long[]> listLoop() {
+        Map<String, long[]> totals = new HashMap<>();
+        for (Transaction transaction : transactionDAO.getAllTransactionLogs()) {
+            long[] total = totals.get(transaction.getAccountNo());
+            if (total == null) {
+                total = new long[ExpenseType.values().length];
+                totals.put(transaction.getAccountNo(), total);
+            }
+            total[transaction.getExpenseType().ordinal()] += transaction.getAmountMinor();
+        }
+        return totals;
+    }
+}
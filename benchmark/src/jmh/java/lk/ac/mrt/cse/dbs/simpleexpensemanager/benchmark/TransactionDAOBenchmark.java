@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.PageToken;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction log operations against a log which already holds the given number of transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionDAOBenchmark {
+    private static final int ACCOUNTS = 8;
+    private static final int BATCH_SIZE = 10000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"inMemory", "persistent"})
+    public String implementation;
+
+    @Param({"1000", "100000", "10000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private AccountDAO accountDAO;
+    private TransactionDAO transactionDAO;
+    private long nextDate;
+    private int posted;
+    private String middlePageToken;
+    private Date middleDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (implementation.equals("inMemory")) {
+            accountDAO = new InMemoryAccountDAO();
+            transactionDAO = new InMemoryTransactionDAO();
+        } else {
+            database = new BenchmarkDatabase();
+            accountDAO = new PersistentAccountDAO(database.getLedgerStore());
+            transactionDAO = new PersistentTransactionDAO(database.getLedgerStore());
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountDAO.addAccount(new Account(accountNo(i), "Bench Bank", "Bench Holder", 1000.0));
+        }
+
+        nextDate = System.currentTimeMillis() - rows * 1000L;
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            ExpenseType type = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            batch.add(new Transaction(new Date(nextDate += 1000), accountNo(i), type, 10.0 + i % 100));
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                transactionDAO.logTransactions(batch);
+                batch.clear();
+            }
+        }
+
+        // a token into the middle of the log, for reading a page which is not at either end
+        final Transaction[] middle = new Transaction[1];
+        transactionDAO.scanTransactions(true, new TransactionVisitor() {
+            private int visited;
+
+            @Override
+            public boolean visit(Transaction transaction) {
+                middle[0] = transaction;
+                return ++visited < rows / 2;
+            }
+        });
+        middlePageToken = new PageToken(true, middle[0].getDate().getTime(), middle[0].getTransactionId()).encode();
+        middleDate = middle[0].getDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) database.delete();
+    }
+
+    @Benchmark
+    public void postTransaction() throws InvalidAccountException {
+        String accountNo = accountNo(posted++);
+        transactionDAO.logTransaction(new Date(nextDate += 1000), accountNo, ExpenseType.EXPENSE, 1.0);
+        accountDAO.updateBalance(accountNo, ExpenseType.EXPENSE, 1.0);
+    }
+
+    @Benchmark
+    public void paginatedRead(Blackhole blackhole) {
+        for (Transaction transaction : transactionDAO.getPaginatedTransactionLogs(PAGE_SIZE)) {
+            blackhole.consume(transaction);
+        }
+    }
+
+    @Benchmark
+    public void keysetPageRead(Blackhole blackhole) {
+        for (Transaction transaction : transactionDAO.getTransactionLogPage(middlePageToken, PAGE_SIZE).getTransactions()) {
+            blackhole.consume(transaction);
+        }
+    }
+
+    /***
+     * A page worth of transactions from the middle of the log, by date.
+     */
+    @Benchmark
+    public List<Transaction> dateRangeQuery() {
+        return transactionDAO.getTransactionLogs(middleDate, new Date(middleDate.getTime() + PAGE_SIZE * 1000L));
+    }
+
+    /***
+     * A page worth of transactions of one account from the middle of the log; the account has one in every ACCOUNTS
+     * transactions, so the range is that much longer.
+     */
+    @Benchmark
+    public List<Transaction> accountRangeQuery() {
+        return transactionDAO.getAccountTransactionLogs(accountNo(0), middleDate,
+                new Date(middleDate.getTime() + PAGE_SIZE * ACCOUNTS * 1000L));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long fullScan() {
+        final long[] total = new long[1];
+        transactionDAO.scanTransactions(false, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                total[0] += transaction.getAmountMinor();
+                return true;
+            }
+        });
+        return total[0];
+    }
+
+    private static String accountNo(int i) {
+        return "ACC" + (i % ACCOUNTS);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Thevindu Wijesekera.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.benchmark;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer.LedgerFormat;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.transfer.LedgerTransfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting the ledger to a file and importing it into an empty database, in each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferBenchmark {
+    private static final int ACCOUNTS = 64;
+    private static final int BATCH_SIZE = 10000;
+
+    @Param({"CSV", "BINARY"})
+    public LedgerFormat format;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase source;
+    private File exported;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = new BenchmarkDatabase();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(Account.ofMinorUnits("ACC" + i, "Bank " + i, "Holder " + i, 100000));
+        }
+        source.bulkLoad(accounts);
+        long date = System.currentTimeMillis() - rows * 60000L;
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            ExpenseType type = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            batch.add(Transaction.ofMinorUnits(0, new Date(date += 60000), "ACC" + (i * 7919L % ACCOUNTS), type,
+                    1000 + i % 100000));
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                if (!source.getLedgerStore().logTransactions(batch)) throw new IllegalStateException("Unable to log");
+                batch.clear();
+            }
+        }
+        exported = File.createTempFile("ledger", "." + format.name().toLowerCase());
+        exportTo(exported);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.delete();
+        exported.delete();
+    }
+
+    @Benchmark
+    public long exportLedger() throws IOException {
+        return exportTo(exported);
+    }
+
+    @Benchmark
+    public long importLedger(Target target) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(exported))) {
+            return new LedgerTransfer(target.database.getLedgerStore()).importLedger(in, format);
+        }
+    }
+
+    private long exportTo(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            return new LedgerTransfer(source.getLedgerStore()).exportLedger(out, format);
+        }
+    }
+
+    /**
+     * The empty database each import goes into. Creating one takes a few milliseconds against the seconds an import
+     * takes, so it is done per invocation.
+     */
+    @State(Scope.Thread)
+    public static class Target {
+        private BenchmarkDatabase database;
+
+        @Setup(Level.Invocation)
+        public void create() throws IOException {
+            database = new BenchmarkDatabase();
+        }
+
+        @TearDown(Level.Invocation)
+        public void delete() {
+            database.delete();
+        }
+    }
+}